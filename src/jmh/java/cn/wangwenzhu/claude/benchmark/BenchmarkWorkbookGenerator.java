@@ -0,0 +1,74 @@
+package cn.wangwenzhu.claude.benchmark;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 基准测试工作簿生成器
+ * 由Gradle任务 generateBenchmarkWorkbooks 在构建时调用，生成指定行数的xlsx文件
+ * <p>
+ * 用法: BenchmarkWorkbookGenerator &lt;输出目录&gt; &lt;行数&gt;...
+ */
+public class BenchmarkWorkbookGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("用法: BenchmarkWorkbookGenerator <输出目录> <行数>...");
+        }
+
+        var outputDir = new File(args[0]);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("无法创建目录: " + outputDir);
+        }
+
+        for (var i = 1; i < args.length; i++) {
+            var rows = Integer.parseInt(args[i]);
+            var file = workbookFile(outputDir, rows);
+            if (file.exists()) {
+                continue;
+            }
+            generate(file, rows);
+            System.out.println("已生成: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 获取指定行数的工作簿文件
+     */
+    public static File workbookFile(File dir, int rows) {
+        return new File(dir, "hosts-" + rows + ".xlsx");
+    }
+
+    private static void generate(File file, int rows) throws IOException {
+        // SXSSF只在内存中保留一个滑动窗口的行，生成百万行也不会占用过多内存
+        try (var workbook = new SXSSFWorkbook(100);
+             var out = new FileOutputStream(file)) {
+            var sheet = workbook.createSheet("设备列表");
+
+            var header = sheet.createRow(0);
+            header.createCell(0).setCellValue("序号");
+            header.createCell(1).setCellValue("设备名称");
+            header.createCell(2).setCellValue("通讯主机号");
+            header.createCell(3).setCellValue("备注");
+
+            for (var i = 1; i <= rows; i++) {
+                var row = sheet.createRow(i);
+                var ip = "10." + ((i >>> 16) & 0xFF) + "." + ((i >>> 8) & 0xFF) + "." + (i & 0xFF);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue("设备-" + i);
+                if (i % 10 == 0) {
+                    // 每10行留空主机号列，IP写在备注列，覆盖整行扫描的回退路径
+                    row.createCell(3).setCellValue("迁移至 " + ip);
+                } else {
+                    row.createCell(2).setCellValue(ip);
+                }
+            }
+
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+}
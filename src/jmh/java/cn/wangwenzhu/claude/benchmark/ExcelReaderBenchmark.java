@@ -0,0 +1,46 @@
+package cn.wangwenzhu.claude.benchmark;
+
+import cn.wangwenzhu.claude.util.ExcelReader;
+import cn.wangwenzhu.claude.util.IPExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExcelReader.readExcelFile基准测试
+ * 工作簿由构建任务 generateBenchmarkWorkbooks 预先生成
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExcelReaderBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"STREAMING", "DOM"})
+    public ExcelReader.ReadMode mode;
+
+    private String filePath;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var dir = new File(System.getProperty("benchmark.workbooks.dir", "build/jmh-workbooks"));
+        var file = BenchmarkWorkbookGenerator.workbookFile(dir, rows);
+        if (!file.exists()) {
+            throw new IllegalStateException("工作簿不存在，请先运行 generateBenchmarkWorkbooks: " + file);
+        }
+        filePath = file.getAbsolutePath();
+    }
+
+    @Benchmark
+    public int readExcelFile() {
+        var exporter = new IPExporter();
+        ExcelReader.readExcelFile(filePath, mode, exporter);
+        return exporter.getRecordCount();
+    }
+}
@@ -0,0 +1,81 @@
+package cn.wangwenzhu.claude.benchmark;
+
+import cn.wangwenzhu.claude.util.IPConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IPConverter基准测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IPConverterBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final String[] ips = new String[SIZE];
+
+    private final String[] decimals = new String[SIZE];
+
+    // 回退扫描时遇到的典型单元格：序号、设备名称、备注，少数含IP地址
+    private final String[] cells = new String[SIZE];
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        for (var i = 0; i < SIZE; i++) {
+            var ip = (i * 7 % 256) + "." + (i % 200) + "." + (i * 13 % 256) + "." + (255 - i % 256);
+            ips[i] = ip;
+            decimals[i] = IPConverter.ipToDecimal(ip);
+            cells[i] = switch (i % 4) {
+                case 0 -> String.valueOf(i);
+                case 1 -> "设备-" + i + " 机房A 3层 机柜12";
+                case 2 -> "版本 1.2." + i + " 已于2024.01.15巡检";
+                default -> i % 32 == 3 ? "迁移至 " + ip : "";
+            };
+        }
+    }
+
+    private int next() {
+        return index = (index + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public String ipToDecimal() {
+        return IPConverter.ipToDecimal(ips[next()]);
+    }
+
+    @Benchmark
+    public String decimalToIp() {
+        return IPConverter.decimalToIp(decimals[next()]);
+    }
+
+    @Benchmark
+    public boolean isValidIp() {
+        return IPConverter.isValidIp(ips[next()]);
+    }
+
+    @Benchmark
+    public long parseIpv4() {
+        return IPConverter.parseIpv4(ips[next()]);
+    }
+
+    @Benchmark
+    public boolean containsIpv4Token() {
+        return IPConverter.containsIpv4Token(cells[next()]);
+    }
+
+    /**
+     * 原实现：每个单元格调用 String.matches，每次重新编译正则
+     */
+    @Benchmark
+    public boolean ipLikeRegex() {
+        return cells[next()].matches(".*\\d+\\.\\d+\\.\\d+\\.\\d+.*");
+    }
+}
@@ -0,0 +1,53 @@
+package cn.wangwenzhu.claude.benchmark;
+
+import cn.wangwenzhu.claude.util.DeviceSqlWriter;
+import cn.wangwenzhu.claude.util.IPConverter;
+import cn.wangwenzhu.claude.util.IPExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IPExporter.exportToCSV基准测试
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IPExporterBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int records;
+
+    private IPExporter exporter;
+
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        exporter = new IPExporter();
+        for (var i = 0; i < records; i++) {
+            // 每1000条记录模拟一个源文件
+            var fileName = "hosts-" + (i / 1000) + ".xlsx";
+            var ip = IPConverter.decimalToIp(String.valueOf(0x0A000000L + i));
+            exporter.addIPEntry(fileName, ip, IPConverter.ipToDecimal(ip));
+        }
+        outputFile = Files.createTempFile("ip-export-", ".csv").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        outputFile.delete();
+        new File(DeviceSqlWriter.sqlPathFor(outputFile.getAbsolutePath())).delete();
+    }
+
+    @Benchmark
+    public boolean exportToCSV() {
+        return exporter.exportToCSV(outputFile.getAbsolutePath());
+    }
+}
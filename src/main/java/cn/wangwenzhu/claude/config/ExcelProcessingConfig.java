@@ -0,0 +1,48 @@
+package cn.wangwenzhu.claude.config;
+
+import cn.wangwenzhu.claude.util.DeviceSqlWriter;
+import cn.wangwenzhu.claude.util.ExcelReader;
+import cn.wangwenzhu.claude.util.ExtractionCache;
+import cn.wangwenzhu.claude.util.HostDeduplicator;
+import cn.wangwenzhu.claude.util.IPExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.file.Path;
+
+/**
+ * Excel处理组件配置
+ * ExcelReader只保存读取和导出配置，每次处理任务的导出器和缓冲区在任务内部创建，
+ * 因此整个应用共享一个实例即可，多个任务可以同时执行
+ * <p>
+ * 构建原生镜像时通过 {@link NativeImageHints} 声明POI/XMLBeans需要的反射和资源元数据
+ */
+@Slf4j
+@Configuration
+@ImportRuntimeHints(NativeImageHints.class)
+public class ExcelProcessingConfig {
+
+    @Bean
+    public ExcelReader excelReader(@Value("${excel.reader.mode:streaming}") ExcelReader.ReadMode readMode,
+                                   @Value("${excel.reader.parallelism:4}") int parallelism,
+                                   @Value("${excel.export.mode:buffered}") IPExporter.ExportMode exportMode,
+                                   @Value("${excel.export.sql.chunk-size:1000}") int sqlChunkSize,
+                                   @Value("${excel.export.sql.format:in_list}") DeviceSqlWriter.Format sqlFormat,
+                                   @Value("${excel.export.index.enabled:true}") boolean indexEnabled,
+                                   @Value("${excel.export.dedup:none}") HostDeduplicator.Mode dedupMode,
+                                   @Value("${excel.cache.enabled:true}") boolean cacheEnabled,
+                                   @Value("${excel.cache.dir:.cache/excel}") String cacheDir,
+                                   @Value("${excel.log.row-sample:0}") int rowSampleInterval,
+                                   ThreadPoolTaskExecutor commonTaskExecutor) {
+        var exportOptions = new IPExporter.ExportOptions(
+                new DeviceSqlWriter.Options(sqlChunkSize, sqlFormat), indexEnabled, dedupMode);
+        var cache = cacheEnabled ? new ExtractionCache(Path.of(cacheDir), ExcelReader.EXTRACTION_VERSION) : null;
+        log.info("Excel读取模式: {}, 导出模式: {}, 去重模式: {}, 最大并行文件数: {}", readMode, exportMode, dedupMode, parallelism);
+        return new ExcelReader(readMode, exportMode, exportOptions, commonTaskExecutor, parallelism, cache,
+                rowSampleInterval);
+    }
+}
@@ -0,0 +1,69 @@
+package cn.wangwenzhu.claude.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * GraalVM原生镜像的运行时元数据（Spring AOT处理时调用，只在构建阶段执行）
+ * POI读取xlsx时由XMLBeans解析workbook.xml等部件，XMLBeans在运行时：
+ * <ul>
+ *     <li>从类路径加载编译后的模式类型系统（.xsb资源）</li>
+ *     <li>反射读取各类型系统的 TypeSystemHolder.typeSystem 字段</li>
+ *     <li>按类名加载OOXML模式的接口和实现类，并反射调用实现类的构造方法</li>
+ * </ul>
+ * 这些类无法通过静态分析发现，这里在构建时扫描poi-ooxml-lite和xmlbeans的类路径全部注册。
+ * POI通过ServiceLoader注册的WorkbookProvider等由native-image自动处理，不需要额外声明
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    private static final String[] XMLBEANS_RESOURCES = {
+            "org/apache/poi/schemas/ooxml/**",
+            "org/apache/xmlbeans/metadata/**"
+    };
+
+    private static final String[] TYPE_SYSTEM_HOLDERS = {
+            "classpath*:org/apache/poi/schemas/ooxml/system/*/TypeSystemHolder.class",
+            "classpath*:org/apache/xmlbeans/metadata/system/*/TypeSystemHolder.class"
+    };
+
+    private static final String[] SCHEMA_TYPES = {
+            "classpath*:org/openxmlformats/schemas/**/*.class",
+            "classpath*:com/microsoft/schemas/**/*.class",
+            "classpath*:org/etsi/uri/**/*.class",
+            "classpath*:org/w3/x2000/x09/xmldsig/**/*.class"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (var pattern : XMLBEANS_RESOURCES) {
+            hints.resources().registerPattern(pattern);
+        }
+
+        var resolver = new PathMatchingResourcePatternResolver(classLoader);
+        var metadataReaders = new SimpleMetadataReaderFactory(classLoader);
+        try {
+            for (var pattern : TYPE_SYSTEM_HOLDERS) {
+                for (var resource : resolver.getResources(pattern)) {
+                    var className = metadataReaders.getMetadataReader(resource).getClassMetadata().getClassName();
+                    hints.reflection().registerType(TypeReference.of(className), MemberCategory.PUBLIC_FIELDS);
+                }
+            }
+            for (var pattern : SCHEMA_TYPES) {
+                for (var resource : resolver.getResources(pattern)) {
+                    var className = metadataReaders.getMetadataReader(resource).getClassMetadata().getClassName();
+                    hints.reflection().registerType(TypeReference.of(className),
+                            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("扫描XMLBeans模式类型失败", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package cn.wangwenzhu.claude.config;
+
+import cn.wangwenzhu.claude.task.TaskType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * 任务准入控制配置
+ * 提交接口按任务类型和客户端分别限流，通道队列已满时按溢出策略处理
+ *
+ * @param enabled        是否启用限流和队列容量检查
+ * @param overflowPolicy 通道队列已满时的处理方式
+ * @param types          各任务类型的提交速率限制，未配置的类型使用默认值
+ * @param client         每个客户端（X-Client-Id请求头，没有时为客户端地址）的提交速率限制
+ * @param maxClients     保留限流状态的最大客户端数，超出时清理空闲客户端
+ */
+@ConfigurationProperties(prefix = "task.admission")
+public record TaskAdmissionProperties(@DefaultValue("true") boolean enabled,
+                                      @DefaultValue("reject") OverflowPolicy overflowPolicy,
+                                      Map<TaskType, Limit> types,
+                                      @DefaultValue Limit client,
+                                      @DefaultValue("10000") int maxClients) {
+
+    private static final Map<TaskType, Limit> DEFAULT_LIMITS = Map.of(
+            TaskType.QUICK, new Limit(50, 100),
+            TaskType.RANDOM, new Limit(20, 40),
+            TaskType.LONG, new Limit(5, 10));
+
+    /**
+     * 通道队列已满时的处理方式
+     */
+    public enum OverflowPolicy {
+        /**
+         * 拒绝新任务，提交接口返回429
+         */
+        REJECT,
+        /**
+         * 丢弃队列中最早的任务（其结果被取消），接受新任务
+         */
+        SHED_OLDEST,
+        /**
+         * 由提交线程执行新任务（HTTP请求线程会被任务占用，仅适合非HTTP的提交方）
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * 速率限制
+     *
+     * @param ratePerSecond 每秒允许提交的任务数
+     * @param burst         允许的突发数量
+     */
+    public record Limit(@DefaultValue("20") double ratePerSecond, @DefaultValue("40") int burst) {
+    }
+
+    /**
+     * 获取任务类型对应的速率限制
+     */
+    public Limit limit(TaskType type) {
+        var limit = types != null ? types.get(type) : null;
+        if (limit == null || limit.ratePerSecond() <= 0 || limit.burst() <= 0) {
+            return DEFAULT_LIMITS.get(type);
+        }
+        return limit;
+    }
+}
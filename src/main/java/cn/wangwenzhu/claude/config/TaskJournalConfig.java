@@ -0,0 +1,31 @@
+package cn.wangwenzhu.claude.config;
+
+import cn.wangwenzhu.claude.task.TaskJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 持久化任务队列配置
+ * 启用后 TaskSubmissionService 在任务入队前写入任务日志，重启时恢复并按限定速率重新执行未结束的任务
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "task.journal.enabled", havingValue = "true")
+public class TaskJournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public TaskJournal taskJournal(@Value("${task.journal.dir:.cache/task-journal}") String dir,
+                                   @Value("${task.journal.segment-size:64MB}") DataSize segmentSize,
+                                   @Value("${task.journal.flush-interval:5ms}") Duration flushInterval) throws IOException {
+        log.info("任务日志: {}, 段文件大小: {}, 刷盘间隔: {}", Path.of(dir).toAbsolutePath(), segmentSize, flushInterval);
+        return TaskJournal.open(Path.of(dir), Math.toIntExact(segmentSize.toBytes()), flushInterval);
+    }
+}
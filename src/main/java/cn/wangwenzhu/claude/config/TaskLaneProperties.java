@@ -0,0 +1,58 @@
+package cn.wangwenzhu.claude.config;
+
+import cn.wangwenzhu.claude.task.TaskType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 任务通道配置
+ * 每种任务类型使用独立的执行通道，分别限制并发数和排队容量，避免长任务占满全部线程
+ *
+ * @param lanes 各任务类型的通道配置，未配置的类型使用默认值
+ */
+@ConfigurationProperties(prefix = "task")
+public record TaskLaneProperties(Map<TaskType, Lane> lanes) {
+
+    private static final Map<TaskType, Lane> DEFAULT_LANES = Map.of(
+            TaskType.QUICK, new Lane(4, 200, Duration.ofSeconds(10)),
+            TaskType.RANDOM, new Lane(3, 100, Duration.ofSeconds(30)),
+            TaskType.LONG, new Lane(3, 50, Duration.ofSeconds(60)));
+
+    /**
+     * 单个通道配置，各项分别与默认值合并，未配置（或不大于0）的项使用默认值
+     *
+     * @param concurrency   同时执行的最大任务数；配置了更大的自动伸缩上限（task.executor.autoscale.lanes.*.max-pool-size）时，
+     *                      为自动伸缩的下限，通道最多同时执行上限数量的任务
+     * @param queueCapacity 排队容量
+     * @param timeout       任务的默认期限（从进入任务通道开始计算，包括排队时间），超过后排队中的任务被丢弃、
+     *                      执行中的任务被中断；0表示不限制
+     */
+    public record Lane(int concurrency, int queueCapacity, Duration timeout) {
+    }
+
+    /**
+     * 获取任务类型对应的通道配置
+     */
+    public Lane lane(TaskType type) {
+        var defaults = DEFAULT_LANES.get(type);
+        var lane = lanes != null ? lanes.get(type) : null;
+        if (lane == null) {
+            return defaults;
+        }
+        return new Lane(
+                lane.concurrency() > 0 ? lane.concurrency() : defaults.concurrency(),
+                lane.queueCapacity() > 0 ? lane.queueCapacity() : defaults.queueCapacity(),
+                lane.timeout() != null ? lane.timeout() : defaults.timeout());
+    }
+
+    /**
+     * 获取任务类型的默认期限
+     *
+     * @return 期限，不限制时为 {@link Duration#ZERO}
+     */
+    public Duration timeout(TaskType type) {
+        return lane(type).timeout();
+    }
+}
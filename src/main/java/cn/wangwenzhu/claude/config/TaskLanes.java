@@ -0,0 +1,31 @@
+package cn.wangwenzhu.claude.config;
+
+import cn.wangwenzhu.claude.monitor.QueueLatencyProbe;
+import cn.wangwenzhu.claude.task.TaskType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+
+/**
+ * 各任务类型的执行通道
+ *
+ * @param executors 任务类型到通道执行器的映射
+ * @param probes    任务类型到通道排队时间采样的映射，供自动伸缩使用
+ */
+public record TaskLanes(Map<TaskType, ThreadPoolTaskExecutor> executors,
+                        Map<TaskType, QueueLatencyProbe> probes) {
+
+    /**
+     * 获取任务类型对应的执行器
+     */
+    public ThreadPoolTaskExecutor executor(TaskType type) {
+        return executors.get(type);
+    }
+
+    /**
+     * 获取任务类型对应通道的排队时间采样
+     */
+    public QueueLatencyProbe probe(TaskType type) {
+        return probes.get(type);
+    }
+}
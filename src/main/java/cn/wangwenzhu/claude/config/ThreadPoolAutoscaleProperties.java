@@ -0,0 +1,71 @@
+package cn.wangwenzhu.claude.config;
+
+import cn.wangwenzhu.claude.task.TaskType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 线程池自动伸缩配置（仅平台线程模式）
+ * commonTaskExecutor和各任务通道分别伸缩，阈值和采样次数共用，线程数范围各自独立；
+ * 核心线程数在 [minPoolSize, maxPoolSize] 范围内调整，最大线程数保持为核心线程数的2倍且不超过 maxPoolSize
+ *
+ * @param enabled              是否启用自动伸缩
+ * @param minPoolSize          commonTaskExecutor核心线程数下限
+ * @param maxPoolSize          commonTaskExecutor线程数上限
+ * @param sampleInterval       采样间隔
+ * @param scaleUpQueueWait     扩容阈值：采样窗口内的平均排队时间
+ * @param scaleUpSamples       连续多少次采样超过阈值才扩容
+ * @param scaleDownUtilization 缩容阈值：活跃线程数 / 核心线程数
+ * @param scaleDownSamples     连续多少次采样低于阈值才缩容
+ * @param lanes                各任务通道的线程数范围，未配置的项取通道并发数，即默认不伸缩；
+ *                             配置的上限大于通道并发数时，通道最多同时执行该数量的任务
+ */
+@ConfigurationProperties(prefix = "task.executor.autoscale")
+public record ThreadPoolAutoscaleProperties(@DefaultValue("true") boolean enabled,
+                                            @DefaultValue("2") int minPoolSize,
+                                            @DefaultValue("32") int maxPoolSize,
+                                            @DefaultValue("1s") Duration sampleInterval,
+                                            @DefaultValue("100ms") Duration scaleUpQueueWait,
+                                            @DefaultValue("2") int scaleUpSamples,
+                                            @DefaultValue("0.3") double scaleDownUtilization,
+                                            @DefaultValue("30") int scaleDownSamples,
+                                            Map<TaskType, Bounds> lanes) {
+
+    public ThreadPoolAutoscaleProperties {
+        if (minPoolSize <= 0 || maxPoolSize < minPoolSize) {
+            throw new IllegalArgumentException("线程数范围无效: " + minPoolSize + " ~ " + maxPoolSize);
+        }
+    }
+
+    /**
+     * 线程数范围
+     *
+     * @param minPoolSize 核心线程数下限
+     * @param maxPoolSize 线程数上限
+     */
+    public record Bounds(int minPoolSize, int maxPoolSize) {
+    }
+
+    /**
+     * commonTaskExecutor的线程数范围
+     */
+    public Bounds commonBounds() {
+        return new Bounds(minPoolSize, maxPoolSize);
+    }
+
+    /**
+     * 任务通道的线程数范围，未配置的项取通道并发数（并发数默认是通道的并发上限，扩容需要显式配置上限）
+     *
+     * @param type        任务类型
+     * @param concurrency 通道配置的并发数
+     */
+    public Bounds laneBounds(TaskType type, int concurrency) {
+        var configured = lanes != null ? lanes.get(type) : null;
+        var min = configured != null && configured.minPoolSize() > 0 ? configured.minPoolSize() : concurrency;
+        var max = configured != null && configured.maxPoolSize() > 0 ? configured.maxPoolSize() : concurrency;
+        return new Bounds(min, Math.max(min, max));
+    }
+}
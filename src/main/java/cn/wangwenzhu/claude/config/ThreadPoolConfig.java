@@ -1,16 +1,76 @@
 package cn.wangwenzhu.claude.config;
 
+import cn.wangwenzhu.claude.monitor.QueueLatencyProbe;
+import cn.wangwenzhu.claude.monitor.TaskMetrics;
+import cn.wangwenzhu.claude.task.QueuedTask;
+import cn.wangwenzhu.claude.task.TaskType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.EnumMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 
+@Slf4j
 @Configuration
+@EnableConfigurationProperties({TaskLaneProperties.class, ThreadPoolAutoscaleProperties.class,
+        TaskAdmissionProperties.class})
 public class ThreadPoolConfig {
 
+    /**
+     * 执行器模式
+     */
+    public enum ExecutorMode {
+        /**
+         * 固定大小的平台线程池
+         */
+        PLATFORM,
+        /**
+         * 虚拟线程 + 信号量并发限制（需要Java 21）
+         */
+        VIRTUAL
+    }
+
+    private final ExecutorMode mode;
+
+    private final int virtualConcurrencyLimit;
+
+    private final TaskMetrics taskMetrics;
+
+    private final TaskLaneProperties laneProperties;
+
+    private final TaskAdmissionProperties.OverflowPolicy overflowPolicy;
+
+    private final EnumMap<TaskType, QueueLatencyProbe> laneProbes = new EnumMap<>(TaskType.class);
+
+    public ThreadPoolConfig(@Value("${task.executor.mode:platform}") ExecutorMode mode,
+                            @Value("${task.executor.virtual.concurrency-limit:1000}") int virtualConcurrencyLimit,
+                            TaskMetrics taskMetrics,
+                            TaskLaneProperties laneProperties,
+                            TaskAdmissionProperties admissionProperties) {
+        this.mode = mode;
+        this.virtualConcurrencyLimit = virtualConcurrencyLimit;
+        this.taskMetrics = taskMetrics;
+        this.laneProperties = laneProperties;
+        this.overflowPolicy = admissionProperties.overflowPolicy();
+        for (var type : TaskType.values()) {
+            laneProbes.put(type, new QueueLatencyProbe());
+        }
+    }
+
     @Bean
+    @Primary
     public ThreadPoolTaskExecutor commonTaskExecutor() {
+        if (mode == ExecutorMode.VIRTUAL) {
+            return virtualTaskExecutor("demo-vtask-", virtualConcurrencyLimit);
+        }
+
         var executor = new ThreadPoolTaskExecutor();
 
         // 核心线程数
@@ -28,15 +88,129 @@ public class ThreadPoolConfig {
         // 线程池前缀名称
         executor.setThreadNamePrefix("demo-task-");
 
-        // 拒绝策略：由调用线程处理该任务
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 拒绝策略：由调用线程处理该任务（同时统计拒绝次数）
+        executor.setRejectedExecutionHandler(
+                taskMetrics.countingRejectionHandler(new ThreadPoolExecutor.CallerRunsPolicy()));
+
+        // 记录任务排队时间（指标统计 + 自动伸缩采样）
+        var metricsDecorator = taskMetrics.queueWaitDecorator();
+        var probeDecorator = commonQueueLatencyProbe().decorator();
+        executor.setTaskDecorator(task -> metricsDecorator.decorate(probeDecorator.decorate(task)));
+
+        // 等待所有任务结束后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+
+        // 初始化线程池（运行期间由 ThreadPoolAutoscaler 调整线程数）
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * commonTaskExecutor的排队时间采样，供自动伸缩使用
+     */
+    @Bean
+    public QueueLatencyProbe commonQueueLatencyProbe() {
+        return new QueueLatencyProbe();
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor quickTaskExecutor() {
+        return laneExecutor(TaskType.QUICK);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor randomTaskExecutor() {
+        return laneExecutor(TaskType.RANDOM);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor longTaskExecutor() {
+        return laneExecutor(TaskType.LONG);
+    }
+
+    @Bean
+    public TaskLanes taskLanes() {
+        var executors = new EnumMap<TaskType, ThreadPoolTaskExecutor>(TaskType.class);
+        executors.put(TaskType.QUICK, quickTaskExecutor());
+        executors.put(TaskType.RANDOM, randomTaskExecutor());
+        executors.put(TaskType.LONG, longTaskExecutor());
+        return new TaskLanes(executors, laneProbes);
+    }
+
+    /**
+     * 创建任务类型专用的执行通道：独立线程池和队列，队列已满时按溢出策略处理
+     */
+    private ThreadPoolTaskExecutor laneExecutor(TaskType type) {
+        var lane = laneProperties.lane(type);
+        var threadNamePrefix = "lane-" + type.name().toLowerCase() + "-";
+        if (mode == ExecutorMode.VIRTUAL) {
+            return virtualTaskExecutor(threadNamePrefix, lane.concurrency());
+        }
+
+        var executor = new ThreadPoolTaskExecutor();
+
+        // 初始并发数取通道配置，超出部分在通道队列中排队（运行期间由 ThreadPoolAutoscaler 调整线程数）
+        executor.setCorePoolSize(lane.concurrency());
+        executor.setMaxPoolSize(lane.concurrency());
+        executor.setQueueCapacity(lane.queueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+
+        executor.setRejectedExecutionHandler(taskMetrics.countingRejectionHandler(overflowHandler()));
+
+        // 队列中保存的是QueuedTask，丢弃最早任务时可以取消其结果；同时记录排队时间（指标统计 + 自动伸缩采样）
+        var metricsDecorator = taskMetrics.queueWaitDecorator();
+        var probeDecorator = laneProbes.get(type).decorator();
+        var queuedDecorator = QueuedTask.decorator(executor);
+        executor.setTaskDecorator(task ->
+                queuedDecorator.decorate(metricsDecorator.decorate(probeDecorator.decorate(task))));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+
+        log.info("{}通道: 并发数 {}, 队列容量 {}, 溢出策略 {}",
+                type.getDisplayName(), lane.concurrency(), lane.queueCapacity(), overflowPolicy);
+        return executor;
+    }
+
+    private RejectedExecutionHandler overflowHandler() {
+        return switch (overflowPolicy) {
+            case REJECT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case SHED_OLDEST -> (task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("通道已关闭");
+                }
+                // 挤出最早的任务并取消其结果；走到这里说明线程数已达上限，新任务直接放入队列
+                if (executor.getQueue().poll() instanceof QueuedTask oldest) {
+                    oldest.shed();
+                }
+                if (!executor.getQueue().offer(task)) {
+                    throw new RejectedExecutionException("通道队列已满");
+                }
+            };
+        };
+    }
+
+    private ThreadPoolTaskExecutor virtualTaskExecutor(String threadNamePrefix, int concurrencyLimit) {
+        var executor = new VirtualThreadTaskExecutor(concurrencyLimit);
+
+        // 记录任务排队时间（包括等待执行许可的时间）；取得许可后再检查任务是否已取消或超时
+        var metricsDecorator = taskMetrics.queueWaitDecorator();
+        var queuedDecorator = QueuedTask.decorator();
+        executor.setTaskDecorator(task -> queuedDecorator.decorate(metricsDecorator.decorate(task)));
+
+        // 虚拟线程工厂，线程名称带递增序号
+        executor.setThreadFactory(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+
+        // 空闲虚拟线程的回收时间（秒）
+        executor.setKeepAliveSeconds(10);
 
         // 等待所有任务结束后再关闭线程池
         executor.setWaitForTasksToCompleteOnShutdown(true);
 
-        // 初始化线程池
         executor.initialize();
 
+        log.info("{}使用虚拟线程模式，最大并发数: {}", threadNamePrefix, concurrencyLimit);
         return executor;
     }
-}
\ No newline at end of file
+}
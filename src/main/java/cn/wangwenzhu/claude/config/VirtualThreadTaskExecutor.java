@@ -0,0 +1,89 @@
+package cn.wangwenzhu.claude.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 基于虚拟线程的任务执行器
+ * 每个任务运行在独立的虚拟线程上，并发执行数由信号量限制；
+ * 底层仍是ThreadPoolExecutor，原有的线程池监控数据（活跃数、任务数、完成数等）保持可用
+ * <p>
+ * 超出并发上限的任务在各自的虚拟线程上等待许可，不占用平台线程，也不会触发拒绝策略
+ */
+@Slf4j
+public class VirtualThreadTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private final int concurrencyLimit;
+
+    private final Semaphore permits;
+
+    /**
+     * @param concurrencyLimit 同时执行的最大任务数
+     */
+    public VirtualThreadTaskExecutor(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.permits = new Semaphore(concurrencyLimit, true);
+
+        // 虚拟线程创建成本很低，每个任务直接创建新线程，空闲线程超时后回收
+        setCorePoolSize(Integer.MAX_VALUE);
+        setMaxPoolSize(Integer.MAX_VALUE);
+        setQueueCapacity(0);
+        setAllowCoreThreadTimeOut(true);
+        super.setTaskDecorator(this::limitConcurrency);
+    }
+
+    /**
+     * 设置额外的任务装饰器，在获取执行许可之后执行
+     */
+    @Override
+    public void setTaskDecorator(TaskDecorator taskDecorator) {
+        super.setTaskDecorator(task -> limitConcurrency(taskDecorator.decorate(task)));
+    }
+
+    private Runnable limitConcurrency(Runnable task) {
+        return () -> {
+            var interrupted = false;
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // 任务不能跳过：submit返回的Future、@Async的CompletableFuture只在任务执行时完成，
+                // 不执行会让等待结果的调用方永远阻塞。仍然遵守并发上限，取得许可后带着中断标志执行，任务据此尽快结束
+                log.debug("等待执行许可时被中断，取得许可后以中断状态执行任务");
+                permits.acquireUninterruptibly();
+                interrupted = true;
+            }
+            try {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                task.run();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * 最大并发执行数
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getRunningCount() {
+        return concurrencyLimit - permits.availablePermits();
+    }
+
+    /**
+     * 等待执行许可的任务数（估计值）
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+}
@@ -0,0 +1,57 @@
+package cn.wangwenzhu.claude.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Spring MVC异步请求配置
+ * StreamingResponseBody 等异步返回值在专用的 mvcAsyncExecutor 中执行，不占用Servlet容器线程，
+ * 也不与批处理、Excel并行读取共用 commonTaskExecutor（其拒绝策略是调用线程执行，占满时会回到容器线程）。
+ * 线程和队列都占满时立即拒绝，由控制器返回503；上传文件的流式提取耗时与文件大小相关，超时时间单独配置
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final Duration asyncTimeout;
+
+    private final int poolSize;
+
+    private final int queueCapacity;
+
+    public WebAsyncConfig(@Value("${web.async.timeout:10m}") Duration asyncTimeout,
+                          @Value("${web.async.pool-size:8}") int poolSize,
+                          @Value("${web.async.queue-capacity:16}") int queueCapacity) {
+        this.asyncTimeout = asyncTimeout;
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 异步请求专用的线程池，固定线程数，有界队列，占满时抛出 TaskRejectedException
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(asyncTimeout.toMillis());
+    }
+}
@@ -0,0 +1,104 @@
+package cn.wangwenzhu.claude.controller;
+
+import cn.wangwenzhu.claude.service.ExcelWatchService;
+import cn.wangwenzhu.claude.service.UploadExtractionService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/excel")
+@RequiredArgsConstructor
+public class ExcelController {
+
+    private final ExcelWatchService excelWatchService;
+
+    private final UploadExtractionService uploadExtractionService;
+
+    /**
+     * 常驻监视模式的指标：累计处理文件数、失败数、导出次数和单个文件的处理耗时分布
+     */
+    @GetMapping("/watch")
+    public ResponseEntity<ExcelWatchService.Snapshot> getWatchMetrics() {
+        return ResponseEntity.ok(excelWatchService.snapshot());
+    }
+
+    /**
+     * 上传文件并流式返回提取到的通讯主机号
+     * 支持multipart/form-data（取第一个文件部分）或直接以请求体上传，xlsx和csv按内容判断。
+     * 请求体边接收边解析，不落盘也不整体缓存；解析在异步请求线程池（mvcAsyncExecutor）中执行，结果逐行写出，
+     * 线程池已满时返回503
+     *
+     * @param format   输出格式：ndjson（默认）或 csv
+     * @param fileName 直接上传时的文件名（multipart上传时使用表单中的文件名）
+     */
+    @PostMapping("/extract")
+    public ResponseEntity<StreamingResponseBody> extract(HttpServletRequest request,
+                                                         @RequestParam(defaultValue = "ndjson") String format,
+                                                         @RequestHeader(value = "X-File-Name", required = false) String fileName) {
+        UploadExtractionService.OutputFormat outputFormat;
+        try {
+            outputFormat = UploadExtractionService.OutputFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String boundary = null;
+        var contentType = request.getContentType();
+        if (contentType != null) {
+            var mediaType = MediaType.parseMediaType(contentType);
+            if (MediaType.MULTIPART_FORM_DATA.includes(mediaType)) {
+                boundary = mediaType.getParameter("boundary");
+                if (boundary == null || boundary.isEmpty()) {
+                    return ResponseEntity.badRequest().build();
+                }
+                boundary = boundary.startsWith("\"") && boundary.endsWith("\"") && boundary.length() > 1
+                        ? boundary.substring(1, boundary.length() - 1)
+                        : boundary;
+            }
+        }
+
+        var multipartBoundary = boundary;
+        StreamingResponseBody body = out -> {
+            var in = request.getInputStream();
+            if (multipartBoundary != null) {
+                var part = MultipartFileStream.firstFile(in, multipartBoundary);
+                uploadExtractionService.extract(part.content(), part.fileName(), outputFormat, out);
+            } else {
+                uploadExtractionService.extract(in, fileName != null ? fileName : "upload", outputFormat, out);
+            }
+        };
+
+        var responseType = outputFormat == UploadExtractionService.OutputFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok().contentType(responseType).body(body);
+    }
+
+    /**
+     * 异步请求线程池已满，不在容器线程中解析上传文件，返回503和Retry-After
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Map<String, String>> asyncExecutorFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("reason", "ASYNC_EXECUTOR_FULL"));
+    }
+}
@@ -0,0 +1,241 @@
+package cn.wangwenzhu.claude.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * multipart/form-data 请求体的流式读取
+ * Servlet容器解析multipart时会把文件部分整体写入临时文件或内存，这里直接在原始请求体上按边界切分，
+ * 返回第一个文件部分的内容流，读取多少就从网络上接收多少
+ * <p>
+ * 非线程安全，一个请求体只能读取一次
+ */
+final class MultipartFileStream {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int MAX_HEADER_LINE = 8 * 1024;
+
+    private final InputStream in;
+
+    // 部分之间的分隔符："\r\n--" + boundary
+    private final byte[] delimiter;
+
+    private final byte[] buffer;
+
+    private int pos;
+
+    private int limit;
+
+    private boolean eof;
+
+    /**
+     * 文件部分
+     *
+     * @param fileName 上传的文件名
+     * @param content  文件内容，读到部分结束时返回-1
+     */
+    record FilePart(String fileName, InputStream content) {
+    }
+
+    private MultipartFileStream(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // 第一个边界前没有换行，补上换行后所有边界的格式一致
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * 找到请求体中的第一个文件部分（带filename的部分），跳过之前的普通字段
+     *
+     * @param body     原始请求体
+     * @param boundary Content-Type中的boundary参数
+     * @return 第一个文件部分
+     * @throws IOException 请求体格式错误或没有文件部分
+     */
+    static FilePart firstFile(InputStream body, String boundary) throws IOException {
+        var reader = new MultipartFileStream(body, boundary);
+
+        // 跳过第一个边界之前的前导内容
+        reader.partContent().transferTo(OutputStream.nullOutputStream());
+        while (reader.nextPart()) {
+            var headers = reader.readHeaders();
+            var fileName = fileNameOf(headers.get("content-disposition"));
+            if (fileName != null) {
+                return new FilePart(fileName, reader.partContent());
+            }
+            reader.partContent().transferTo(OutputStream.nullOutputStream());
+        }
+        throw new IOException("请求中没有文件部分");
+    }
+
+    /**
+     * 分隔符之后：结束标记"--"表示没有更多部分，否则跳过该行的剩余内容
+     */
+    private boolean nextPart() throws IOException {
+        if (fill(2) && buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            return false;
+        }
+        readLine();
+        return true;
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        var headers = new HashMap<String, String>();
+        for (var line = readLine(); !line.isEmpty(); line = readLine()) {
+            var colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * 从 Content-Disposition 中取文件名，优先使用RFC 5987编码的 filename*
+     */
+    static String fileNameOf(String disposition) {
+        if (disposition == null) {
+            return null;
+        }
+        String fileName = null;
+        for (var parameter : disposition.split(";")) {
+            var eq = parameter.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            var key = parameter.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+            var value = parameter.substring(eq + 1).trim();
+            if (key.equals("filename*")) {
+                var quote = value.indexOf("''");
+                return URLDecoder.decode(quote >= 0 ? value.substring(quote + 2) : value, StandardCharsets.UTF_8);
+            }
+            if (key.equals("filename")) {
+                fileName = value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                        ? value.substring(1, value.length() - 1)
+                        : value;
+            }
+        }
+        return fileName;
+    }
+
+    private String readLine() throws IOException {
+        while (true) {
+            for (var i = pos; i + 1 < limit; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    // 浏览器以UTF-8发送文件名
+                    var line = new String(buffer, pos, i - pos, StandardCharsets.UTF_8);
+                    pos = i + 2;
+                    return line;
+                }
+            }
+            if (limit - pos >= MAX_HEADER_LINE) {
+                throw new IOException("multipart头部过长");
+            }
+            if (!fill(limit - pos + 1)) {
+                throw new IOException("multipart请求体不完整");
+            }
+        }
+    }
+
+    /**
+     * 确保缓冲区中至少有 {@code required} 个未读字节
+     *
+     * @return 是否满足（流结束时可能不足）
+     */
+    private boolean fill(int required) throws IOException {
+        if (limit - pos >= required) {
+            return true;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (limit < required && !eof) {
+            var read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+        return limit - pos >= required;
+    }
+
+    /**
+     * 查找分隔符，只检查起始位置在 {@code end} 之前的位置
+     */
+    private int indexOfDelimiter(int end) {
+        outer:
+        for (var i = pos; i < end && i + delimiter.length <= limit; i++) {
+            for (var j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 当前部分的内容流，读到分隔符时结束并消费分隔符
+     */
+    private InputStream partContent() {
+        return new InputStream() {
+
+            private boolean done;
+
+            @Override
+            public int read() throws IOException {
+                var single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (done) {
+                    return -1;
+                }
+                if (len == 0) {
+                    return 0;
+                }
+                fill(delimiter.length);
+
+                int available;
+                // 只需要确认前len个字节中是否有分隔符，不必每次扫描整个缓冲区
+                var index = indexOfDelimiter(pos + len);
+                if (index == pos) {
+                    pos += delimiter.length;
+                    done = true;
+                    return -1;
+                } else if (index > pos) {
+                    available = index - pos;
+                } else if (eof) {
+                    if (limit == pos) {
+                        throw new IOException("multipart请求体不完整");
+                    }
+                    available = limit - pos;
+                } else {
+                    // 末尾可能是分隔符的前半部分，保留到下次读取
+                    available = limit - pos - (delimiter.length - 1);
+                }
+
+                var count = Math.min(len, available);
+                System.arraycopy(buffer, pos, b, off, count);
+                pos += count;
+                return count;
+            }
+        };
+    }
+}
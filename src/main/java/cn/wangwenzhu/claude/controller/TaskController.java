@@ -1,14 +1,31 @@
 package cn.wangwenzhu.claude.controller;
 
-import cn.wangwenzhu.claude.task.DemoTask;
+import cn.wangwenzhu.claude.monitor.TaskMetrics;
+import cn.wangwenzhu.claude.monitor.ThreadPoolStatus;
+import cn.wangwenzhu.claude.monitor.ThreadPoolStatusSampler;
+import cn.wangwenzhu.claude.service.TaskAdmissionService;
+import cn.wangwenzhu.claude.service.TaskSubmissionService;
+import cn.wangwenzhu.claude.task.TaskHandle;
+import cn.wangwenzhu.claude.task.TaskResult;
+import cn.wangwenzhu.claude.task.TaskSpec;
+import cn.wangwenzhu.claude.task.TaskType;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/tasks")
@@ -16,55 +33,207 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class TaskController {
 
-    private final DemoTask demoTask;
+    private static final int MAX_BATCH_SIZE = 10_000;
 
-    private final ThreadPoolTaskExecutor taskExecutor;
+    // 客户端标识请求头，未提供时按来源地址限流
+    private static final String CLIENT_ID_HEADER = "X-Client-Id";
 
+    private final TaskSubmissionService taskSubmissionService;
+
+    private final TaskAdmissionService admissionService;
+
+    private final TaskMetrics taskMetrics;
+
+    private final ThreadPoolStatusSampler statusSampler;
+
+    /**
+     * 任务状态视图，未结束的任务 result 为 null
+     */
+    public record TaskView(long taskId, TaskType type, String taskName, boolean done, TaskResult result) {
+
+        static TaskView of(TaskHandle handle) {
+            var future = handle.result();
+            var result = future.isDone() && !future.isCompletedExceptionally() ? future.getNow(null) : null;
+            return new TaskView(handle.taskId(), handle.spec().type(), handle.spec().taskName(), handle.isDone(), result);
+        }
+    }
+
+    /**
+     * 提交单个任务，timeoutMs 为任务期限（毫秒），0表示使用任务类型的默认期限
+     */
     @PostMapping("/quick")
-    public ResponseEntity<Map<String, String>> submitQuickTask(@RequestParam String taskName) {
-        demoTask.executeQuickTask(taskName);
-        var response = new HashMap<String, String>();
-        response.put("message", "快速任务已提交: " + taskName);
-        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, String>> submitQuickTask(@RequestParam String taskName,
+                                                               @RequestParam(defaultValue = "0") long timeoutMs,
+                                                               HttpServletRequest request) {
+        return submitSingle(new TaskSpec(TaskType.QUICK, taskName, timeoutMs), request);
     }
 
     @PostMapping("/random")
-    public ResponseEntity<Map<String, String>> submitRandomTask(@RequestParam String taskName) {
-        demoTask.executeRandomTask(taskName);
-        var response = new HashMap<String, String>();
-        response.put("message", "随机任务已提交: " + taskName);
-        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, String>> submitRandomTask(@RequestParam String taskName,
+                                                                @RequestParam(defaultValue = "0") long timeoutMs,
+                                                                HttpServletRequest request) {
+        return submitSingle(new TaskSpec(TaskType.RANDOM, taskName, timeoutMs), request);
     }
 
     @PostMapping("/long")
-    public ResponseEntity<Map<String, String>> submitLongTask(@RequestParam String taskName) {
-        demoTask.executeLongRunningTask(taskName);
+    public ResponseEntity<Map<String, String>> submitLongTask(@RequestParam String taskName,
+                                                              @RequestParam(defaultValue = "0") long timeoutMs,
+                                                              HttpServletRequest request) {
+        return submitSingle(new TaskSpec(TaskType.LONG, taskName, timeoutMs), request);
+    }
+
+    private ResponseEntity<Map<String, String>> submitSingle(TaskSpec spec, HttpServletRequest request) {
+        var type = spec.type();
+        var taskName = spec.taskName();
+        if (spec.timeoutMs() < 0) {
+            return ResponseEntity.badRequest().body(Map.of("message", "任务期限不能为负数"));
+        }
+
+        var decision = admissionService.admit(Map.of(type, 1), clientId(request));
+        if (!decision.admitted()) {
+            return tooManyRequests(decision.reason().name(), decision.retryAfterSeconds());
+        }
+
+        var handle = taskSubmissionService.submit(spec);
+        // 准入检查之后队列仍可能被其他请求占满
+        if (handle.result().isCompletedExceptionally()) {
+            return tooManyRequests(TaskAdmissionService.Reason.QUEUE_FULL.name(), 1);
+        }
+
         var response = new HashMap<String, String>();
-        response.put("message", "长任务已提交: " + taskName);
+        response.put("message", type.getDisplayName() + "已提交: " + taskName);
+        response.put("taskId", String.valueOf(handle.taskId()));
         response.put("timestamp", String.valueOf(System.currentTimeMillis()));
         return ResponseEntity.ok(response);
     }
 
+    private static <T> ResponseEntity<Map<String, T>> tooManyRequests(T reason, long retryAfterSeconds) {
+        var response = new HashMap<String, T>();
+        response.put("reason", reason);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        var clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId == null || clientId.isBlank() ? request.getRemoteAddr() : clientId;
+    }
+
+    /**
+     * 批量提交任务，请求体为任务参数数组，返回与请求顺序一致的任务ID
+     * 整批按任务数量做准入检查，不通过时整批拒绝；准入后仍被通道拒绝的任务计入 rejected
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> submitBatch(@RequestBody List<TaskSpec> specs,
+                                                           HttpServletRequest request) {
+        if (specs.isEmpty() || specs.size() > MAX_BATCH_SIZE
+                || specs.stream().anyMatch(spec -> spec == null || spec.type() == null || spec.timeoutMs() < 0)) {
+            var error = new HashMap<String, Object>();
+            error.put("message", "任务数量须在1到" + MAX_BATCH_SIZE + "之间，每个任务必须指定类型，且期限不能为负数");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        var counts = new EnumMap<TaskType, Integer>(TaskType.class);
+        specs.forEach(spec -> counts.merge(spec.type(), 1, Integer::sum));
+        var decision = admissionService.admit(counts, clientId(request));
+        if (!decision.admitted()) {
+            return tooManyRequests(decision.reason().name(), decision.retryAfterSeconds());
+        }
+
+        var handles = taskSubmissionService.submitBatch(specs);
+        var rejected = handles.stream().filter(handle -> handle.result().isCompletedExceptionally()).count();
+        var response = new HashMap<String, Object>();
+        response.put("submitted", handles.size() - rejected);
+        response.put("rejected", rejected);
+        response.put("taskIds", handles.stream().map(TaskHandle::taskId).toList());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{taskId:\\d+}")
+    public ResponseEntity<TaskView> getTask(@PathVariable long taskId) {
+        return taskSubmissionService.find(taskId)
+                .map(handle -> ResponseEntity.ok(TaskView.of(handle)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 取消任务：排队中的任务立即以 CANCELLED 结束且不再执行，执行中的任务被中断，结束后状态为 CANCELLED
+     * 返回 202 和当前状态；任务已结束时返回 409
+     */
+    @PostMapping("/{taskId:\\d+}/cancel")
+    public ResponseEntity<TaskView> cancelTask(@PathVariable long taskId) {
+        var handle = taskSubmissionService.find(taskId).orElse(null);
+        if (handle == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!handle.cancel()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(TaskView.of(handle));
+        }
+        log.info("已取消任务: {} ({})", taskId, handle.spec().taskName());
+        return ResponseEntity.accepted().body(TaskView.of(handle));
+    }
+
+    /**
+     * 等待单个任务结束，超时后返回 202 和当前状态；等待期间不占用请求线程
+     */
+    @GetMapping("/{taskId:\\d+}/result")
+    public CompletableFuture<ResponseEntity<TaskView>> awaitTask(@PathVariable long taskId,
+                                                                 @RequestParam(defaultValue = "30000") long timeoutMs) {
+        var handle = taskSubmissionService.find(taskId).orElse(null);
+        if (handle == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        // 超时时的状态在超时那一刻读取，而不是收到请求时
+        return handle.result()
+                .handle((result, e) -> true)
+                .completeOnTimeout(false, timeoutMs, TimeUnit.MILLISECONDS)
+                .thenApply(done -> ResponseEntity.status(done ? HttpStatus.OK : HttpStatus.ACCEPTED)
+                        .body(TaskView.of(handle)));
+    }
+
+    /**
+     * 等待一批任务结束，超时后返回各任务的当前状态；未知的任务ID忽略
+     */
+    @GetMapping("/results")
+    public CompletableFuture<List<TaskView>> awaitTasks(@RequestParam List<Long> ids,
+                                                        @RequestParam(defaultValue = "30000") long timeoutMs) {
+        var handles = ids.stream()
+                .map(taskSubmissionService::find)
+                .flatMap(Optional::stream)
+                .toList();
+        var all = CompletableFuture.allOf(handles.stream()
+                .map(TaskHandle::result)
+                .toArray(CompletableFuture[]::new));
+        return all.handle((ignored, e) -> (Void) null)
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> handles.stream().map(TaskView::of).toList());
+    }
+
+    /**
+     * 线程池状态，读取后台采样发布的快照，不访问线程池；支持 If-None-Match 条件请求
+     */
     @GetMapping("/status")
-    public ResponseEntity<Map<String, Object>> getThreadPoolStatus() {
-        var executor = taskExecutor.getThreadPoolExecutor();
-
-        var status = new HashMap<String, Object>();
-        status.put("corePoolSize", executor.getCorePoolSize());
-        status.put("maximumPoolSize", executor.getMaximumPoolSize());
-        status.put("poolSize", executor.getPoolSize());
-        status.put("activeCount", executor.getActiveCount());
-        status.put("taskCount", executor.getTaskCount());
-        status.put("completedTaskCount", executor.getCompletedTaskCount());
-        status.put("queueSize", executor.getQueue().size());
-        status.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
-        status.put("taskCompletionRate",
-                executor.getTaskCount() > 0 ?
-                        String.format("%.2f%%", (executor.getCompletedTaskCount() * 100.0 / executor.getTaskCount())) :
-                        "0.00%");
-
-        return ResponseEntity.ok(status);
+    public ResponseEntity<ThreadPoolStatus> getThreadPoolStatus(WebRequest request) {
+        var snapshot = statusSampler.current();
+        if (request.checkNotModified(snapshot.eTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.eTag())
+                .lastModified(snapshot.changedAt())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.status());
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<TaskMetrics.Snapshot> getTaskMetrics() {
+        return ResponseEntity.ok(taskMetrics.snapshot());
+    }
+
+    @GetMapping("/admission")
+    public ResponseEntity<TaskAdmissionService.Snapshot> getAdmission() {
+        return ResponseEntity.ok(admissionService.snapshot());
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package cn.wangwenzhu.claude.monitor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图
+ * 参照HdrHistogram的对数-线性分桶：每个2的幂区间再均分为 {@value #SUB_BUCKET_COUNT} 个子桶，
+ * 相对误差约3%。记录只做原子自增，不加锁，可在任意线程并发调用
+ * <p>
+ * 以微秒为单位记录，上限约25天，超出部分计入最后一个桶
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 35;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder totalCount = new LongAdder();
+
+    private final LongAdder totalMicros = new LongAdder();
+
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 直方图快照（单位：毫秒）
+     */
+    public record Snapshot(long count, double mean, double p50, double p99, double p999, double max) {
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒），负值按0处理
+     */
+    public void recordNanos(long nanos) {
+        var micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(bucketIndex(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    /**
+     * 生成快照
+     * 各计数器分别读取，并发记录时快照只是近似一致
+     */
+    public Snapshot snapshot() {
+        var buckets = new long[BUCKET_COUNT];
+        var count = 0L;
+        for (var i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = counts.get(i);
+            count += buckets[i];
+        }
+        if (count == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0);
+        }
+
+        var mean = totalMicros.sum() / (double) Math.max(1, totalCount.sum());
+        var max = maxMicros.get();
+        return new Snapshot(count,
+                toMillis(mean),
+                toMillis(Math.min(max, percentile(buckets, count, 0.50))),
+                toMillis(Math.min(max, percentile(buckets, count, 0.99))),
+                toMillis(Math.min(max, percentile(buckets, count, 0.999))),
+                toMillis(max));
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT * 2) {
+            return (int) micros;
+        }
+        var exponent = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        // micros >>> exponent 落在 [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT) 区间
+        return exponent * SUB_BUCKET_COUNT + (int) (micros >>> exponent);
+    }
+
+    /**
+     * 桶对应取值区间的上界（微秒）
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT * 2) {
+            return index;
+        }
+        var exponent = index / SUB_BUCKET_COUNT - 1;
+        var subBucket = index - exponent * SUB_BUCKET_COUNT;
+        return ((subBucket + 1L) << exponent) - 1;
+    }
+
+    private static long percentile(long[] buckets, long count, double quantile) {
+        var rank = Math.max(1, (long) Math.ceil(quantile * count));
+        var cumulative = 0L;
+        for (var i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i];
+            if (cumulative >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(buckets.length - 1);
+    }
+
+    private static double toMillis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+}
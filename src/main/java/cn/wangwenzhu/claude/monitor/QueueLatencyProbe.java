@@ -0,0 +1,60 @@
+package cn.wangwenzhu.claude.monitor;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 排队时间采样窗口
+ * 通过任务装饰器记录任务从提交到开始执行的时间，{@link #drain()} 取出上次取出以来的平均值和最大值并清零，
+ * 供自动伸缩按采样间隔判断线程池是否过载
+ */
+public class QueueLatencyProbe {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 采样窗口内的排队时间（毫秒）
+     *
+     * @param count      窗口内开始执行的任务数
+     * @param meanMillis 平均排队时间
+     * @param maxMillis  最大排队时间
+     */
+    public record Window(long count, double meanMillis, double maxMillis) {
+    }
+
+    /**
+     * 记录排队时间的任务装饰器
+     */
+    public TaskDecorator decorator() {
+        return task -> {
+            var submittedAt = System.nanoTime();
+            return () -> {
+                var waited = System.nanoTime() - submittedAt;
+                count.increment();
+                totalNanos.add(waited);
+                maxNanos.accumulate(waited);
+                task.run();
+            };
+        };
+    }
+
+    /**
+     * 取出当前窗口并开始新窗口
+     * 各计数器分别清零，与并发记录交错时窗口边界只是近似的
+     */
+    public Window drain() {
+        var tasks = count.sumThenReset();
+        var total = totalNanos.sumThenReset();
+        var max = maxNanos.getThenReset();
+        if (tasks == 0) {
+            return new Window(0, 0, 0);
+        }
+        return new Window(tasks, total / (double) tasks / 1_000_000, max / 1_000_000.0);
+    }
+}
@@ -0,0 +1,68 @@
+package cn.wangwenzhu.claude.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动窗口计数器
+ * 按秒分槽的环形数组，每个槽记录所属的秒数，过期槽在下次写入时重置；
+ * 计数和读取都不加锁，槽切换瞬间的少量计数误差可以接受
+ */
+public class SlidingWindowCounter {
+
+    private final int windowSeconds;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLongArray slotSeconds;
+
+    /**
+     * @param windowSeconds 窗口长度（秒）
+     */
+    public SlidingWindowCounter(int windowSeconds) {
+        this.windowSeconds = windowSeconds;
+        this.counts = new AtomicLongArray(windowSeconds);
+        this.slotSeconds = new AtomicLongArray(windowSeconds);
+    }
+
+    /**
+     * 计数加一
+     */
+    public void increment() {
+        var second = System.currentTimeMillis() / 1000;
+        var slot = (int) (second % windowSeconds);
+        var slotSecond = slotSeconds.get(slot);
+        if (slotSecond != second && slotSeconds.compareAndSet(slot, slotSecond, second)) {
+            // 抢到槽切换的线程负责清零
+            counts.set(slot, 0);
+        }
+        counts.incrementAndGet(slot);
+    }
+
+    /**
+     * 窗口内的总计数
+     */
+    public long sum() {
+        var now = System.currentTimeMillis() / 1000;
+        var total = 0L;
+        for (var slot = 0; slot < windowSeconds; slot++) {
+            if (now - slotSeconds.get(slot) < windowSeconds) {
+                total += counts.get(slot);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 窗口内的平均速率（次/秒）
+     */
+    public double ratePerSecond() {
+        return sum() / (double) windowSeconds;
+    }
+
+    /**
+     * 窗口长度（秒）
+     */
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+}
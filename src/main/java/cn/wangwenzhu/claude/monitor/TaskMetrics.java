@@ -0,0 +1,170 @@
+package cn.wangwenzhu.claude.monitor;
+
+import cn.wangwenzhu.claude.task.TaskResult;
+import cn.wangwenzhu.claude.task.TaskType;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步任务指标
+ * 按任务类型记录排队等待时间和执行时间直方图、真实的拒绝次数和调用者执行次数、取消和超时次数，以及滑动窗口吞吐量
+ * <p>
+ * 排队时间由 {@link #queueWaitDecorator()} 在提交时打点，任务开始执行时写入线程本地变量，
+ * 任务结束时通过 {@link #recordExecution(TaskType, long)} 连同执行时间一起记录
+ */
+@Component
+public class TaskMetrics {
+
+    private static final int THROUGHPUT_WINDOW_SECONDS = 60;
+
+    private static final ThreadLocal<Long> QUEUE_WAIT_NANOS = new ThreadLocal<>();
+
+    private final Map<TaskType, TypeMetrics> typeMetrics = new EnumMap<>(TaskType.class);
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder callerRunsCount = new LongAdder();
+
+    private final LongAdder cancelledCount = new LongAdder();
+
+    private final LongAdder timedOutCount = new LongAdder();
+
+    private final LongAdder droppedBeforeStartCount = new LongAdder();
+
+    private final SlidingWindowCounter throughput = new SlidingWindowCounter(THROUGHPUT_WINDOW_SECONDS);
+
+    public TaskMetrics() {
+        for (var type : TaskType.values()) {
+            typeMetrics.put(type, new TypeMetrics());
+        }
+    }
+
+    private static final class TypeMetrics {
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram execution = new LatencyHistogram();
+        private final SlidingWindowCounter throughput = new SlidingWindowCounter(THROUGHPUT_WINDOW_SECONDS);
+    }
+
+    /**
+     * 单个任务类型的指标快照
+     *
+     * @param throughputPerSecond 滑动窗口内的完成速率（任务/秒）
+     * @param queueWait           排队等待时间分布（毫秒）
+     * @param execution           执行时间分布（毫秒）
+     */
+    public record TypeSnapshot(double throughputPerSecond,
+                               LatencyHistogram.Snapshot queueWait,
+                               LatencyHistogram.Snapshot execution) {
+    }
+
+    /**
+     * 全部任务指标快照
+     *
+     * @param types                   各任务类型的指标
+     * @param rejectedCount           被拒绝且未执行的任务数
+     * @param callerRunsCount         因队列已满由提交线程执行的任务数
+     * @param cancelledCount          被取消的任务数
+     * @param timedOutCount           超过期限的任务数
+     * @param droppedBeforeStartCount 取消或超时时仍在排队、未执行即丢弃的任务数
+     * @param throughputPerSecond     滑动窗口内的总完成速率（任务/秒）
+     * @param windowSeconds           吞吐量窗口长度（秒）
+     */
+    public record Snapshot(Map<TaskType, TypeSnapshot> types,
+                           long rejectedCount,
+                           long callerRunsCount,
+                           long cancelledCount,
+                           long timedOutCount,
+                           long droppedBeforeStartCount,
+                           double throughputPerSecond,
+                           int windowSeconds) {
+    }
+
+    /**
+     * 记录提交时间的任务装饰器，任务开始执行时计算排队时间
+     */
+    public TaskDecorator queueWaitDecorator() {
+        return task -> {
+            var submittedAt = System.nanoTime();
+            return () -> {
+                QUEUE_WAIT_NANOS.set(System.nanoTime() - submittedAt);
+                try {
+                    task.run();
+                } finally {
+                    QUEUE_WAIT_NANOS.remove();
+                }
+            };
+        };
+    }
+
+    /**
+     * 包装拒绝策略，统计真实的拒绝次数和调用者执行次数
+     *
+     * @param delegate 实际的拒绝策略
+     */
+    public RejectedExecutionHandler countingRejectionHandler(RejectedExecutionHandler delegate) {
+        return (task, executor) -> {
+            if (delegate instanceof ThreadPoolExecutor.CallerRunsPolicy && !executor.isShutdown()) {
+                callerRunsCount.increment();
+            } else {
+                rejectedCount.increment();
+            }
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
+    /**
+     * 记录一次任务执行，在任务结束时调用
+     *
+     * @param type       任务类型
+     * @param startNanos 任务开始执行时的 System.nanoTime()
+     */
+    public void recordExecution(TaskType type, long startNanos) {
+        var metrics = typeMetrics.get(type);
+        var queueWait = QUEUE_WAIT_NANOS.get();
+        if (queueWait != null) {
+            metrics.queueWait.recordNanos(queueWait);
+        }
+        metrics.execution.recordNanos(System.nanoTime() - startNanos);
+        metrics.throughput.increment();
+        throughput.increment();
+    }
+
+    /**
+     * 记录一次取消或超时，在任务结果完成时调用
+     *
+     * @param status  结束状态，{@link TaskResult.Status#CANCELLED} 或 {@link TaskResult.Status#TIMED_OUT}
+     * @param started 任务是否已开始执行
+     */
+    public void recordStopped(TaskResult.Status status, boolean started) {
+        if (status == TaskResult.Status.CANCELLED) {
+            cancelledCount.increment();
+        } else if (status == TaskResult.Status.TIMED_OUT) {
+            timedOutCount.increment();
+        } else {
+            return;
+        }
+        if (!started) {
+            droppedBeforeStartCount.increment();
+        }
+    }
+
+    /**
+     * 生成指标快照
+     */
+    public Snapshot snapshot() {
+        var types = new EnumMap<TaskType, TypeSnapshot>(TaskType.class);
+        typeMetrics.forEach((type, metrics) -> types.put(type, new TypeSnapshot(
+                metrics.throughput.ratePerSecond(),
+                metrics.queueWait.snapshot(),
+                metrics.execution.snapshot())));
+        return new Snapshot(types, rejectedCount.sum(), callerRunsCount.sum(),
+                cancelledCount.sum(), timedOutCount.sum(), droppedBeforeStartCount.sum(),
+                throughput.ratePerSecond(), THROUGHPUT_WINDOW_SECONDS);
+    }
+}
@@ -0,0 +1,250 @@
+package cn.wangwenzhu.claude.monitor;
+
+import cn.wangwenzhu.claude.config.TaskLaneProperties;
+import cn.wangwenzhu.claude.config.TaskLanes;
+import cn.wangwenzhu.claude.config.ThreadPoolAutoscaleProperties;
+import cn.wangwenzhu.claude.config.VirtualThreadTaskExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池自动伸缩
+ * commonTaskExecutor和各任务通道各有一个控制器，按固定间隔采样排队时间、队列占用和线程利用率，
+ * 在各自的线程数范围内调整核心/最大线程数：
+ * 连续多次排队时间超过阈值或队列过半时扩容，连续多次空闲时逐个缩容。
+ * 扩容和缩容的判定条件与所需采样次数不同，避免在阈值附近来回调整
+ * <p>
+ * 使用独立的采样线程，不依赖 @EnableScheduling；虚拟线程模式下不需要伸缩，不启动
+ */
+@Component
+@Slf4j
+public class ThreadPoolAutoscaler {
+
+    private final ThreadPoolAutoscaleProperties properties;
+
+    private final List<Controller> controllers = new ArrayList<>();
+
+    private ScheduledExecutorService sampler;
+
+    /**
+     * 一次采样
+     *
+     * @param corePoolSize    当前核心线程数
+     * @param maximumPoolSize 当前最大线程数
+     * @param activeCount     活跃线程数
+     * @param queueSize       队列中任务数
+     * @param queueCapacity   队列总容量
+     * @param queueWait       采样窗口内的排队时间
+     */
+    record Sample(int corePoolSize, int maximumPoolSize, int activeCount,
+                  int queueSize, int queueCapacity, QueueLatencyProbe.Window queueWait) {
+    }
+
+    /**
+     * 伸缩决定
+     *
+     * @param corePoolSize    新的核心线程数
+     * @param maximumPoolSize 新的最大线程数
+     */
+    record Decision(int corePoolSize, int maximumPoolSize) {
+    }
+
+    public ThreadPoolAutoscaler(ThreadPoolTaskExecutor taskExecutor,
+                                QueueLatencyProbe commonQueueLatencyProbe,
+                                TaskLanes taskLanes,
+                                TaskLaneProperties laneProperties,
+                                ThreadPoolAutoscaleProperties properties) {
+        this.properties = properties;
+
+        if (!(taskExecutor instanceof VirtualThreadTaskExecutor)) {
+            controllers.add(new Controller("commonTaskExecutor", taskExecutor, commonQueueLatencyProbe,
+                    properties.commonBounds()));
+        }
+        taskLanes.executors().forEach((type, executor) -> {
+            if (!(executor instanceof VirtualThreadTaskExecutor)) {
+                var bounds = properties.laneBounds(type, laneProperties.lane(type).concurrency());
+                controllers.add(new Controller(type.getDisplayName() + "通道", executor,
+                        taskLanes.probe(type), bounds));
+            }
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.enabled() || controllers.isEmpty()) {
+            log.info("线程池自动伸缩未启用");
+            return;
+        }
+
+        var intervalMillis = properties.sampleInterval().toMillis();
+        sampler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("pool-autoscaler").daemon().factory());
+        sampler.scheduleAtFixedRate(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        for (var controller : controllers) {
+            log.info("线程池自动伸缩已启用: {} 线程数范围 {} ~ {}", controller.name,
+                    controller.bounds.minPoolSize(), controller.bounds.maxPoolSize());
+        }
+        log.info("线程池自动伸缩采样间隔 {} ms, 扩容阈值 平均排队 {} ms",
+                intervalMillis, properties.scaleUpQueueWait().toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * 各线程池的控制器，commonTaskExecutor在前
+     */
+    List<Controller> controllers() {
+        return controllers;
+    }
+
+    private void sample() {
+        for (var controller : controllers) {
+            try {
+                controller.sample();
+            } catch (Exception e) {
+                // 采样异常不能让定时任务终止，也不影响其他线程池
+                log.warn("线程池自动伸缩采样失败: {} {}", controller.name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单个线程池的伸缩控制器，持有各自的线程数范围、排队时间采样和判定计数
+     */
+    final class Controller {
+
+        private final String name;
+
+        private final ThreadPoolTaskExecutor taskExecutor;
+
+        private final QueueLatencyProbe queueLatencyProbe;
+
+        private final ThreadPoolAutoscaleProperties.Bounds bounds;
+
+        // 仅在采样线程中访问
+        private int overloadedSamples;
+
+        private int idleSamples;
+
+        Controller(String name, ThreadPoolTaskExecutor taskExecutor, QueueLatencyProbe queueLatencyProbe,
+                   ThreadPoolAutoscaleProperties.Bounds bounds) {
+            this.name = name;
+            this.taskExecutor = taskExecutor;
+            this.queueLatencyProbe = queueLatencyProbe;
+            this.bounds = bounds;
+        }
+
+        ThreadPoolTaskExecutor executor() {
+            return taskExecutor;
+        }
+
+        ThreadPoolAutoscaleProperties.Bounds bounds() {
+            return bounds;
+        }
+
+        /**
+         * 采样一次，需要时调整线程数
+         */
+        void sample() {
+            var executor = taskExecutor.getThreadPoolExecutor();
+            if (executor.isShutdown()) {
+                return;
+            }
+
+            var queue = executor.getQueue();
+            var queueSize = queue.size();
+            var sample = new Sample(executor.getCorePoolSize(), executor.getMaximumPoolSize(),
+                    executor.getActiveCount(), queueSize, queueSize + queue.remainingCapacity(),
+                    queueLatencyProbe.drain());
+
+            var decision = decide(sample);
+            if (decision != null) {
+                apply(sample, decision);
+            }
+        }
+
+        /**
+         * 根据采样结果决定是否调整线程数
+         *
+         * @return 新的线程数，不需要调整时返回 null
+         */
+        Decision decide(Sample sample) {
+            var minPoolSize = bounds.minPoolSize();
+            var maxPoolSize = bounds.maxPoolSize();
+            var scaleUpMillis = (double) properties.scaleUpQueueWait().toMillis();
+            var overloaded = sample.queueWait().meanMillis() >= scaleUpMillis
+                    || (sample.queueCapacity() > 0 && sample.queueSize() * 2 >= sample.queueCapacity());
+            var idle = sample.queueSize() == 0
+                    && sample.queueWait().maxMillis() < scaleUpMillis / 2
+                    && sample.activeCount() < sample.corePoolSize() * properties.scaleDownUtilization();
+
+            if (overloaded) {
+                overloadedSamples++;
+                idleSamples = 0;
+            } else if (idle) {
+                idleSamples++;
+                overloadedSamples = 0;
+            } else {
+                overloadedSamples = 0;
+                idleSamples = 0;
+            }
+
+            var core = sample.corePoolSize();
+            int newCore;
+            if (overloadedSamples >= properties.scaleUpSamples() && core < maxPoolSize) {
+                // 扩容按当前核心线程数的一半递增，突发时能较快跟上
+                newCore = Math.min(maxPoolSize, core + Math.max(1, core / 2));
+                overloadedSamples = 0;
+            } else if (idleSamples >= properties.scaleDownSamples() && core > minPoolSize) {
+                // 缩容每次只减一个线程
+                newCore = core - 1;
+                idleSamples = 0;
+            } else {
+                return null;
+            }
+
+            newCore = Math.max(minPoolSize, Math.min(maxPoolSize, newCore));
+            var newMax = Math.max(newCore, Math.min(maxPoolSize, newCore * 2));
+            if (newCore == core && newMax == sample.maximumPoolSize()) {
+                return null;
+            }
+            return new Decision(newCore, newMax);
+        }
+
+        private void apply(Sample sample, Decision decision) {
+            var growing = decision.corePoolSize() > sample.corePoolSize();
+
+            // 核心线程数不能大于最大线程数：扩容先调最大值，缩容先调核心值
+            if (growing) {
+                taskExecutor.setMaxPoolSize(decision.maximumPoolSize());
+                taskExecutor.setCorePoolSize(decision.corePoolSize());
+            } else {
+                taskExecutor.setCorePoolSize(decision.corePoolSize());
+                taskExecutor.setMaxPoolSize(decision.maximumPoolSize());
+            }
+
+            log.info("{}{}: 核心线程数 {} -> {}, 最大线程数 {} -> {} (平均排队 {} ms, 最大排队 {} ms, 活跃 {}/{}, 队列 {}/{})",
+                    name, growing ? "扩容" : "缩容",
+                    sample.corePoolSize(), decision.corePoolSize(),
+                    sample.maximumPoolSize(), decision.maximumPoolSize(),
+                    String.format("%.1f", sample.queueWait().meanMillis()),
+                    String.format("%.1f", sample.queueWait().maxMillis()),
+                    sample.activeCount(), sample.corePoolSize(),
+                    sample.queueSize(), sample.queueCapacity());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package cn.wangwenzhu.claude.monitor;
 
+import cn.wangwenzhu.claude.config.TaskLanes;
+import cn.wangwenzhu.claude.config.VirtualThreadTaskExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -13,6 +15,10 @@ public class ThreadPoolMonitor {
 
     private final ThreadPoolTaskExecutor taskExecutor;
 
+    private final TaskMetrics taskMetrics;
+
+    private final TaskLanes taskLanes;
+
     @Scheduled(fixedRate = 5000) // 每5秒输出一次线程池状态
     public void monitorThreadPool() {
         var executor = taskExecutor.getThreadPoolExecutor();
@@ -36,6 +42,8 @@ public class ThreadPoolMonitor {
                 "\n队列中任务数: " + queueSize +
                 "\n队列剩余容量: " + queueRemainingCapacity +
                 "\n任务完成率: " + (taskCount > 0 ? String.format("%.2f%%", (completedTaskCount * 100.0 / taskCount)) : "0.00%") +
+                virtualThreadStatus(taskExecutor) +
+                laneStatus() +
                 "\n==================\n";
 
         log.info(status);
@@ -47,15 +55,63 @@ public class ThreadPoolMonitor {
 
         var taskCount = executor.getTaskCount();
         var completedTaskCount = executor.getCompletedTaskCount();
-        var rejectedTaskCount = taskCount - completedTaskCount - executor.getActiveCount() - executor.getQueue().size();
+        var metrics = taskMetrics.snapshot();
 
         log.info("=== 线程池详细统计 (30秒) ===");
         log.info("总提交任务数: {}", taskCount);
         log.info("已完成任务数: {}", completedTaskCount);
         log.info("处理中任务数: {}", executor.getActiveCount());
         log.info("队列中任务数: {}", executor.getQueue().size());
-        log.info("估计拒绝任务数: {}", Math.max(0, rejectedTaskCount));
-        log.info("平均任务处理速度: {} 任务/分钟", taskCount > 0 ? (completedTaskCount * 2.0) : 0.0);
+        log.info("拒绝任务数: {}", metrics.rejectedCount());
+        log.info("调用者执行任务数: {}", metrics.callerRunsCount());
+        log.info("取消任务数: {}, 超时任务数: {}, 未执行即丢弃: {}",
+                metrics.cancelledCount(), metrics.timedOutCount(), metrics.droppedBeforeStartCount());
+        log.info("平均任务处理速度: {} 任务/分钟 (近{}秒)",
+                String.format("%.1f", metrics.throughputPerSecond() * 60), metrics.windowSeconds());
+        metrics.types().forEach((type, typeMetrics) -> {
+            var queueWait = typeMetrics.queueWait();
+            var execution = typeMetrics.execution();
+            log.info("{}: 完成 {} 个, 排队 p50/p99/p999 = {}/{}/{} ms, 执行 p50/p99/p999 = {}/{}/{} ms",
+                    type.getDisplayName(), execution.count(),
+                    queueWait.p50(), queueWait.p99(), queueWait.p999(),
+                    execution.p50(), execution.p99(), execution.p999());
+        });
         log.info("===============================\n");
     }
+
+    /**
+     * 虚拟线程模式下的并发限制状态，平台线程模式返回空字符串
+     */
+    private static String virtualThreadStatus(ThreadPoolTaskExecutor executor) {
+        if (!(executor instanceof VirtualThreadTaskExecutor virtualExecutor)) {
+            return "";
+        }
+        return "\n执行模式: 虚拟线程" +
+                "\n最大并发数: " + virtualExecutor.getConcurrencyLimit() +
+                "\n执行中任务数: " + virtualExecutor.getRunningCount() +
+                "\n等待许可任务数: " + virtualExecutor.getWaitingCount();
+    }
+
+    /**
+     * 各任务通道的并发和排队状态
+     */
+    private String laneStatus() {
+        var metrics = taskMetrics.snapshot();
+        var status = new StringBuilder("\n--- 任务通道 ---");
+        taskLanes.executors().forEach((type, laneExecutor) -> {
+            var executor = laneExecutor.getThreadPoolExecutor();
+            var queueWait = metrics.types().get(type).queueWait();
+            status.append("\n").append(type.getDisplayName())
+                    .append(": 活跃 ").append(executor.getActiveCount())
+                    .append("/").append(executor.getMaximumPoolSize())
+                    .append(", 排队 ").append(executor.getQueue().size())
+                    .append(", 排队等待 p99 ").append(queueWait.p99()).append(" ms");
+            if (laneExecutor instanceof VirtualThreadTaskExecutor virtualExecutor) {
+                status.append(", 执行中 ").append(virtualExecutor.getRunningCount())
+                        .append("/").append(virtualExecutor.getConcurrencyLimit())
+                        .append(", 等待许可 ").append(virtualExecutor.getWaitingCount());
+            }
+        });
+        return status.toString();
+    }
 }
\ No newline at end of file
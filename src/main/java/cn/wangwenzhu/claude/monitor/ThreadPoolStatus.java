@@ -0,0 +1,40 @@
+package cn.wangwenzhu.claude.monitor;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * 线程池状态快照，由 {@link ThreadPoolStatusSampler} 在一次采样中生成，创建后不再变化
+ * 虚拟线程相关字段仅在虚拟线程模式下有值
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ThreadPoolStatus(int corePoolSize,
+                               int maximumPoolSize,
+                               int poolSize,
+                               int activeCount,
+                               long taskCount,
+                               long completedTaskCount,
+                               int queueSize,
+                               int queueRemainingCapacity,
+                               String taskCompletionRate,
+                               String executorMode,
+                               Integer concurrencyLimit,
+                               Integer runningCount,
+                               Integer waitingCount,
+                               Map<String, LaneStatus> lanes) {
+
+    /**
+     * 单个任务通道的状态
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LaneStatus(int maximumPoolSize,
+                             int activeCount,
+                             int queueSize,
+                             int queueRemainingCapacity,
+                             LatencyHistogram.Snapshot queueWait,
+                             Integer concurrencyLimit,
+                             Integer runningCount,
+                             Integer waitingCount) {
+    }
+}
@@ -0,0 +1,167 @@
+package cn.wangwenzhu.claude.monitor;
+
+import cn.wangwenzhu.claude.config.TaskLanes;
+import cn.wangwenzhu.claude.config.VirtualThreadTaskExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池状态采样
+ * ThreadPoolExecutor的 getTaskCount()、getActiveCount() 等方法每次调用都要获取主锁并遍历工作线程，
+ * 频繁查询会与任务分发竞争。这里由后台线程按固定间隔采样一次，结果通过 volatile 引用发布，
+ * 查询只读取引用，不加锁，且同一快照中的各项数据来自同一次采样
+ * <p>
+ * 内容未变化时保留原快照，ETag 不变，客户端可以用条件请求跳过重复数据；
+ * ETag 带有每次启动随机生成的前缀，重启后版本号从头计数也不会与重启前的 ETag 相同
+ */
+@Component
+@Slf4j
+public class ThreadPoolStatusSampler {
+
+    private final ThreadPoolTaskExecutor taskExecutor;
+
+    private final TaskMetrics taskMetrics;
+
+    private final TaskLanes taskLanes;
+
+    private final Duration sampleInterval;
+
+    private ScheduledExecutorService sampler;
+
+    private volatile Snapshot current;
+
+    private final String eTagPrefix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private long version;
+
+    /**
+     * 已发布的状态快照
+     *
+     * @param status    线程池状态
+     * @param eTag      内容版本标识，内容变化时更新
+     * @param changedAt 内容最后一次变化的时间（毫秒时间戳）
+     */
+    public record Snapshot(ThreadPoolStatus status, String eTag, long changedAt) {
+    }
+
+    public ThreadPoolStatusSampler(ThreadPoolTaskExecutor taskExecutor,
+                                   TaskMetrics taskMetrics,
+                                   TaskLanes taskLanes,
+                                   @Value("${task.status.sample-interval:1s}") Duration sampleInterval) {
+        this.taskExecutor = taskExecutor;
+        this.taskMetrics = taskMetrics;
+        this.taskLanes = taskLanes;
+        this.sampleInterval = sampleInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        // 启动时先采样一次，保证查询时总有快照可用
+        sample();
+
+        var intervalMillis = sampleInterval.toMillis();
+        sampler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("status-sampler").daemon().factory());
+        sampler.scheduleAtFixedRate(this::sampleSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * 最近一次发布的快照，不加锁
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (Exception e) {
+            // 采样异常不能让定时任务终止，继续使用上一个快照
+            log.warn("线程池状态采样失败: {}", e.getMessage());
+        }
+    }
+
+    private void sample() {
+        publish(readStatus());
+    }
+
+    /**
+     * 发布采样结果，内容与当前快照相同时保留原快照
+     */
+    synchronized void publish(ThreadPoolStatus status) {
+        var previous = current;
+        if (previous != null && previous.status().equals(status)) {
+            return;
+        }
+        var eTag = "\"" + eTagPrefix + "-" + Long.toHexString(++version) + "\"";
+        current = new Snapshot(status, eTag, System.currentTimeMillis());
+    }
+
+    private ThreadPoolStatus readStatus() {
+        var executor = taskExecutor.getThreadPoolExecutor();
+
+        // 先读已完成数再读总数，保证已完成数不超过总数
+        var completedTaskCount = executor.getCompletedTaskCount();
+        var taskCount = executor.getTaskCount();
+        var queue = executor.getQueue();
+        var completionRate = taskCount > 0
+                ? String.format("%.2f%%", completedTaskCount * 100.0 / taskCount)
+                : "0.00%";
+
+        var virtualExecutor = taskExecutor instanceof VirtualThreadTaskExecutor v ? v : null;
+        return new ThreadPoolStatus(
+                executor.getCorePoolSize(),
+                executor.getMaximumPoolSize(),
+                executor.getPoolSize(),
+                executor.getActiveCount(),
+                taskCount,
+                completedTaskCount,
+                queue.size(),
+                queue.remainingCapacity(),
+                completionRate,
+                virtualExecutor != null ? "VIRTUAL" : "PLATFORM",
+                virtualExecutor != null ? virtualExecutor.getConcurrencyLimit() : null,
+                virtualExecutor != null ? virtualExecutor.getRunningCount() : null,
+                virtualExecutor != null ? virtualExecutor.getWaitingCount() : null,
+                readLaneStatus());
+    }
+
+    private Map<String, ThreadPoolStatus.LaneStatus> readLaneStatus() {
+        var metrics = taskMetrics.snapshot();
+        var lanes = new LinkedHashMap<String, ThreadPoolStatus.LaneStatus>();
+        taskLanes.executors().forEach((type, laneExecutor) -> {
+            var executor = laneExecutor.getThreadPoolExecutor();
+            var virtualExecutor = laneExecutor instanceof VirtualThreadTaskExecutor v ? v : null;
+            lanes.put(type.name(), new ThreadPoolStatus.LaneStatus(
+                    executor.getMaximumPoolSize(),
+                    executor.getActiveCount(),
+                    executor.getQueue().size(),
+                    executor.getQueue().remainingCapacity(),
+                    metrics.types().get(type).queueWait(),
+                    virtualExecutor != null ? virtualExecutor.getConcurrencyLimit() : null,
+                    virtualExecutor != null ? virtualExecutor.getRunningCount() : null,
+                    virtualExecutor != null ? virtualExecutor.getWaitingCount() : null));
+        });
+        return Collections.unmodifiableMap(lanes);
+    }
+}
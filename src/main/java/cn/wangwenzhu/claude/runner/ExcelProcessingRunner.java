@@ -1,6 +1,7 @@
 package cn.wangwenzhu.claude.runner;
 
 import cn.wangwenzhu.claude.service.ExcelProcessingService;
+import cn.wangwenzhu.claude.service.ExcelWatchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationArguments;
@@ -17,10 +18,18 @@ public class ExcelProcessingRunner implements ApplicationRunner {
 
     private final ExcelProcessingService excelService;
 
+    private final ExcelWatchService excelWatchService;
+
     private final ThreadPoolTaskExecutor commonTaskExecutor;
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
+        if (excelWatchService.isEnabled()) {
+            // 常驻模式：监视线程负责首次全量处理和后续的增量处理，线程池保持运行
+            excelWatchService.start();
+            return;
+        }
+
         log.info("开始执行Excel处理任务");
 
         Future<?> future = commonTaskExecutor.submit(() -> {
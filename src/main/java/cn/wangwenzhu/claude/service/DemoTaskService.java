@@ -1,11 +1,13 @@
 package cn.wangwenzhu.claude.service;
 
-import cn.wangwenzhu.claude.task.DemoTask;
+import cn.wangwenzhu.claude.task.TaskSpec;
+import cn.wangwenzhu.claude.task.TaskType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -14,7 +16,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 @RequiredArgsConstructor
 public class DemoTaskService {
 
-    private final DemoTask demoTask;
+    private final TaskSubmissionService taskSubmissionService;
     private final Random random = new Random();
     private final AtomicInteger taskCounter = new AtomicInteger(0);
 
@@ -23,17 +25,12 @@ public class DemoTaskService {
         var taskNumber = taskCounter.incrementAndGet();
         var taskType = random.nextInt(3);
 
-        switch (taskType) {
-            case 0:
-                demoTask.executeQuickTask("Quick-Task-" + taskNumber);
-                break;
-            case 1:
-                demoTask.executeRandomTask("Random-Task-" + taskNumber);
-                break;
-            case 2:
-                demoTask.executeLongRunningTask("Long-Task-" + taskNumber);
-                break;
-        }
+        var spec = switch (taskType) {
+            case 0 -> new TaskSpec(TaskType.QUICK, "Quick-Task-" + taskNumber);
+            case 1 -> new TaskSpec(TaskType.RANDOM, "Random-Task-" + taskNumber);
+            default -> new TaskSpec(TaskType.LONG, "Long-Task-" + taskNumber);
+        };
+        taskSubmissionService.submit(spec);
 
         log.debug("已提交任务 #{} (类型: {})", taskNumber, getTaskTypeName(taskType));
     }
@@ -42,20 +39,22 @@ public class DemoTaskService {
     public void submitBatchTasks() {
         log.info("开始提交批量任务...");
 
+        var specs = new ArrayList<TaskSpec>();
+
         // 提交5-10个快速任务
         var quickTasks = random.nextInt(6) + 5;
         for (var i = 0; i < quickTasks; i++) {
-            var taskNumber = taskCounter.incrementAndGet();
-            demoTask.executeQuickTask("Batch-Quick-Task-" + taskNumber);
+            specs.add(new TaskSpec(TaskType.QUICK, "Batch-Quick-Task-" + taskCounter.incrementAndGet()));
         }
 
         // 提交2-5个随机任务
         var randomTasks = random.nextInt(4) + 2;
         for (var i = 0; i < randomTasks; i++) {
-            var taskNumber = taskCounter.incrementAndGet();
-            demoTask.executeRandomTask("Batch-Random-Task-" + taskNumber);
+            specs.add(new TaskSpec(TaskType.RANDOM, "Batch-Random-Task-" + taskCounter.incrementAndGet()));
         }
 
+        taskSubmissionService.submitBatch(specs);
+
         log.info("批量任务提交完成: {}个快速任务, {}个随机任务", quickTasks, randomTasks);
     }
 
@@ -2,11 +2,20 @@ package cn.wangwenzhu.claude.service;
 
 import cn.wangwenzhu.claude.util.ExcelReader;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Excel处理服务类
  * 负责协调Excel文件读取和数据处理业务逻辑
+ * <p>
+ * 每次处理是一个独立的任务，记录和缓冲区只在任务执行期间存在；
+ * 不同输出路径的任务可以同时执行，同一输出路径同时只允许一个任务写入
  */
 @Slf4j
 @Service
@@ -14,8 +23,20 @@ public class ExcelProcessingService {
 
     private final ExcelReader excelReader;
 
-    public ExcelProcessingService() {
-        this.excelReader = new ExcelReader();
+    private final Path inputDir;
+
+    private final String outputPath;
+
+    private final AtomicLong jobIds = new AtomicLong();
+
+    private final Set<Path> activeOutputs = ConcurrentHashMap.newKeySet();
+
+    public ExcelProcessingService(ExcelReader excelReader,
+                                  @Value("${excel.input.dir:" + ExcelReader.DEFAULT_INPUT_DIR + "}") String inputDir,
+                                  @Value("${excel.export.output:" + ExcelReader.DEFAULT_OUTPUT_PATH + "}") String outputPath) {
+        this.excelReader = excelReader;
+        this.inputDir = Path.of(inputDir);
+        this.outputPath = outputPath;
     }
 
     /**
@@ -24,10 +45,35 @@ public class ExcelProcessingService {
      */
     public void processExcelFiles() {
         try {
-            excelReader.list();
+            process(inputDir, outputPath);
             log.info("Excel处理任务完成");
         } catch (Exception e) {
             log.error("Excel处理任务执行失败: {}", e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 执行一次处理任务
+     *
+     * @param inputDir   输入目录
+     * @param outputPath CSV导出路径
+     * @return 任务结果
+     * @throws IllegalStateException 已有任务正在写入同一输出路径
+     */
+    public ExcelReader.JobResult process(Path inputDir, String outputPath) {
+        var output = Path.of(outputPath).toAbsolutePath().normalize();
+        if (!activeOutputs.add(output)) {
+            throw new IllegalStateException("已有任务正在写入: " + output);
+        }
+
+        var jobId = jobIds.incrementAndGet();
+        try {
+            log.info("Excel处理任务#{}开始: {} -> {}", jobId, inputDir, outputPath);
+            var result = excelReader.process(inputDir, outputPath);
+            log.info("Excel处理任务#{}结束: {}", jobId, result);
+            return result;
+        } finally {
+            activeOutputs.remove(output);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package cn.wangwenzhu.claude.service;
+
+import cn.wangwenzhu.claude.monitor.LatencyHistogram;
+import cn.wangwenzhu.claude.util.ExcelReader;
+import cn.wangwenzhu.claude.util.IPExporter;
+import cn.wangwenzhu.claude.util.RowSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Excel目录监视服务（常驻模式）
+ * 通过WatchService监视输入目录，新增、修改或删除文件时只重新读取变化的文件，
+ * 然后由内存中各文件的记录重新导出CSV、SQL和索引文件。JVM和Spring只启动一次，
+ * 后续批次在已预热的JVM上执行
+ * <p>
+ * 文件通常分多次写入，收到事件后等待 {@code excel.watch.debounce} 内没有新事件再处理；
+ * 读取失败（例如文件仍在写入）时保留该文件上一次的记录，下一次事件时重试。
+ * 各文件的记录保存在内存中，内存占用与缓冲导出模式相同
+ * <p>
+ * 文件状态只在监视线程中读写，不需要同步；指标可在任意线程读取
+ */
+@Slf4j
+@Service
+public class ExcelWatchService {
+
+    private final ExcelReader excelReader;
+
+    private final boolean enabled;
+
+    private final Path inputDir;
+
+    private final String outputPath;
+
+    private final Duration debounce;
+
+    // 各文件的记录，按文件名排序，导出顺序与一次性处理一致（只在监视线程中访问）
+    private final NavigableMap<String, FileState> files = new TreeMap<>();
+
+    // 供指标读取的文件数
+    private volatile int trackedFiles;
+
+    private final LatencyHistogram fileLatency = new LatencyHistogram();
+
+    private final LongAdder processedFiles = new LongAdder();
+
+    private final LongAdder failedFiles = new LongAdder();
+
+    private final LongAdder exportCount = new LongAdder();
+
+    private volatile long lastExportAt;
+
+    private volatile WatchService watchService;
+
+    private volatile Thread watchThread;
+
+    /**
+     * 已读取文件的状态
+     *
+     * @param size         读取时的文件大小
+     * @param lastModified 读取时的修改时间
+     * @param records      该文件的记录
+     */
+    private record FileState(long size, long lastModified, IPExporter records) {
+    }
+
+    /**
+     * 监视服务指标
+     *
+     * @param running        是否正在监视
+     * @param trackedFiles   当前导出包含的文件数
+     * @param processedFiles 累计读取成功的文件数
+     * @param failedFiles    累计读取失败的文件数
+     * @param exportCount    累计导出次数
+     * @param lastExportAt   最后一次导出的时间（毫秒时间戳），尚未导出时为0
+     * @param fileLatency    单个文件的处理耗时分布（毫秒）
+     */
+    public record Snapshot(boolean running,
+                           int trackedFiles,
+                           long processedFiles,
+                           long failedFiles,
+                           long exportCount,
+                           long lastExportAt,
+                           LatencyHistogram.Snapshot fileLatency) {
+    }
+
+    public ExcelWatchService(ExcelReader excelReader,
+                             @Value("${excel.watch.enabled:false}") boolean enabled,
+                             @Value("${excel.input.dir:" + ExcelReader.DEFAULT_INPUT_DIR + "}") String inputDir,
+                             @Value("${excel.export.output:" + ExcelReader.DEFAULT_OUTPUT_PATH + "}") String outputPath,
+                             @Value("${excel.watch.debounce:500ms}") Duration debounce) {
+        this.excelReader = excelReader;
+        this.enabled = enabled;
+        this.inputDir = Path.of(inputDir);
+        this.outputPath = outputPath;
+        this.debounce = debounce;
+    }
+
+    /**
+     * 是否启用常驻监视模式
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启动监视线程：先全量读取一次并导出，之后按文件变化增量处理
+     * 监视线程不是守护线程，应用会一直运行，直到上下文关闭
+     */
+    public synchronized void start() throws IOException {
+        if (watchThread != null) {
+            return;
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        inputDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchThread = Thread.ofPlatform().name("excel-watch").start(this::watchLoop);
+        log.info("开始监视输入目录: {}, 输出文件: {}", inputDir.toAbsolutePath(), outputPath);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        var thread = watchThread;
+        if (thread == null) {
+            return;
+        }
+        watchThread = null;
+        try {
+            // 关闭后阻塞中的take()抛出ClosedWatchServiceException，监视线程随之结束
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("关闭目录监视失败: {}", e.getMessage());
+        }
+        thread.interrupt();
+    }
+
+    /**
+     * 当前指标
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(watchThread != null,
+                trackedFiles,
+                processedFiles.sum(),
+                failedFiles.sum(),
+                exportCount.sum(),
+                lastExportAt,
+                fileLatency.snapshot());
+    }
+
+    private void watchLoop() {
+        try {
+            if (rescan()) {
+                export();
+            }
+
+            while (!Thread.currentThread().isInterrupted()) {
+                var changed = new HashSet<String>();
+                var overflow = collect(watchService.take(), changed);
+
+                // 防抖：持续收到事件时继续等待，直到静默一个防抖间隔
+                WatchKey key;
+                while ((key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(key, changed);
+                }
+
+                // 事件过多时部分事件会丢失，改为全量比对
+                if (overflow ? rescan() : refresh(changed)) {
+                    export();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 正常停止
+        } catch (RuntimeException e) {
+            log.error("目录监视异常终止: {}", e.getMessage(), e);
+        }
+        log.info("目录监视已停止: {}", inputDir.toAbsolutePath());
+    }
+
+    /**
+     * 收集一个WatchKey上的事件
+     *
+     * @return 是否发生了事件溢出
+     */
+    private boolean collect(WatchKey key, Set<String> changed) {
+        var overflow = false;
+        for (var event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            var name = ((Path) event.context()).getFileName().toString();
+            if (RowSource.isSupported(name)) {
+                changed.add(name);
+            }
+        }
+        if (!key.reset()) {
+            log.warn("输入目录已不可访问，停止监视: {}", inputDir.toAbsolutePath());
+            throw new ClosedWatchServiceException();
+        }
+        return overflow;
+    }
+
+    /**
+     * 全量比对输入目录：读取新增或变化的文件，移除已删除的文件
+     *
+     * @return 导出内容是否变化
+     */
+    boolean rescan() {
+        var names = new HashSet<String>(files.keySet());
+        var listed = inputDir.toFile().list((dir, name) -> RowSource.isSupported(name));
+        if (listed != null) {
+            names.addAll(Set.of(listed));
+        }
+        return refresh(names);
+    }
+
+    /**
+     * 按文件名更新文件状态
+     *
+     * @param names 可能变化的文件名
+     * @return 导出内容是否变化
+     */
+    boolean refresh(Collection<String> names) {
+        var changed = false;
+        for (var name : names) {
+            var file = inputDir.resolve(name).toFile();
+            if (!file.isFile()) {
+                if (files.remove(name) != null) {
+                    log.info("文件已删除，从导出中移除: {}", name);
+                    changed = true;
+                }
+                continue;
+            }
+
+            // 同一次写入通常触发多个修改事件，大小和修改时间都未变化时跳过
+            var size = file.length();
+            var lastModified = file.lastModified();
+            var previous = files.get(name);
+            if (previous != null && previous.size() == size && previous.lastModified() == lastModified) {
+                continue;
+            }
+            changed |= process(file, size, lastModified);
+        }
+        trackedFiles = files.size();
+        return changed;
+    }
+
+    private boolean process(File file, long size, long lastModified) {
+        var start = System.nanoTime();
+        var result = excelReader.readFile(file);
+        fileLatency.recordNanos(System.nanoTime() - start);
+
+        if (!result.succeeded()) {
+            failedFiles.increment();
+            log.warn("读取文件失败，保留上一次的结果，下次变化时重试: {}", file.getName());
+            return false;
+        }
+        processedFiles.increment();
+        files.put(file.getName(), new FileState(size, lastModified, result.records()));
+        log.info("文件已更新: {}, {} 条记录, 耗时 {} ms", file.getName(), result.records().getRecordCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return true;
+    }
+
+    /**
+     * 由内存中各文件的记录重新导出
+     */
+    void export() {
+        var records = files.values().stream().map(FileState::records).toList();
+        if (excelReader.export(records, outputPath)) {
+            exportCount.increment();
+            lastExportAt = System.currentTimeMillis();
+            var latency = fileLatency.snapshot();
+            log.info("导出已更新: {} 个文件, 文件处理耗时 p50 {} ms, p99 {} ms, max {} ms",
+                    files.size(), latency.p50(), latency.p99(), latency.max());
+        }
+    }
+}
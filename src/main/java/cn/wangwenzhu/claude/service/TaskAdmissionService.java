@@ -0,0 +1,226 @@
+package cn.wangwenzhu.claude.service;
+
+import cn.wangwenzhu.claude.config.TaskAdmissionProperties;
+import cn.wangwenzhu.claude.config.TaskLanes;
+import cn.wangwenzhu.claude.monitor.TaskMetrics;
+import cn.wangwenzhu.claude.task.TaskType;
+import cn.wangwenzhu.claude.util.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务准入控制
+ * 提交接口在入队前依次检查：通道队列容量（溢出策略为reject时）、客户端令牌桶、任务类型令牌桶，
+ * 任一不满足时立即拒绝并给出建议的重试间隔，请求线程既不排队也不执行任务。
+ * 先检查客户端，超限的客户端不消耗各客户端共享的任务类型令牌；被拒绝的请求退还本次已获取的令牌
+ * <p>
+ * 令牌桶为无锁实现；客户端令牌桶按需创建，数量超过上限时清理已空闲（令牌已补满）的客户端
+ */
+@Slf4j
+@Service
+public class TaskAdmissionService {
+
+    // 重试间隔上限（秒）
+    private static final long MAX_RETRY_AFTER_SECONDS = 300;
+
+    private static final long CLEANUP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TaskAdmissionProperties properties;
+
+    private final TaskLanes taskLanes;
+
+    private final TaskMetrics taskMetrics;
+
+    private final Map<TaskType, TokenBucket> typeBuckets = new EnumMap<>(TaskType.class);
+
+    private final ConcurrentHashMap<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastCleanupNanos = new AtomicLong(System.nanoTime());
+
+    private final LongAdder admittedCount = new LongAdder();
+
+    private final LongAdder queueFullCount = new LongAdder();
+
+    private final LongAdder typeLimitedCount = new LongAdder();
+
+    private final LongAdder clientLimitedCount = new LongAdder();
+
+    /**
+     * 拒绝原因
+     */
+    public enum Reason {
+        /**
+         * 通道队列已满
+         */
+        QUEUE_FULL,
+        /**
+         * 超过任务类型的提交速率
+         */
+        TYPE_RATE_LIMITED,
+        /**
+         * 超过客户端的提交速率
+         */
+        CLIENT_RATE_LIMITED
+    }
+
+    /**
+     * 准入结果
+     *
+     * @param admitted          是否允许提交
+     * @param reason            拒绝原因，允许时为null
+     * @param retryAfterSeconds 建议的重试间隔（秒），允许时为0
+     */
+    public record Decision(boolean admitted, Reason reason, long retryAfterSeconds) {
+
+        static final Decision ADMITTED = new Decision(true, null, 0);
+    }
+
+    /**
+     * 准入统计
+     *
+     * @param overflowPolicy     通道队列已满时的处理方式
+     * @param admitted           允许提交的请求数
+     * @param queueFull          因队列已满拒绝的请求数
+     * @param typeRateLimited    因任务类型限流拒绝的请求数
+     * @param clientRateLimited  因客户端限流拒绝的请求数
+     * @param trackedClients     当前保留限流状态的客户端数
+     */
+    public record Snapshot(TaskAdmissionProperties.OverflowPolicy overflowPolicy,
+                           long admitted,
+                           long queueFull,
+                           long typeRateLimited,
+                           long clientRateLimited,
+                           int trackedClients) {
+    }
+
+    public TaskAdmissionService(TaskAdmissionProperties properties, TaskLanes taskLanes, TaskMetrics taskMetrics) {
+        this.properties = properties;
+        this.taskLanes = taskLanes;
+        this.taskMetrics = taskMetrics;
+        for (var type : TaskType.values()) {
+            var limit = properties.limit(type);
+            typeBuckets.put(type, new TokenBucket(limit.ratePerSecond(), limit.burst()));
+        }
+        log.info("任务准入控制: {}, 溢出策略 {}", properties.enabled() ? "已启用" : "未启用", properties.overflowPolicy());
+    }
+
+    /**
+     * 检查是否允许提交
+     *
+     * @param counts   各任务类型的提交数量
+     * @param clientId 客户端标识
+     * @return 准入结果
+     */
+    public Decision admit(Map<TaskType, Integer> counts, String clientId) {
+        if (!properties.enabled()) {
+            return Decision.ADMITTED;
+        }
+
+        // 队列已满时不消耗令牌
+        if (properties.overflowPolicy() == TaskAdmissionProperties.OverflowPolicy.REJECT) {
+            for (var entry : counts.entrySet()) {
+                var queue = taskLanes.executor(entry.getKey()).getThreadPoolExecutor().getQueue();
+                if (queue.remainingCapacity() < entry.getValue()) {
+                    queueFullCount.increment();
+                    return new Decision(false, Reason.QUEUE_FULL, estimateQueueDrainSeconds(entry.getKey()));
+                }
+            }
+        }
+
+        var total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        var clientBucket = clientBucket(clientId);
+        var clientWaitNanos = clientBucket.tryAcquire(total);
+        if (clientWaitNanos > 0) {
+            clientLimitedCount.increment();
+            return new Decision(false, Reason.CLIENT_RATE_LIMITED, toRetryAfterSeconds(clientWaitNanos));
+        }
+
+        for (var entry : counts.entrySet()) {
+            var waitNanos = typeBuckets.get(entry.getKey()).tryAcquire(entry.getValue());
+            if (waitNanos > 0) {
+                refund(counts, entry.getKey(), clientBucket, total);
+                typeLimitedCount.increment();
+                return new Decision(false, Reason.TYPE_RATE_LIMITED, toRetryAfterSeconds(waitNanos));
+            }
+        }
+
+        admittedCount.increment();
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * 当前统计
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(properties.overflowPolicy(),
+                admittedCount.sum(),
+                queueFullCount.sum(),
+                typeLimitedCount.sum(),
+                clientLimitedCount.sum(),
+                clientBuckets.size());
+    }
+
+    /**
+     * 退还被拒绝的请求已获取的令牌：客户端令牌和 rejectedType 之前各任务类型的令牌
+     */
+    private void refund(Map<TaskType, Integer> counts, TaskType rejectedType, TokenBucket clientBucket, int total) {
+        clientBucket.release(total);
+        for (var entry : counts.entrySet()) {
+            if (entry.getKey() == rejectedType) {
+                return;
+            }
+            typeBuckets.get(entry.getKey()).release(entry.getValue());
+        }
+    }
+
+    private TokenBucket clientBucket(String clientId) {
+        var bucket = clientBuckets.get(clientId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.size() >= properties.maxClients()) {
+            cleanupIdleClients();
+        }
+        var limit = properties.client();
+        return clientBuckets.computeIfAbsent(clientId, id -> new TokenBucket(limit.ratePerSecond(), limit.burst()));
+    }
+
+    /**
+     * 清理令牌已补满的客户端，最多每秒一次；清理时只有一个线程遍历
+     */
+    private void cleanupIdleClients() {
+        var now = System.nanoTime();
+        var last = lastCleanupNanos.get();
+        if (now - last >= CLEANUP_INTERVAL_NANOS && lastCleanupNanos.compareAndSet(last, now)) {
+            var before = clientBuckets.size();
+            clientBuckets.values().removeIf(TokenBucket::isIdle);
+            log.debug("清理空闲客户端限流状态: {} -> {}", before, clientBuckets.size());
+        }
+    }
+
+    /**
+     * 按当前排队任务数和平均执行时间估算队列排空所需时间
+     */
+    private long estimateQueueDrainSeconds(TaskType type) {
+        var executor = taskLanes.executor(type).getThreadPoolExecutor();
+        var meanMillis = taskMetrics.snapshot().types().get(type).execution().mean();
+        if (meanMillis <= 0) {
+            return 1;
+        }
+        var concurrency = Math.max(1, executor.getMaximumPoolSize());
+        var drainMillis = (executor.getQueue().size() + 1) * meanMillis / concurrency;
+        return Math.clamp((long) Math.ceil(drainMillis / 1000), 1, MAX_RETRY_AFTER_SECONDS);
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        var seconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        return Math.clamp(seconds, 1, MAX_RETRY_AFTER_SECONDS);
+    }
+}
@@ -0,0 +1,300 @@
+package cn.wangwenzhu.claude.service;
+
+import cn.wangwenzhu.claude.config.TaskLaneProperties;
+import cn.wangwenzhu.claude.monitor.TaskMetrics;
+import cn.wangwenzhu.claude.task.DemoTask;
+import cn.wangwenzhu.claude.task.QueuedTask;
+import cn.wangwenzhu.claude.task.TaskControl;
+import cn.wangwenzhu.claude.task.TaskHandle;
+import cn.wangwenzhu.claude.task.TaskJournal;
+import cn.wangwenzhu.claude.task.TaskResult;
+import cn.wangwenzhu.claude.task.TaskSpec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 任务提交服务
+ * 为每个任务分配ID并保存句柄，调用方可以按ID查询或等待任务结果；
+ * 已结束的任务最多保留 {@value #MAX_RETAINED_COMPLETED} 个，超出后按结束顺序淘汰
+ * <p>
+ * 启用任务日志（task.journal.enabled）时，任务在入队前写入日志并等待组提交刷盘，结束时记录结束；
+ * 应用启动完成后，上次未结束的任务以原任务ID按 {@code task.journal.replay-rate} 的速率重新提交，
+ * 避免重启后瞬间涌入大量任务。被中断的任务（通常是应用关闭）不记录结束，下次启动时重新执行
+ * <p>
+ * 通道拒绝的任务不抛出异常，其结果以 {@link RejectedExecutionException} 异常完成，批量中的其余任务照常提交
+ * <p>
+ * 每个任务有期限（提交参数指定，或任务类型的默认期限 {@code task.lanes.*.timeout}），从进入通道开始计时：
+ * 到期时仍在排队的任务立即以 TIMED_OUT 结束且不再执行，执行中的任务被中断。
+ * 期限随任务写入任务日志，重新提交的任务从重新进入通道开始按原期限计时
+ */
+@Service
+@Slf4j
+public class TaskSubmissionService {
+
+    private static final int MAX_RETAINED_COMPLETED = 10_000;
+
+    private final DemoTask demoTask;
+
+    private final TaskMetrics taskMetrics;
+
+    private final TaskLaneProperties laneProperties;
+
+    private final AtomicLong taskIdGenerator = new AtomicLong();
+
+    private final ConcurrentHashMap<Long, TaskHandle> handles = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Long> completedTaskIds = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger completedCount = new AtomicInteger();
+
+    private final TaskJournal taskJournal;
+
+    private final int replayRate;
+
+    private volatile Thread replayThread;
+
+    // 任务期限计时器，任务结束时取消对应的计时
+    private final ScheduledThreadPoolExecutor deadlineTimer =
+            new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("task-deadline").daemon().factory());
+
+    public TaskSubmissionService(DemoTask demoTask,
+                                 TaskMetrics taskMetrics,
+                                 TaskLaneProperties laneProperties,
+                                 ObjectProvider<TaskJournal> taskJournal,
+                                 @Value("${task.journal.replay-rate:50}") int replayRate) {
+        this.demoTask = demoTask;
+        this.taskMetrics = taskMetrics;
+        this.laneProperties = laneProperties;
+        this.taskJournal = taskJournal.getIfAvailable();
+        this.replayRate = Math.max(1, replayRate);
+        deadlineTimer.setRemoveOnCancelPolicy(true);
+        if (this.taskJournal != null) {
+            // 新任务的ID接在日志中已有的ID之后，恢复的任务保留原ID
+            taskIdGenerator.set(this.taskJournal.maxRecoveredTaskId());
+        }
+    }
+
+    /**
+     * 提交单个任务
+     *
+     * @param spec 任务参数，任务名称为空时自动生成
+     * @return 任务句柄
+     */
+    public TaskHandle submit(TaskSpec spec) {
+        return submitBatch(Collections.singletonList(spec)).getFirst();
+    }
+
+    /**
+     * 批量提交任务，一次遍历全部入队
+     * 启用任务日志时全部写入日志后只等待一次刷盘；写入或刷盘失败时整批失败，已写入的任务记录为结束，重启后不会执行
+     *
+     * @param specs 任务参数列表
+     * @return 与参数顺序一致的任务句柄
+     */
+    public List<TaskHandle> submitBatch(List<TaskSpec> specs) {
+        if (specs.stream().anyMatch(spec -> spec == null || spec.type() == null)) {
+            throw new IllegalArgumentException("任务类型不能为空");
+        }
+        if (specs.stream().anyMatch(spec -> spec.timeoutMs() < 0)) {
+            throw new IllegalArgumentException("任务期限不能为负数");
+        }
+
+        var taskIds = new long[specs.size()];
+        var normalizedSpecs = new ArrayList<TaskSpec>(specs.size());
+        var journalSeq = 0L;
+        var journaled = 0;
+        try {
+            for (var i = 0; i < taskIds.length; i++) {
+                var spec = specs.get(i);
+                var taskId = taskIdGenerator.incrementAndGet();
+                var taskName = spec.taskName() == null || spec.taskName().isBlank()
+                        ? spec.type().name() + "-" + taskId
+                        : spec.taskName();
+                var normalizedSpec = new TaskSpec(spec.type(), taskName, spec.timeoutMs());
+                if (taskJournal != null) {
+                    journalSeq = taskJournal.recordSubmitted(taskId, normalizedSpec);
+                    journaled++;
+                }
+                taskIds[i] = taskId;
+                normalizedSpecs.add(normalizedSpec);
+            }
+            awaitJournal(journalSeq);
+        } catch (RuntimeException e) {
+            // 整批不会入队，已写入日志的任务记录为结束，避免重启后被重新执行
+            for (var i = 0; i < journaled; i++) {
+                taskJournal.recordCompleted(taskIds[i]);
+            }
+            throw e;
+        }
+
+        var submitted = new ArrayList<TaskHandle>(taskIds.length);
+        for (var i = 0; i < taskIds.length; i++) {
+            var handle = start(taskIds[i], normalizedSpecs.get(i));
+            submitted.add(handle);
+            enqueue(handle);
+        }
+        if (submitted.size() > 1) {
+            log.debug("批量提交 {} 个任务", submitted.size());
+        }
+        return submitted;
+    }
+
+    /**
+     * 按ID查找任务句柄
+     */
+    public Optional<TaskHandle> find(long taskId) {
+        return Optional.ofNullable(handles.get(taskId));
+    }
+
+    /**
+     * 应用启动完成后按限定速率重新提交上次未结束的任务
+     * 任务句柄立即可查，结果在任务重新执行结束后完成
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayRecoveredTasks() {
+        if (taskJournal == null || taskJournal.recoveredTasks().isEmpty() || replayThread != null) {
+            return;
+        }
+
+        var recovered = taskJournal.recoveredTasks();
+        var pending = new ArrayList<TaskHandle>(recovered.size());
+        for (var task : recovered) {
+            pending.add(start(task.taskId(), task.spec()));
+        }
+
+        log.info("开始重新提交 {} 个未结束的任务，速率 {} 个/秒", recovered.size(), replayRate);
+        replayThread = Thread.ofPlatform().name("task-replay").daemon().start(() -> {
+            var intervalNanos = TimeUnit.SECONDS.toNanos(1) / replayRate;
+            var next = System.nanoTime();
+            for (var i = 0; i < recovered.size() && !Thread.currentThread().isInterrupted(); i++) {
+                var delay = next - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                next += intervalNanos;
+
+                enqueue(pending.get(i));
+            }
+            log.info("未结束的任务已全部重新提交");
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        var thread = replayThread;
+        if (thread != null) {
+            // 尚未重新提交的任务仍在日志中，下次启动时恢复
+            thread.interrupt();
+        }
+        deadlineTimer.shutdownNow();
+    }
+
+    private TaskHandle start(long taskId, TaskSpec spec) {
+        var result = new CompletableFuture<TaskResult>();
+        var control = new TaskControl(spec, result);
+        var handle = new TaskHandle(taskId, spec, control);
+        handles.put(taskId, handle);
+        result.whenComplete((taskResult, e) -> {
+            if (taskResult != null) {
+                taskMetrics.recordStopped(taskResult.status(), control.hasStarted());
+            }
+            onCompleted(taskId, taskResult);
+        });
+        return handle;
+    }
+
+    private void awaitJournal(long journalSeq) {
+        if (taskJournal == null) {
+            return;
+        }
+        try {
+            if (!taskJournal.awaitDurable(journalSeq)) {
+                throw new IllegalStateException("任务日志已关闭");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待任务日志刷盘时被中断", e);
+        }
+    }
+
+    /**
+     * 提交到任务通道并开始期限计时，任务结束时完成任务结果
+     * 通道拒绝时结果以拒绝异常完成；任务在队列中被挤出时结果被取消
+     */
+    private void enqueue(TaskHandle handle) {
+        var spec = handle.spec();
+        var control = handle.control();
+        var result = handle.result();
+        // 重新提交前已被取消
+        if (result.isDone()) {
+            return;
+        }
+
+        var timeout = spec.timeoutMs() > 0
+                ? spec.timeoutMs()
+                : laneProperties.timeout(spec.type()).toMillis();
+        try {
+            if (timeout > 0) {
+                var deadline = deadlineTimer.schedule(() -> {
+                    if (control.stop(TaskResult.Status.TIMED_OUT)) {
+                        log.warn("任务超过期限 {} ms: {}", timeout, spec.taskName());
+                    }
+                }, timeout, TimeUnit.MILLISECONDS);
+                result.whenComplete((taskResult, e) -> deadline.cancel(false));
+            }
+
+            QueuedTask.submitFor(control, () -> dispatch(spec)).whenComplete((taskResult, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(control.resolve(taskResult));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("任务被拒绝: {}, {}", spec.taskName(), e.getMessage());
+            result.completeExceptionally(e);
+        }
+    }
+
+    private CompletableFuture<TaskResult> dispatch(TaskSpec spec) {
+        return switch (spec.type()) {
+            case QUICK -> demoTask.executeQuickTask(spec.taskName());
+            case RANDOM -> demoTask.executeRandomTask(spec.taskName());
+            case LONG -> demoTask.executeLongRunningTask(spec.taskName());
+        };
+    }
+
+    private void onCompleted(long taskId, TaskResult taskResult) {
+        if (taskJournal != null && (taskResult == null || taskResult.status() != TaskResult.Status.INTERRUPTED)) {
+            taskJournal.recordCompleted(taskId);
+        }
+
+        completedTaskIds.add(taskId);
+        if (completedCount.incrementAndGet() > MAX_RETAINED_COMPLETED) {
+            var oldest = completedTaskIds.poll();
+            if (oldest != null) {
+                handles.remove(oldest);
+                completedCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package cn.wangwenzhu.claude.service;
+
+import cn.wangwenzhu.claude.util.HostRowCollector;
+import cn.wangwenzhu.claude.util.IPConverter;
+import cn.wangwenzhu.claude.util.RowSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 上传文件的流式提取
+ * 请求体直接交给数据源逐行解析，每提取到一个通讯主机号立即写出一行结果（NDJSON或CSV），
+ * 第一条结果立即刷新，之后每 {@value #FLUSH_ROWS} 条刷新一次，大文件也能很快收到首批数据
+ * <p>
+ * 不写入导出文件，也不使用提取结果缓存
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@RegisterReflectionForBinding(UploadExtractionService.HostRow.class)
+public class UploadExtractionService {
+
+    private static final int FLUSH_ROWS = 256;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 14;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 输出格式
+     */
+    public enum OutputFormat {
+        /**
+         * 每行一个JSON对象（application/x-ndjson）
+         */
+        NDJSON,
+        /**
+         * 带标题行的CSV（UTF-8 BOM）
+         */
+        CSV
+    }
+
+    /**
+     * 一条提取结果
+     */
+    public record HostRow(String file, String sheet, String ip, String decimal) {
+    }
+
+    /**
+     * 提取结果统计
+     *
+     * @param sheets 读取的工作表数
+     * @param hosts  提取到的通讯主机号数量
+     */
+    public record ExtractionSummary(int sheets, int hosts) {
+    }
+
+    /**
+     * 从输入流提取通讯主机号并写出
+     * NDJSON格式下解析中途出错时追加一行 {"error": "..."} 后正常结束；CSV格式没有错误行，直接抛出异常中断响应
+     *
+     * @param content  上传的文件内容（xlsx或csv，按内容判断），读取完毕后关闭
+     * @param fileName 文件名
+     * @param format   输出格式
+     * @param out      输出流
+     * @return 提取结果统计
+     */
+    public ExtractionSummary extract(InputStream content, String fileName, OutputFormat format, OutputStream out)
+            throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        var rows = new RowWriter(writer, format, fileName);
+        var startTime = System.currentTimeMillis();
+        IOException failure = null;
+        try {
+            rows.writeHeader();
+            var source = RowSource.streaming(content, fileName);
+            source.read((sheetIndex, sheetName) -> {
+                rows.sheets++;
+                return new HostRowCollector(ip -> rows.write(sheetName, ip));
+            }, null);
+        } catch (UncheckedIOException e) {
+            failure = e.getCause();
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            // 数据源未转换的解析错误（格式异常的内容），同样作为提取失败输出错误行
+            failure = new IOException("解析上传文件失败: " + e, e);
+        } finally {
+            content.close();
+        }
+
+        if (failure != null) {
+            log.warn("上传文件提取失败: {}, 已输出 {} 条, {}", fileName, rows.hosts, failure.getMessage());
+            if (format == OutputFormat.CSV) {
+                writer.flush();
+                throw failure;
+            }
+            writer.write(objectMapper.writeValueAsString(Map.of("error", String.valueOf(failure.getMessage()))));
+            writer.write('\n');
+        }
+        writer.flush();
+
+        var elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+        log.info("上传文件提取完成: {}, {} 个工作表, {} 个通讯主机号, 耗时 {} ms, {} 条/秒",
+                fileName, rows.sheets, rows.hosts, elapsed, rows.hosts * 1000L / elapsed);
+        return new ExtractionSummary(rows.sheets, rows.hosts);
+    }
+
+    /**
+     * 按输出格式写出结果行，控制刷新频率
+     */
+    private final class RowWriter {
+
+        private final Writer writer;
+
+        private final OutputFormat format;
+
+        private final String fileName;
+
+        private int sheets;
+
+        private int hosts;
+
+        private RowWriter(Writer writer, OutputFormat format, String fileName) {
+            this.writer = writer;
+            this.format = format;
+            this.fileName = fileName;
+        }
+
+        private void writeHeader() throws IOException {
+            if (format == OutputFormat.CSV) {
+                writer.write('\uFEFF');
+                writer.write("源文件名,工作表,IP地址,十进制数值\n");
+            }
+        }
+
+        private void write(String sheetName, String ip) {
+            var decimal = IPConverter.ipToDecimal(ip);
+            try {
+                if (format == OutputFormat.NDJSON) {
+                    writer.write(objectMapper.writeValueAsString(new HostRow(fileName, sheetName, ip, decimal)));
+                    writer.write('\n');
+                } else {
+                    writeCsvField(fileName);
+                    writer.write(',');
+                    writeCsvField(sheetName);
+                    writer.write(',');
+                    writeCsvField(ip);
+                    writer.write(',');
+                    writeCsvField(decimal);
+                    writer.write('\n');
+                }
+
+                // 第一条立即刷新，之后批量刷新
+                if (hosts++ % FLUSH_ROWS == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                // 客户端断开时中止解析
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeCsvField(String value) throws IOException {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
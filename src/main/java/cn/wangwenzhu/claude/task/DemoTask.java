@@ -1,20 +1,33 @@
 package cn.wangwenzhu.claude.task;
 
+import cn.wangwenzhu.claude.monitor.TaskMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 演示任务
+ * 每种任务类型提交到各自的执行通道（见 ThreadPoolConfig），快速任务不会被长任务阻塞；
+ * 返回的 CompletableFuture 在任务结束时完成，携带执行结果
+ */
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class DemoTask {
 
     private final Random random = new Random();
 
-    @Async("commonTaskExecutor")
-    public void executeRandomTask(String taskName) {
+    private final TaskMetrics taskMetrics;
+
+    @Async("randomTaskExecutor")
+    public CompletableFuture<TaskResult> executeRandomTask(String taskName) {
+        var startNanos = System.nanoTime();
+        var status = TaskResult.Status.COMPLETED;
         try {
             // 生成1-10秒的随机执行时间
             var executionTime = random.nextInt(10) + 1;
@@ -29,13 +42,20 @@ public class DemoTask {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("任务被中断: {}", taskName, e);
+            status = TaskResult.Status.INTERRUPTED;
         } catch (Exception e) {
             log.error("任务执行失败: {}", taskName, e);
+            status = TaskResult.Status.FAILED;
+        } finally {
+            taskMetrics.recordExecution(TaskType.RANDOM, startNanos);
         }
+        return CompletableFuture.completedFuture(TaskResult.of(taskName, TaskType.RANDOM, status, startNanos));
     }
 
-    @Async("commonTaskExecutor")
-    public void executeLongRunningTask(String taskName) {
+    @Async("longTaskExecutor")
+    public CompletableFuture<TaskResult> executeLongRunningTask(String taskName) {
+        var startNanos = System.nanoTime();
+        var status = TaskResult.Status.COMPLETED;
         try {
             // 生成长任务，10-30秒
             var executionTime = random.nextInt(21) + 10;
@@ -49,13 +69,20 @@ public class DemoTask {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("长任务被中断: {}", taskName, e);
+            status = TaskResult.Status.INTERRUPTED;
         } catch (Exception e) {
             log.error("长任务执行失败: {}", taskName, e);
+            status = TaskResult.Status.FAILED;
+        } finally {
+            taskMetrics.recordExecution(TaskType.LONG, startNanos);
         }
+        return CompletableFuture.completedFuture(TaskResult.of(taskName, TaskType.LONG, status, startNanos));
     }
 
-    @Async("commonTaskExecutor")
-    public void executeQuickTask(String taskName) {
+    @Async("quickTaskExecutor")
+    public CompletableFuture<TaskResult> executeQuickTask(String taskName) {
+        var startNanos = System.nanoTime();
+        var status = TaskResult.Status.COMPLETED;
         try {
             // 快速任务，0.5-2秒
             var executionTime = random.nextInt(1500) + 500; // 毫秒
@@ -69,8 +96,13 @@ public class DemoTask {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("快速任务被中断: {}", taskName, e);
+            status = TaskResult.Status.INTERRUPTED;
         } catch (Exception e) {
             log.error("快速任务执行失败: {}", taskName, e);
+            status = TaskResult.Status.FAILED;
+        } finally {
+            taskMetrics.recordExecution(TaskType.QUICK, startNanos);
         }
+        return CompletableFuture.completedFuture(TaskResult.of(taskName, TaskType.QUICK, status, startNanos));
     }
 }
\ No newline at end of file
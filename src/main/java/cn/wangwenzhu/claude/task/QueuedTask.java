@@ -0,0 +1,100 @@
+package cn.wangwenzhu.claude.task;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.function.Supplier;
+
+/**
+ * 通道队列中的任务
+ * 提交时记住该任务的取消控制（由 {@link #submitFor} 指定），队列已满且溢出策略为丢弃最早任务时，
+ * 被挤出队列的任务通过 {@link #shed()} 取消其结果，等待该任务的调用方立即得到取消，而不是永远等待
+ * <p>
+ * 出队执行时，已被取消或已超过期限的任务直接丢弃；执行期间登记执行线程，取消或超时时中断该线程。
+ * 通道执行器的任务在开始前被取消或超时时立即从队列中移除，不再占用队列容量
+ */
+public final class QueuedTask implements Runnable {
+
+    private static final ThreadLocal<TaskControl> SUBMITTING = new ThreadLocal<>();
+
+    private final Runnable delegate;
+
+    private final TaskControl control;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private QueuedTask(Runnable delegate, TaskControl control, ThreadPoolTaskExecutor executor) {
+        this.delegate = delegate;
+        this.control = control;
+        this.executor = executor;
+        if (control != null) {
+            control.queued(this);
+        }
+    }
+
+    /**
+     * 任务装饰器，任务不在执行器的队列中排队（虚拟线程执行器）时使用
+     */
+    public static TaskDecorator decorator() {
+        return decorator(null);
+    }
+
+    /**
+     * 通道执行器的任务装饰器，需放在装饰链最外层（队列中保存的就是它）
+     *
+     * @param executor 使用该装饰器的执行器，任务开始前被停止时从它的队列中移除
+     */
+    public static TaskDecorator decorator(ThreadPoolTaskExecutor executor) {
+        return task -> new QueuedTask(task, SUBMITTING.get(), executor);
+    }
+
+    /**
+     * 在当前线程中提交任务，提交过程中进入队列的任务与 {@code control} 关联
+     *
+     * @param control 任务的取消控制
+     * @param submit  提交动作（调用 @Async 方法）
+     */
+    public static <T> T submitFor(TaskControl control, Supplier<T> submit) {
+        SUBMITTING.set(control);
+        try {
+            return submit.get();
+        } finally {
+            SUBMITTING.remove();
+        }
+    }
+
+    /**
+     * 任务被挤出队列，不会再执行
+     */
+    public void shed() {
+        if (control != null) {
+            control.result().cancel(false);
+        }
+    }
+
+    /**
+     * 任务开始前被停止，从执行器的队列中移除
+     * 停止发生在任务入队之前时移除不到，任务出队时仍会被丢弃
+     */
+    void dequeue() {
+        if (executor != null) {
+            executor.getThreadPoolExecutor().remove(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (control == null) {
+            delegate.run();
+            return;
+        }
+        if (!control.begin()) {
+            return;
+        }
+        try {
+            delegate.run();
+        } finally {
+            control.end();
+        }
+    }
+}
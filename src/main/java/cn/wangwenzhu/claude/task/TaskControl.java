@@ -0,0 +1,117 @@
+package cn.wangwenzhu.claude.task;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 单个任务的取消控制
+ * 任务开始执行前被取消或超时时，结果立即完成，任务从通道队列中移除（未能移除时出队后直接丢弃）；
+ * 执行中被取消或超时时中断执行线程，任务响应中断后按取消原因（而不是 INTERRUPTED）完成
+ * <p>
+ * 开始、结束和取消在同一把锁内切换，保证只中断仍在执行该任务的线程
+ */
+public final class TaskControl {
+
+    private final TaskSpec spec;
+
+    private final CompletableFuture<TaskResult> result;
+
+    // 以下字段由this保护
+    private Thread runner;
+
+    private boolean started;
+
+    private TaskResult.Status stopReason;
+
+    private QueuedTask queued;
+
+    public TaskControl(TaskSpec spec, CompletableFuture<TaskResult> result) {
+        this.spec = spec;
+        this.result = result;
+    }
+
+    /**
+     * 任务结果
+     */
+    public CompletableFuture<TaskResult> result() {
+        return result;
+    }
+
+    /**
+     * 停止任务
+     *
+     * @param reason 停止原因，{@link TaskResult.Status#CANCELLED} 或 {@link TaskResult.Status#TIMED_OUT}
+     * @return 是否生效；任务已结束或已被停止时返回false
+     */
+    public boolean stop(TaskResult.Status reason) {
+        synchronized (this) {
+            if (stopReason != null || result.isDone() || (started && runner == null)) {
+                return false;
+            }
+            stopReason = reason;
+            if (started) {
+                runner.interrupt();
+                return true;
+            }
+        }
+        // 尚未开始执行：移出队列，不再占用队列容量
+        result.complete(new TaskResult(spec.taskName(), spec.type(), reason, 0));
+        QueuedTask task;
+        synchronized (this) {
+            task = queued;
+        }
+        if (task != null) {
+            task.dequeue();
+        }
+        return true;
+    }
+
+    /**
+     * 任务是否已开始执行
+     */
+    public synchronized boolean hasStarted() {
+        return started;
+    }
+
+    /**
+     * 按停止原因修正任务结果：被停止的任务以 INTERRUPTED 结束时，改为停止原因
+     */
+    public synchronized TaskResult resolve(TaskResult taskResult) {
+        if (stopReason == null || taskResult == null || taskResult.status() != TaskResult.Status.INTERRUPTED) {
+            return taskResult;
+        }
+        return new TaskResult(taskResult.taskName(), taskResult.type(), stopReason, taskResult.executionMillis());
+    }
+
+    /**
+     * 任务提交到执行器时调用，记住队列中的任务
+     */
+    synchronized void queued(QueuedTask task) {
+        queued = task;
+    }
+
+    /**
+     * 执行线程开始执行前调用
+     *
+     * @return 是否执行；已被停止时返回false
+     */
+    synchronized boolean begin() {
+        if (stopReason != null || result.isDone()) {
+            return false;
+        }
+        started = true;
+        runner = Thread.currentThread();
+        queued = null;
+        return true;
+    }
+
+    /**
+     * 执行线程执行结束后调用，之后不会再中断该线程
+     * 停止时任务可能已执行完毕，清除残留的中断标记，避免影响该线程上的下一个任务
+     */
+    synchronized void end() {
+        runner = null;
+        if (stopReason != null) {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package cn.wangwenzhu.claude.task;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 已提交任务的句柄
+ *
+ * @param taskId  任务ID
+ * @param spec    提交参数
+ * @param control 任务的取消控制
+ */
+public record TaskHandle(long taskId, TaskSpec spec, TaskControl control) {
+
+    /**
+     * 任务结束时完成的结果
+     */
+    public CompletableFuture<TaskResult> result() {
+        return control.result();
+    }
+
+    /**
+     * 任务是否已结束
+     */
+    public boolean isDone() {
+        return control.result().isDone();
+    }
+
+    /**
+     * 取消任务：排队中的任务不再执行，执行中的任务被中断
+     *
+     * @return 是否生效；任务已结束时返回false
+     */
+    public boolean cancel() {
+        return control.stop(TaskResult.Status.CANCELLED);
+    }
+}
@@ -0,0 +1,492 @@
+package cn.wangwenzhu.claude.task;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * 任务日志：内存映射的追加写日志，记录已提交和已结束的任务，重启后恢复未结束的任务
+ * <p>
+ * 日志由固定大小的段文件组成（journal-&lt;序号&gt;.log），每个段整体映射到内存，记录直接写入映射区域：
+ * <pre>
+ *   [int 长度][int CRC32C][byte 类型][long 任务ID][提交记录: 任务类型、任务名称、任务期限]
+ * </pre>
+ * 写入只在内存中完成，由刷盘线程每隔 {@code flushInterval} 对有新记录的段调用一次 force()（组提交），
+ * 需要持久化保证的调用方用 {@link #awaitDurable(long)} 等待包含自己记录的那次刷盘，
+ * 同一刷盘间隔内的所有提交共享一次fsync
+ * <p>
+ * 段写满后切换到新段；段中提交的任务全部结束、且之前的段都已删除后删除该段
+ * （段中可能有更早的段中任务的结束记录，更早的段还在时删除会让这些任务在重启后重新执行）。打开日志时读取全部段，
+ * 未结束的任务重新写入新段并刷盘后删除旧段，末尾不完整或校验失败的记录（写入中途崩溃）被忽略。
+ * 恢复语义为至少一次：任务执行完成但结束记录尚未刷盘时崩溃，重启后会再次执行
+ * <p>
+ * 线程安全
+ */
+@Slf4j
+public class TaskJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte SUBMITTED = 1;
+
+    private static final byte COMPLETED = 2;
+
+    // 长度 + 校验和
+    private static final int RECORD_HEADER = 8;
+
+    // 单条记录体的最大长度
+    private static final int MAX_RECORD_BODY = 64 * 1024;
+
+    private final Path dir;
+
+    private final int segmentSize;
+
+    private final long flushIntervalNanos;
+
+    // 以下字段由appendLock保护
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final Map<Long, Segment> pendingSegments = new HashMap<>();
+
+    // 尚未删除的段，按序号排列，最后一个是当前段
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+    private Segment current;
+
+    private long nextSegmentIndex;
+
+    private final CRC32C crc = new CRC32C();
+
+    private final ByteBuffer scratch;
+
+    // 已写入的记录序号（append时在appendLock内递增）
+    private volatile long appendedSeq;
+
+    // 已刷盘的记录序号，变化时在flushMonitor上通知
+    private volatile long durableSeq;
+
+    private final Object flushMonitor = new Object();
+
+    private final AtomicLong flushCount = new AtomicLong();
+
+    private final List<PendingTask> recovered;
+
+    private final long maxRecoveredTaskId;
+
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    /**
+     * 未结束的任务
+     */
+    public record PendingTask(long taskId, TaskSpec spec) {
+    }
+
+    /**
+     * 一个段文件
+     */
+    private static final class Segment {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        // 本段中尚未结束的任务数
+        private int live;
+
+        // 最后一次写入时的记录序号，大于已刷盘序号时需要刷盘
+        private long lastSeq;
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private TaskJournal(Path dir, int segmentSize, Duration flushInterval) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), flushInterval.toNanos());
+        this.scratch = ByteBuffer.allocate(Math.min(MAX_RECORD_BODY, segmentSize - RECORD_HEADER - Integer.BYTES));
+
+        Files.createDirectories(dir);
+        var oldSegments = listSegments();
+        var pending = new LinkedHashMap<Long, TaskSpec>();
+        var maxTaskId = 0L;
+        for (var path : oldSegments) {
+            maxTaskId = Math.max(maxTaskId, readSegment(path, pending));
+        }
+        nextSegmentIndex = oldSegments.isEmpty() ? 0 : segmentIndexOf(oldSegments.getLast()) + 1;
+        current = openSegment();
+
+        // 未结束的任务写入新段并刷盘后，旧段不再需要
+        var recoveredTasks = new ArrayList<PendingTask>(pending.size());
+        for (var entry : pending.entrySet()) {
+            recordSubmitted(entry.getKey(), entry.getValue());
+            recoveredTasks.add(new PendingTask(entry.getKey(), entry.getValue()));
+        }
+        flush();
+        for (var path : oldSegments) {
+            Files.delete(path);
+        }
+        this.recovered = Collections.unmodifiableList(recoveredTasks);
+        this.maxRecoveredTaskId = maxTaskId;
+
+        flusher = Thread.ofPlatform().name("task-journal-flusher").daemon().start(this::flushLoop);
+        if (!oldSegments.isEmpty()) {
+            log.info("任务日志恢复完成: {} 个段文件, {} 个未结束的任务", oldSegments.size(), recoveredTasks.size());
+        }
+    }
+
+    /**
+     * 打开任务日志并恢复未结束的任务
+     *
+     * @param dir           日志目录，不存在时创建
+     * @param segmentSize   段文件大小（字节）
+     * @param flushInterval 组提交的刷盘间隔
+     */
+    public static TaskJournal open(Path dir, int segmentSize, Duration flushInterval) throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("段文件大小不能小于4KB: " + segmentSize);
+        }
+        return new TaskJournal(dir, segmentSize, flushInterval);
+    }
+
+    /**
+     * 打开时恢复的未结束任务，按提交顺序排列；这些任务已重新写入日志，调用方只需重新执行
+     */
+    public List<PendingTask> recoveredTasks() {
+        return recovered;
+    }
+
+    /**
+     * 日志中出现过的最大任务ID，新任务的ID应大于该值
+     */
+    public long maxRecoveredTaskId() {
+        return maxRecoveredTaskId;
+    }
+
+    /**
+     * 累计刷盘次数
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * 记录已提交的任务
+     *
+     * @return 记录序号，传给 {@link #awaitDurable(long)} 等待其刷盘
+     */
+    public long recordSubmitted(long taskId, TaskSpec spec) {
+        appendLock.lock();
+        try {
+            scratch.clear();
+            scratch.put(SUBMITTED).putLong(taskId);
+            putString(spec.type().name());
+            putString(spec.taskName());
+            scratch.putLong(spec.timeoutMs());
+            var segment = append();
+            segment.live++;
+            pendingSegments.put(taskId, segment);
+            return appendedSeq;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 记录已结束的任务，不等待刷盘；日志关闭后调用时忽略（任务在重启后重新执行）
+     */
+    public void recordCompleted(long taskId) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            var segment = pendingSegments.remove(taskId);
+            if (segment == null) {
+                return;
+            }
+            scratch.clear();
+            scratch.put(COMPLETED).putLong(taskId);
+            append();
+
+            if (--segment.live == 0) {
+                releaseSegments();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 等待指定序号及之前的记录刷盘
+     *
+     * @return 是否已刷盘（日志关闭时返回false）
+     */
+    public boolean awaitDurable(long seq) throws InterruptedException {
+        if (durableSeq >= seq) {
+            return true;
+        }
+        synchronized (flushMonitor) {
+            while (durableSeq < seq && !closed) {
+                flushMonitor.wait();
+            }
+        }
+        return durableSeq >= seq;
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        appendLock.lock();
+        try {
+            flush();
+            for (var segment : segments) {
+                if (segment.channel.isOpen()) {
+                    segment.channel.close();
+                }
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * 将scratch中的记录体写入当前段，空间不足时切换到新段（调用方持有appendLock）
+     */
+    private Segment append() {
+        if (closed) {
+            throw new IllegalStateException("任务日志已关闭");
+        }
+        scratch.flip();
+        var bodyLength = scratch.remaining();
+        if (current.buffer.remaining() < RECORD_HEADER + bodyLength + Integer.BYTES) {
+            rollSegment();
+        }
+
+        crc.reset();
+        crc.update(scratch.duplicate());
+        // 先写记录体和校验和，最后写长度：崩溃时读到的长度为0或记录完整
+        var buffer = current.buffer;
+        var start = buffer.position();
+        buffer.position(start + RECORD_HEADER);
+        buffer.put(scratch);
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(start, bodyLength);
+
+        current.lastSeq = ++appendedSeq;
+        return current;
+    }
+
+    private void putString(String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (scratch.remaining() < Integer.BYTES + bytes.length) {
+            throw new IllegalArgumentException("任务记录过长: " + bytes.length + " 字节");
+        }
+        scratch.putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * 当前段写满：刷盘后切换到新段（调用方持有appendLock）
+     */
+    private void rollSegment() {
+        var full = current;
+        full.buffer.force();
+        try {
+            current = openSegment();
+            full.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建任务日志段失败", e);
+        }
+        releaseSegments();
+    }
+
+    /**
+     * 从最早的段开始删除任务全部结束且不再写入的段，遇到仍有未结束任务的段时停止：
+     * 之后的段可能有该段中任务的结束记录（调用方持有appendLock）
+     */
+    private void releaseSegments() {
+        while (segments.peekFirst() != current && segments.peekFirst().live == 0) {
+            deleteSegment(segments.pollFirst());
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        var index = nextSegmentIndex++;
+        var path = dir.resolve(SEGMENT_PREFIX + String.format("%016d", index) + SEGMENT_SUFFIX);
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // 映射时文件扩展到段大小，未写入的部分为0
+        var segment = new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void deleteSegment(Segment segment) {
+        try {
+            if (segment.channel.isOpen()) {
+                segment.channel.close();
+            }
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("删除任务日志段失败: {}, {}", segment.path, e.getMessage());
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // 刷盘失败时等待下一个间隔重试，等待中的调用方继续等待
+                log.error("任务日志刷盘失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 刷盘当前段中的新记录，并通知等待的调用方
+     */
+    private void flush() {
+        Segment segment;
+        long target;
+        appendLock.lock();
+        try {
+            target = appendedSeq;
+            segment = current;
+        } finally {
+            appendLock.unlock();
+        }
+        if (target == durableSeq) {
+            return;
+        }
+
+        // 已切换走的段在切换时刷过盘；force与写入其他区域可以并发
+        if (segment.lastSeq > durableSeq) {
+            segment.buffer.force();
+        }
+        flushCount.incrementAndGet();
+        synchronized (flushMonitor) {
+            durableSeq = target;
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(path -> {
+                        var name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentIndexOf(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 读取一个段文件，更新未结束的任务
+     *
+     * @return 段中出现的最大任务ID
+     */
+    private long readSegment(Path path, Map<Long, TaskSpec> pending) throws IOException {
+        var maxTaskId = 0L;
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        var checksum = new CRC32C();
+        while (buffer.remaining() >= RECORD_HEADER) {
+            var start = buffer.position();
+            var length = buffer.getInt();
+            var expected = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            var body = buffer.slice(buffer.position(), length);
+            checksum.reset();
+            checksum.update(body.duplicate());
+            if ((int) checksum.getValue() != expected) {
+                log.warn("任务日志记录校验失败，忽略该段的剩余内容: {}, 位置 {}", path.getFileName(), start);
+                break;
+            }
+            buffer.position(buffer.position() + length);
+
+            try {
+                var kind = body.get();
+                var taskId = body.getLong();
+                maxTaskId = Math.max(maxTaskId, taskId);
+                if (kind == SUBMITTED) {
+                    var type = TaskType.valueOf(getString(body));
+                    var taskName = getString(body);
+                    // 没有任务期限的旧记录使用任务类型的默认期限
+                    var timeoutMs = body.remaining() >= Long.BYTES ? body.getLong() : 0;
+                    pending.put(taskId, new TaskSpec(type, taskName, timeoutMs));
+                } else if (kind == COMPLETED) {
+                    pending.remove(taskId);
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                log.warn("无法解析的任务日志记录，已跳过: {}, 位置 {}", path.getFileName(), start);
+            }
+        }
+        return maxTaskId;
+    }
+
+    private static String getString(ByteBuffer body) {
+        var bytes = new byte[body.getInt()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
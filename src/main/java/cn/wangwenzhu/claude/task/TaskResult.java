@@ -0,0 +1,41 @@
+package cn.wangwenzhu.claude.task;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务执行结果
+ *
+ * @param taskName        任务名称
+ * @param type            任务类型
+ * @param status          结束状态
+ * @param executionMillis 执行耗时（毫秒）
+ */
+public record TaskResult(String taskName, TaskType type, Status status, long executionMillis) {
+
+    /**
+     * 任务结束状态
+     */
+    public enum Status {
+        COMPLETED,
+        INTERRUPTED,
+        FAILED,
+        /**
+         * 被调用方取消
+         */
+        CANCELLED,
+        /**
+         * 超过任务期限
+         */
+        TIMED_OUT
+    }
+
+    /**
+     * 根据开始时间创建结果
+     *
+     * @param startNanos 任务开始执行时的 System.nanoTime()
+     */
+    public static TaskResult of(String taskName, TaskType type, Status status, long startNanos) {
+        return new TaskResult(taskName, type, status,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+}
@@ -0,0 +1,18 @@
+package cn.wangwenzhu.claude.task;
+
+/**
+ * 任务提交参数
+ *
+ * @param type      任务类型
+ * @param taskName  任务名称
+ * @param timeoutMs 任务期限（毫秒，从进入任务通道开始计算，包括排队时间），0表示使用任务类型的默认期限
+ */
+public record TaskSpec(TaskType type, String taskName, long timeoutMs) {
+
+    /**
+     * 使用任务类型默认期限的任务参数
+     */
+    public TaskSpec(TaskType type, String taskName) {
+        this(type, taskName, 0);
+    }
+}
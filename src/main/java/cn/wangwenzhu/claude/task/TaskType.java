@@ -0,0 +1,32 @@
+package cn.wangwenzhu.claude.task;
+
+/**
+ * 演示任务类型
+ */
+public enum TaskType {
+
+    /**
+     * 快速任务，0.5-2秒
+     */
+    QUICK("快速任务"),
+
+    /**
+     * 随机任务，1-10秒
+     */
+    RANDOM("随机任务"),
+
+    /**
+     * 长任务，10-30秒
+     */
+    LONG("长任务");
+
+    private final String displayName;
+
+    TaskType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
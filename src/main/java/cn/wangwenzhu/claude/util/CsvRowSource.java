@@ -0,0 +1,169 @@
+package cn.wangwenzhu.claude.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Executor;
+
+/**
+ * csv数据源
+ * 整个文件作为一个工作表（名称为去掉扩展名的文件名），按RFC 4180解析：
+ * 逗号分隔，双引号包围的字段可以包含逗号和换行，字段内的双引号写作两个双引号
+ * <p>
+ * 编码：文件开头 {@value #CHARSET_PROBE_BYTES} 字节是合法UTF-8时按UTF-8读取，否则按GBK读取（Excel中文版默认的csv编码）；
+ * UTF-8 BOM会被去除
+ */
+final class CsvRowSource implements RowSource {
+
+    static final int CHARSET_PROBE_BYTES = 64 * 1024;
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String fileName;
+
+    private final InputSupplier input;
+
+    /**
+     * 打开输入流，读取时才调用
+     */
+    @FunctionalInterface
+    private interface InputSupplier {
+        InputStream open() throws IOException;
+    }
+
+    CsvRowSource(File file) {
+        this(file.getName(), () -> Files.newInputStream(file.toPath()));
+    }
+
+    /**
+     * 从输入流读取（只能读取一次），流由本数据源关闭
+     *
+     * @param in       输入流
+     * @param fileName 文件名，用作工作表名称
+     */
+    CsvRowSource(InputStream in, String fileName) {
+        this(fileName, () -> in);
+    }
+
+    private CsvRowSource(String fileName, InputSupplier input) {
+        this.fileName = fileName;
+        this.input = input;
+    }
+
+    @Override
+    public void read(SheetHandlerFactory handlers, Executor executor) throws IOException {
+        var dot = fileName.lastIndexOf('.');
+        var handler = handlers.sheetStarted(0, dot > 0 ? fileName.substring(0, dot) : fileName);
+
+        // 标记开头用于判断编码，判断后回到开头，文件只读取一遍
+        try (var in = new BufferedInputStream(input.open(), BUFFER_SIZE)) {
+            in.mark(CHARSET_PROBE_BYTES);
+            var charset = detectCharset(in.readNBytes(CHARSET_PROBE_BYTES));
+            in.reset();
+            parse(new BufferedReader(new InputStreamReader(in, charset), BUFFER_SIZE), handler);
+        }
+    }
+
+    /**
+     * 解析csv内容，非空字段回调为单元格；空行也作为一行回调
+     */
+    static void parse(Reader in, SheetRowHandler handler) throws IOException {
+        var field = new StringBuilder();
+        var row = 0;
+        var column = 0;
+        var rowStarted = false;
+        var inQuotes = false;
+
+        var c = in.read();
+        if (c == '\uFEFF') {
+            c = in.read();
+        }
+        while (c != -1) {
+            if (inQuotes) {
+                if (c == '"') {
+                    c = in.read();
+                    if (c == '"') {
+                        field.append('"');
+                        c = in.read();
+                    } else {
+                        // 引号结束，当前字符按非引号状态处理
+                        inQuotes = false;
+                    }
+                    continue;
+                }
+                field.append((char) c);
+                c = in.read();
+                continue;
+            }
+
+            if (!rowStarted) {
+                handler.startRow(row);
+                rowStarted = true;
+            }
+            switch (c) {
+                case '"' -> {
+                    if (field.isEmpty()) {
+                        inQuotes = true;
+                    } else {
+                        field.append('"');
+                    }
+                }
+                case ',' -> {
+                    emitField(handler, column++, field);
+                }
+                case '\r', '\n' -> {
+                    emitField(handler, column, field);
+                    handler.endRow(row++);
+                    column = 0;
+                    rowStarted = false;
+                    if (c == '\r') {
+                        c = in.read();
+                        if (c == '\n') {
+                            c = in.read();
+                        }
+                        continue;
+                    }
+                }
+                default -> field.append((char) c);
+            }
+            c = in.read();
+        }
+
+        // 最后一行没有换行符
+        if (rowStarted) {
+            emitField(handler, column, field);
+            handler.endRow(row);
+        }
+    }
+
+    private static void emitField(SheetRowHandler handler, int column, StringBuilder field) {
+        if (!field.isEmpty()) {
+            handler.cell(column, field.toString());
+            field.setLength(0);
+        }
+    }
+
+    /**
+     * 根据文件开头的内容判断编码
+     */
+    private static Charset detectCharset(byte[] head) {
+        var decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        // 截断在多字节字符中间不算错误，只检查已完整读取的部分
+        var result = decoder.decode(ByteBuffer.wrap(head), CharBuffer.allocate(head.length), head.length < CHARSET_PROBE_BYTES);
+        return result.isError() ? GBK : StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,188 @@
+package cn.wangwenzhu.claude.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 设备查询SQL流式写入工具类
+ * 对十进制设备号去重后按固定大小分块，逐条写入 .sql 文件，不在内存中拼接完整语句
+ */
+@Slf4j
+public class DeviceSqlWriter implements Closeable {
+
+    /**
+     * SQL输出格式
+     */
+    public enum Format {
+        /**
+         * 分块的 SELECT ... WHERE device_no IN (...) 查询语句
+         */
+        IN_LIST,
+        /**
+         * 临时表 + 分块 INSERT ... VALUES 批量装载，最后通过 JOIN 查询
+         */
+        VALUES_TABLE
+    }
+
+    /**
+     * SQL输出选项
+     *
+     * @param chunkSize 每条语句包含的最大设备号数量
+     * @param format    输出格式
+     */
+    public record Options(int chunkSize, Format format) {
+
+        public static final Options DEFAULT = new Options(1000, Format.IN_LIST);
+
+        public Options {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize必须大于0: " + chunkSize);
+            }
+        }
+    }
+
+    private static final String TABLE_NAME = "sop_position_info";
+
+    private static final String TEMP_TABLE_NAME = "tmp_device_no";
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final String outputPath;
+
+    private final Options options;
+
+    private final Writer writer;
+
+    private final IntHashSet seen = new IntHashSet(1024);
+
+    // 十进制数值格式化缓冲区
+    private final char[] digits = new char[10];
+
+    private int chunkFill;
+
+    private int statementCount;
+
+    private int duplicateCount;
+
+    public DeviceSqlWriter(String outputPath, Options options) throws IOException {
+        this.outputPath = outputPath;
+        this.options = options;
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Path.of(outputPath)), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+
+        if (options.format() == Format.VALUES_TABLE) {
+            writer.write("CREATE TEMPORARY TABLE " + TEMP_TABLE_NAME + " (device_no VARCHAR(10) PRIMARY KEY);\n");
+        }
+    }
+
+    /**
+     * 根据CSV导出路径得到对应的SQL文件路径
+     *
+     * @param csvPath CSV文件路径
+     * @return 同名的 .sql 文件路径
+     */
+    public static String sqlPathFor(String csvPath) {
+        return IPExporter.siblingPath(csvPath, ".sql");
+    }
+
+    /**
+     * 添加一个十进制设备号，无效值忽略
+     *
+     * @param decimalValue 十进制数值字符串
+     */
+    public void add(String decimalValue) throws IOException {
+        var value = IPConverter.parseDecimal(decimalValue);
+        if (value != IPConverter.INVALID) {
+            add(value);
+        }
+    }
+
+    /**
+     * 添加一个设备号（IPv4数值），重复值忽略
+     *
+     * @param value 0 ~ 4294967295 范围内的数值
+     */
+    public void add(long value) throws IOException {
+        if (!seen.add((int) value)) {
+            duplicateCount++;
+            return;
+        }
+
+        if (chunkFill == 0) {
+            writer.write(options.format() == Format.IN_LIST
+                    ? "SELECT * FROM " + TABLE_NAME + " WHERE device_no IN ("
+                    : "INSERT INTO " + TEMP_TABLE_NAME + " (device_no) VALUES ");
+        } else {
+            writer.write(',');
+        }
+
+        if (options.format() == Format.IN_LIST) {
+            writer.write('\'');
+            writeDecimal(value);
+            writer.write('\'');
+        } else {
+            writer.write("('");
+            writeDecimal(value);
+            writer.write("')");
+        }
+
+        if (++chunkFill == options.chunkSize()) {
+            finishStatement();
+        }
+    }
+
+    /**
+     * 去重后的设备号数量
+     */
+    public int getUniqueCount() {
+        return seen.size();
+    }
+
+    /**
+     * 被去除的重复设备号数量
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (chunkFill > 0) {
+                finishStatement();
+            }
+            if (options.format() == Format.VALUES_TABLE) {
+                writer.write("SELECT p.* FROM " + TABLE_NAME + " p JOIN " + TEMP_TABLE_NAME
+                        + " t ON p.device_no = t.device_no;\n");
+            }
+        } finally {
+            writer.close();
+        }
+
+        log.info("SQL语句已写入: {} (格式: {}, {}条语句, {}个设备号, 去除重复{}个)",
+                outputPath, options.format(), statementCount, getUniqueCount(), duplicateCount);
+    }
+
+    private void finishStatement() throws IOException {
+        writer.write(options.format() == Format.IN_LIST ? ");\n" : ";\n");
+        chunkFill = 0;
+        statementCount++;
+    }
+
+    private void writeDecimal(long value) throws IOException {
+        var pos = digits.length;
+        do {
+            digits[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        writer.write(digits, pos, digits.length - pos);
+    }
+}
@@ -0,0 +1,65 @@
+package cn.wangwenzhu.claude.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * DOM数据源
+ * 通过WorkbookFactory加载完整的工作簿（同时支持xlsx和xls），依次回调全部工作表，兼容性最好，
+ * 内存占用随文件大小增长。忽略执行器参数
+ */
+final class DomRowSource implements RowSource {
+
+    private final File file;
+
+    DomRowSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void read(SheetHandlerFactory handlers, Executor executor) throws IOException {
+        try (var workbook = WorkbookFactory.create(file, null, true)) {
+            for (var i = 0; i < workbook.getNumberOfSheets(); i++) {
+                var sheet = workbook.getSheetAt(i);
+                var handler = handlers.sheetStarted(i, sheet.getSheetName());
+                for (var row : sheet) {
+                    handler.startRow(row.getRowNum());
+                    for (var cell : row) {
+                        handler.cell(cell.getColumnIndex(), getCellValueAsString(cell));
+                    }
+                    handler.endRow(row.getRowNum());
+                }
+            }
+        }
+    }
+
+    static String getCellValueAsString(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+
+        switch (cell.getCellType()) {
+            case STRING:
+                return cell.getStringCellValue();
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return cell.getDateCellValue().toString();
+                } else {
+                    return String.valueOf(cell.getNumericCellValue());
+                }
+            case BOOLEAN:
+                return String.valueOf(cell.getBooleanCellValue());
+            case FORMULA:
+                return cell.getCellFormula();
+            case BLANK:
+                return "";
+            default:
+                return cell.toString();
+        }
+    }
+}
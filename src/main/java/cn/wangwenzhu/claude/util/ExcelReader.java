@@ -1,185 +1,563 @@
 package cn.wangwenzhu.claude.util;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class ExcelReader {
 
-    private static final IPExporter exporter = new IPExporter();
+    /**
+     * Excel读取模式
+     */
+    public enum ReadMode {
+        /**
+         * 基于SAX事件模型流式读取，内存占用有上限
+         */
+        STREAMING,
+        /**
+         * 加载完整的工作簿对象（xlsx / xls），兼容性最好
+         */
+        DOM
+    }
 
-    public static void readExcelFile(String filePath) {
-        // 提取文件名
-        var fileName = new File(filePath).getName();
-        try (var fis = new FileInputStream(filePath);
-             var workbook = new XSSFWorkbook(fis)) {
+    /**
+     * 提取逻辑版本，修改列识别或单元格取值逻辑时需递增，使提取结果缓存失效
+     */
+    public static final int EXTRACTION_VERSION = 3;
 
-            log.info("开始读取Excel文件: {}", fileName);
+    /**
+     * 缓存命中时汇总中使用的工作表名称
+     */
+    private static final String CACHED_SHEET_NAME = "(缓存)";
 
-            // 获取第一个工作表
-            var sheet = workbook.getSheetAt(0);
-            log.info("工作表名称: {}", sheet.getSheetName());
+    /**
+     * 工作表读取结果
+     *
+     * @param sheetName       工作表名称
+     * @param hostColumnIndex 通讯主机号列索引，-1表示无法确定（缓存命中时也为-1）
+     * @param hostCount       读取到的通讯主机号数量
+     */
+    public record SheetSummary(String sheetName, int hostColumnIndex, int hostCount) {
+    }
 
-            // 获取标题行，找到"通讯主机号"列的索引（也可能是第一列）
-            var headerRow = sheet.getRow(0);
-            int commHostColumnIndex = -1;
+    /**
+     * 一次处理任务的结果
+     *
+     * @param fileCount   找到的文件数
+     * @param failedFiles 读取出错的文件数
+     * @param sheetCount  读取的工作表数（缓存命中的文件计为1个）
+     * @param hostCount   读取到的通讯主机号数量
+     * @param cacheHits   使用缓存结果的文件数
+     * @param exported    是否完成导出
+     */
+    public record JobResult(int fileCount, int failedFiles, int sheetCount, int hostCount, int cacheHits,
+                            boolean exported) {
 
-            if (headerRow != null) {
-                // 首先尝试找到确切的"通讯主机号"列
-                for (Cell cell : headerRow) {
-                    String cellValue = getCellValueAsString(cell);
-                    if ("通讯主机号".equals(cellValue)) {
-                        commHostColumnIndex = cell.getColumnIndex();
-                        break;
-                    }
-                }
+        static final JobResult EMPTY = new JobResult(0, 0, 0, 0, 0, false);
+    }
 
-                // 如果没找到确切的匹配，检查是否包含"通讯"关键字
-                if (commHostColumnIndex == -1) {
-                    for (Cell cell : headerRow) {
-                        String cellValue = getCellValueAsString(cell);
-                        if (cellValue.contains("通讯")) {
-                            commHostColumnIndex = cell.getColumnIndex();
-                            break;
-                        }
-                    }
-                }
+    /**
+     * 单个文件的读取结果
+     *
+     * @param records 该文件的记录
+     * @param sheets  各工作表的读取结果，读取出错时为null
+     */
+    public record FileResult(IPExporter records, List<SheetSummary> sheets) {
 
-                // 如果还是没找到，默认使用第一列
-                if (commHostColumnIndex == -1 && headerRow.getCell(0) != null) {
-                    commHostColumnIndex = 0;
-                    log.info("提示: 使用第一列作为通讯主机号列");
+        public boolean succeeded() {
+            return sheets != null;
+        }
+    }
+
+    /**
+     * 默认的输入目录
+     */
+    public static final String DEFAULT_INPUT_DIR = "src/main/resources/templates/";
+
+    /**
+     * 默认的CSV导出路径
+     */
+    public static final String DEFAULT_OUTPUT_PATH = "IP地址导出.csv";
+
+    private final ReadMode readMode;
+
+    private final IPExporter.ExportMode exportMode;
+
+    private final IPExporter.ExportOptions exportOptions;
+
+    private final AsyncTaskExecutor taskExecutor;
+
+    private final int parallelism;
+
+    private final ExtractionCache cache;
+
+    private final int rowSampleInterval;
+
+    public ExcelReader() {
+        this(ReadMode.STREAMING);
+    }
+
+    public ExcelReader(ReadMode readMode) {
+        this(readMode, IPExporter.ExportMode.BUFFERED, IPExporter.ExportOptions.DEFAULT, null, 1, null, 0);
+    }
+
+    /**
+     * @param readMode     读取模式
+     * @param exportMode   导出模式
+     * @param exportOptions 导出选项（SQL文件、IP索引、去重）
+     * @param taskExecutor 并行读取文件和工作表使用的线程池，为null时顺序读取；流式导出时不使用（逐个文件、逐个工作表顺序读取）
+     * @param parallelism  同时读取的最大文件数（流式导出时不使用）
+     * @param cache        提取结果缓存，为null时每次都重新解析
+     * @param rowSampleInterval 每读取这么多条通讯主机号以INFO级别输出一条，0表示不抽样（见 {@link ExtractionProgress}）
+     */
+    public ExcelReader(ReadMode readMode, IPExporter.ExportMode exportMode, IPExporter.ExportOptions exportOptions,
+                       AsyncTaskExecutor taskExecutor, int parallelism, ExtractionCache cache, int rowSampleInterval) {
+        this.readMode = readMode;
+        this.exportMode = exportMode;
+        this.exportOptions = exportOptions;
+        this.taskExecutor = taskExecutor;
+        this.parallelism = Math.max(1, parallelism);
+        this.cache = cache;
+        this.rowSampleInterval = rowSampleInterval;
+    }
+
+    /**
+     * 读取文件全部工作表中的通讯主机号
+     *
+     * @param filePath 文件路径
+     * @param readMode 读取模式
+     * @param target   接收读取结果的导出器
+     * @return 是否完整读取（读取出错时返回false）
+     */
+    public static boolean readExcelFile(String filePath, ReadMode readMode, IPExporter target) {
+        return readWorkbook(new File(filePath), readMode, target, null, 0) != null;
+    }
+
+    /**
+     * 读取文件全部工作表中的通讯主机号，支持 .xlsx / .xls / .csv
+     * 流式模式失败且尚未产生任何记录时，自动回退到DOM模式（csv没有DOM模式）
+     * <p>
+     * 指定工作表执行器时，较大的xlsx文件的多个工作表并行解析，每个工作表写入独立的缓冲区，
+     * 全部解析成功后按工作表顺序合并，导出顺序与顺序读取一致
+     *
+     * @param file          文件
+     * @param readMode      读取模式
+     * @param target        接收读取结果的导出器
+     * @param sheetExecutor 并行解析工作表使用的执行器，为null时顺序解析
+     * @param rowSampleInterval 抽样输出间隔（条），0表示不抽样
+     * @return 各工作表的读取结果，读取出错时返回null
+     */
+    public static List<SheetSummary> readWorkbook(File file, ReadMode readMode, IPExporter target, Executor sheetExecutor,
+                                                  int rowSampleInterval) {
+        return readWorkbook(file, readMode, target, sheetExecutor, rowSampleInterval, null);
+    }
+
+    /**
+     * @param recorder 同时接收提取记录的缓存记录器，为null时不记录；指定时不能并行解析工作表（记录顺序须与导出顺序一致）
+     */
+    private static List<SheetSummary> readWorkbook(File file, ReadMode readMode, IPExporter target, Executor sheetExecutor,
+                                                   int rowSampleInterval, ExtractionCache.Recorder recorder) {
+        var fileName = file.getName();
+        var isCsv = fileName.toLowerCase(Locale.ROOT).endsWith(".csv");
+        if (readMode == ReadMode.STREAMING || isCsv) {
+            var recordCountBefore = target.getRecordCount();
+            try {
+                return readWorkbook(file, RowSource.streaming(file), target, sheetExecutor, rowSampleInterval, recorder);
+            } catch (IOException | RuntimeException e) {
+                if (isCsv || target.getRecordCount() > recordCountBefore) {
+                    log.error("流式读取文件失败: {}, {}", fileName, e.getMessage(), e);
+                    return null;
+                }
+                log.warn("流式读取Excel文件失败，回退到DOM模式: {}, {}", fileName, e.getMessage());
+                if (recorder != null) {
+                    recorder.restart();
                 }
             }
+        }
+
+        try {
+            return readWorkbook(file, RowSource.dom(file), target, null, rowSampleInterval, recorder);
+        } catch (IOException | RuntimeException e) {
+            log.error("读取Excel文件时发生错误: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static List<SheetSummary> readWorkbook(File file, RowSource source, IPExporter target, Executor sheetExecutor,
+                                                   int rowSampleInterval, ExtractionCache.Recorder recorder)
+            throws IOException {
+        var fileName = file.getName();
+        log.info("开始读取Excel文件: {}", fileName);
+        var progress = new ExtractionProgress(fileName, rowSampleInterval);
 
-            if (commHostColumnIndex == -1) {
+        // 工作表可能在不同线程中开始，按序号保存
+        var sheets = new ConcurrentSkipListMap<Integer, SheetReading>();
+        source.read((sheetIndex, sheetName) -> {
+            var buffer = sheetExecutor != null ? new IPExporter() : null;
+            var sheetTarget = buffer != null ? buffer : target;
+            var collector = new HostRowCollector(ip -> addHost(sheetTarget, fileName, ip, progress, recorder));
+            sheets.put(sheetIndex, new SheetReading(sheetName, collector, buffer));
+            return collector;
+        }, sheetExecutor);
+
+        var summaries = new ArrayList<SheetSummary>(sheets.size());
+        for (var sheet : sheets.values()) {
+            if (sheet.buffer() != null) {
+                target.addAll(sheet.buffer());
+            }
+
+            var collector = sheet.collector();
+            log.info("工作表名称: {}", sheet.sheetName());
+            if (collector.getHostColumnIndex() == -1) {
                 log.warn("无法确定通讯主机号列");
-                return;
+            } else {
+                if (collector.isFirstColumnFallback()) {
+                    log.info("提示: 使用第一列作为通讯主机号列");
+                }
+                log.info("共找到 {} 个通讯主机号", collector.getHostCount());
             }
+            summaries.add(new SheetSummary(sheet.sheetName(), collector.getHostColumnIndex(), collector.getHostCount()));
+        }
 
-            log.info("通讯主机号列表:");
+        progress.finish(summaries.size());
+        return summaries;
+    }
 
-            // 遍历所有数据行，只打印通讯主机号列
-            var isFirstRow = true;
-            var dataRowCount = 0;
-            for (var row : sheet) {
-                // 跳过标题行
-                if (isFirstRow) {
-                    isFirstRow = false;
-                    continue;
-                }
+    /**
+     * 正在读取的工作表
+     *
+     * @param buffer 并行解析时的工作表缓冲区，顺序解析时为null（直接写入目标导出器）
+     */
+    private record SheetReading(String sheetName, HostRowCollector collector, IPExporter buffer) {
+    }
 
-                // 尝试多种方式获取单元格数据
-                var cellValue = "";
-                var cell = row.getCell(commHostColumnIndex);
-
-                if (cell != null) {
-                    cellValue = getCellValueAsString(cell);
-                } else {
-                    // 如果getCell返回null，尝试使用getCell的另一种方式
-                    try {
-                        cell = row.getCell(commHostColumnIndex, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-                        if (cell != null) {
-                            cellValue = getCellValueAsString(cell);
-                        }
-                    } catch (Exception e) {
-                        // 忽略异常
-                    }
-                }
+    private static void addHost(IPExporter target, String fileName, String ip, ExtractionProgress progress,
+                                ExtractionCache.Recorder recorder) {
+        var decimal = IPConverter.ipToDecimal(ip);
+        progress.record(ip, decimal);
+        if (recorder != null) {
+            recorder.add(ip);
+        }
 
-                // 如果还是为空，尝试遍历该行所有非空单元格来查找可能的IP地址
-                if (cellValue.isEmpty() || cellValue.trim().isEmpty()) {
-                    for (Cell rowCell : row) {
-                        String rowCellValue = getCellValueAsString(rowCell);
-                        // 检查是否是IP地址格式
-                        if (rowCellValue.matches(".*\\d+\\.\\d+\\.\\d+\\.\\d+.*")) {
-                            cellValue = rowCellValue;
-                            break;
-                        }
-                    }
-                }
+        // 添加到导出列表
+        target.addIPEntry(fileName, ip, decimal);
+    }
+
+    public void list() {
+        process(Path.of(DEFAULT_INPUT_DIR), DEFAULT_OUTPUT_PATH);
+    }
 
-                if (!cellValue.trim().isEmpty()) {
-                    var ip = cellValue.trim();
-                    var decimal = IPConverter.ipToDecimal(ip);
-                    var formattedOutput = ip + " -> " + decimal;
-                    log.info("  {}", formattedOutput);
+    /**
+     * 执行一次处理任务：读取输入目录中的全部文件并导出
+     * 每次调用使用独立的导出器和结果缓冲区，调用结束后全部释放；
+     * 实例本身只保存配置，可以被多个任务同时调用（输出路径不能相同）
+     *
+     * @param inputDir   输入目录
+     * @param outputPath CSV导出路径（SQL和索引文件写在同一目录）
+     * @return 任务结果
+     */
+    public JobResult process(Path inputDir, String outputPath) {
+        var templatesDir = inputDir.toFile();
 
-                    // 添加到导出列表
-                    exporter.addIPEntry(fileName, ip, decimal);
-                    dataRowCount++;
+        if (!templatesDir.exists() || !templatesDir.isDirectory()) {
+            log.warn("输入目录不存在: {}", inputDir);
+            return JobResult.EMPTY;
+        }
+
+        // 获取所有支持的文件（xlsx / xls / csv），跳过Office的临时锁文件
+        var files = templatesDir.listFiles((dir, name) -> RowSource.isSupported(name));
+
+        if (files == null || files.length == 0) {
+            log.info("没有找到Excel文件");
+            return JobResult.EMPTY;
+        }
+
+        // 按文件名排序，保证导出顺序稳定
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        log.info("找到 {} 个Excel文件", files.length);
+        var job = new ReadJob();
+
+        if (exportMode == IPExporter.ExportMode.STREAMING) {
+            // 流式导出：读取到的记录直接写入CSV文件
+            try (var streamExporter = IPExporter.streaming(outputPath, exportOptions)) {
+                if (!readExcelFiles(files, streamExporter, job)) {
+                    return job.result(files, false);
                 }
+            } catch (IOException e) {
+                log.error("导出文件时发生错误: {}", e.getMessage(), e);
+                return job.result(files, false);
             }
-            log.info("共找到 {} 个通讯主机号", dataRowCount);
+            log.info("\n=== 导出完成 ===");
+            log.info("文件已保存到: {}", new File(outputPath).getAbsolutePath());
+            return job.finish(files, true);
+        }
+
+        // 读取每个Excel文件，记录只保存在本次任务的导出器中
+        var exporter = new IPExporter();
+        if (!readExcelFiles(files, exporter, job)) {
+            return job.result(files, false);
+        }
+
+        // 导出到CSV文件
+        var exported = exporter.exportToCSV(outputPath, exportOptions);
+        if (exported) {
+            log.info("\n=== 导出完成 ===");
+            log.info("文件已保存到: {}", new File(outputPath).getAbsolutePath());
+        }
+        return job.finish(files, exported);
+    }
+
+    /**
+     * 读取单个文件，启用缓存时优先使用缓存结果，供增量处理使用
+     *
+     * @param file 文件
+     * @return 读取结果，记录保存在独立的导出器中
+     */
+    public FileResult readFile(File file) {
+        var records = new IPExporter();
+        return new FileResult(records, readExcelFileCached(file, records, new ReadJob()));
+    }
 
-            log.info("=== 文件读取完成 ===\n");
+    /**
+     * 按给定顺序合并各文件的记录并导出CSV（以及SQL和索引文件），不受导出模式影响
+     * 没有任何记录时（例如常驻模式下输入文件全部被删除）写出只有标题行的CSV和空的SQL、索引文件，
+     * 覆盖上一次的导出结果
+     *
+     * @param fileRecords 各文件的记录，按导出顺序排列
+     * @param outputPath  CSV导出路径
+     * @return 是否导出成功
+     */
+    public boolean export(Collection<IPExporter> fileRecords, String outputPath) {
+        var exporter = new IPExporter();
+        for (var records : fileRecords) {
+            exporter.addAll(records);
+        }
+        if (exporter.getRecordCount() > 0) {
+            return exporter.exportToCSV(outputPath, exportOptions);
+        }
 
+        // 流式导出器打开时即写入标题行，不添加记录直接关闭
+        try {
+            IPExporter.streaming(outputPath, exportOptions).close();
+            return true;
         } catch (IOException e) {
-            log.error("读取Excel文件时发生错误: {}", e.getMessage(), e);
+            log.error("导出文件时发生错误: {}", e.getMessage(), e);
+            return false;
         }
     }
 
-    private static String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return "";
+    /**
+     * 单次处理任务的状态，任务结束后随之释放
+     */
+    private final class ReadJob {
+
+        private final Map<File, List<SheetSummary>> summaries = new ConcurrentHashMap<>();
+
+        private final AtomicInteger cacheHits = new AtomicInteger();
+
+        private final AtomicInteger cacheMisses = new AtomicInteger();
+
+        private void recordSummary(File file, List<SheetSummary> sheets) {
+            if (sheets != null) {
+                summaries.put(file, sheets);
+            }
+        }
+
+        /**
+         * 输出汇总日志并生成任务结果
+         */
+        private JobResult finish(File[] files, boolean exported) {
+            logReadSummary(files);
+            if (cache != null) {
+                log.info("提取结果缓存: 命中 {} 个文件, 未命中 {} 个文件", cacheHits.get(), cacheMisses.get());
+            }
+            return result(files, exported);
         }
 
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    return String.valueOf(cell.getNumericCellValue());
+        private JobResult result(File[] files, boolean exported) {
+            var sheetCount = 0;
+            var hostCount = 0;
+            for (var sheets : summaries.values()) {
+                sheetCount += sheets.size();
+                for (var sheet : sheets) {
+                    hostCount += sheet.hostCount();
                 }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            case BLANK:
-                return "";
-            default:
-                return cell.toString();
+            }
+            return new JobResult(files.length, files.length - summaries.size(), sheetCount, hostCount,
+                    cacheHits.get(), exported);
+        }
+
+        /**
+         * 输出每个文件、每个工作表读取到的通讯主机号数量
+         */
+        private void logReadSummary(File[] files) {
+            log.info("=== 读取汇总 ===");
+            var sheetCount = 0;
+            var hostCount = 0;
+            for (var file : files) {
+                var sheets = summaries.get(file);
+                if (sheets == null) {
+                    log.info("  {}: 读取失败", file.getName());
+                    continue;
+                }
+                for (var sheet : sheets) {
+                    log.info("  {} / {}: {} 个通讯主机号", file.getName(), sheet.sheetName(), sheet.hostCount());
+                    sheetCount++;
+                    hostCount += sheet.hostCount();
+                }
+            }
+            log.info("共 {} 个文件, {} 个工作表, {} 个通讯主机号", files.length, sheetCount, hostCount);
         }
     }
 
-    public void list() {
-        var templatesPath = "src/main/resources/templates/";
-        var templatesDir = new File(templatesPath);
+    /**
+     * 读取单个Excel文件，启用缓存时优先回放缓存结果，解析成功后写入缓存
+     * <p>
+     * 目标为流式导出器时，记录直接写入目标（启用缓存时同时写入缓存记录器），工作表顺序解析，
+     * 内存占用不随文件大小增长；读取中途出错的文件，出错前的记录已写入导出文件，无法撤回。
+     * 目标为缓冲导出器时先读入该文件独立的缓冲区，读取成功才合并到目标，出错的文件不产生任何记录
+     *
+     * @param file   Excel文件
+     * @param target 目标导出器
+     * @param job    当前任务（统计缓存命中）
+     * @return 各工作表的读取结果（缓存命中时只有一条文件合计），读取出错时返回null
+     */
+    private List<SheetSummary> readExcelFileCached(File file, IPExporter target, ReadJob job) {
+        ExtractionCache.Fingerprint fingerprint = null;
+        if (cache != null) {
+            var recordCountBefore = target.getRecordCount();
+            if (cache.load(file, readMode, target)) {
+                log.info("文件未变化，使用缓存结果: {}", file.getName());
+                job.cacheHits.incrementAndGet();
+                return List.of(new SheetSummary(CACHED_SHEET_NAME, -1, target.getRecordCount() - recordCountBefore));
+            }
 
-        if (!templatesDir.exists() || !templatesDir.isDirectory()) {
-            log.warn("templates目录不存在");
-            return;
+            job.cacheMisses.incrementAndGet();
+            // 解析之前获取指纹，解析期间文件被修改时缓存不会误命中
+            try {
+                fingerprint = cache.fingerprint(file);
+            } catch (IOException e) {
+                log.warn("读取文件指纹失败，不写入缓存: {}, {}", file.getName(), e.getMessage());
+            }
         }
 
-        // 获取所有xlsx文件
-        var xlsxFiles = templatesDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".xlsx"));
-
-        if (xlsxFiles == null || xlsxFiles.length == 0) {
-            log.info("没有找到xlsx文件");
-            return;
+        if (target.isStreaming()) {
+            try (var recorder = fingerprint != null ? cache.recorder(file, readMode, fingerprint) : null) {
+                var summaries = readWorkbook(file, readMode, target, null, rowSampleInterval, recorder);
+                if (summaries != null && recorder != null) {
+                    recorder.commit();
+                }
+                return summaries;
+            }
         }
 
-        log.info("找到 {} 个Excel文件", xlsxFiles.length);
+        var buffer = new IPExporter();
+        var summaries = readWorkbook(file, readMode, buffer, taskExecutor, rowSampleInterval, null);
+        // 读取出错的文件不合并已读取的部分记录
+        if (summaries == null) {
+            return null;
+        }
+        if (fingerprint != null) {
+            cache.store(file, readMode, fingerprint, buffer);
+        }
+        target.addAll(buffer);
+        return summaries;
+    }
 
-        // 读取每个Excel文件
-        for (var file : xlsxFiles) {
-            readExcelFile(file.getAbsolutePath());
+    /**
+     * 读取全部Excel文件，结果按文件顺序写入目标导出器
+     *
+     * @param files  已排序的文件列表
+     * @param target 目标导出器
+     * @param job    当前任务，接收每个文件的工作表读取结果（读取出错的文件不写入）
+     * @return 是否完成读取（被中断时返回false）
+     */
+    private boolean readExcelFiles(File[] files, IPExporter target, ReadJob job) {
+        // 流式导出时顺序读取：并行读取需要把每个文件的记录缓冲在内存中
+        if (taskExecutor == null || parallelism == 1 || files.length == 1 || target.isStreaming()) {
+            for (var file : files) {
+                job.recordSummary(file, readExcelFileCached(file, target, job));
+            }
+            return true;
         }
+        return readExcelFilesInParallel(files, target, job);
+    }
 
-        // 导出到CSV文件
-        var outputPath = "IP地址导出.csv";
-        if (exporter.exportToCSV(outputPath)) {
-            log.info("\n=== 导出完成 ===");
-            log.info("文件已保存到: {}", new java.io.File(outputPath).getAbsolutePath());
+    /**
+     * 并行读取多个Excel文件
+     * 每个文件使用独立的结果缓冲区，读取完成后按文件顺序合并，导出结果与顺序读取一致；读取出错的文件不合并
+     *
+     * @param files  已排序的文件列表
+     * @param target 目标导出器
+     * @param job    当前任务，接收每个文件的工作表读取结果
+     * @return 是否完成读取（被中断时返回false）
+     */
+    private boolean readExcelFilesInParallel(File[] files, IPExporter target, ReadJob job) {
+        log.info("并行读取Excel文件，最大并行数: {}", parallelism);
+
+        var permits = new Semaphore(parallelism);
+        var futures = new ArrayList<Future<IPExporter>>(files.length);
+        try {
+            for (var file : files) {
+                // 限制同时读取的文件数量
+                permits.acquire();
+                try {
+                    futures.add(taskExecutor.submit(() -> {
+                        try {
+                            var buffer = new IPExporter();
+                            var summaries = readExcelFileCached(file, buffer, job);
+                            job.recordSummary(file, summaries);
+                            return summaries != null ? buffer : null;
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            // 按文件顺序合并结果
+            for (var i = 0; i < futures.size(); i++) {
+                try {
+                    var buffer = futures.get(i).get();
+                    if (buffer != null) {
+                        target.addAll(buffer);
+                    }
+                    // 释放已合并的缓冲区
+                    futures.set(i, null);
+                } catch (ExecutionException e) {
+                    log.error("读取Excel文件失败: {}, {}", files[i].getName(), e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.stream().filter(Objects::nonNull).forEach(future -> future.cancel(true));
+            log.error("并行读取Excel文件被中断");
+            return false;
         }
     }
 }
@@ -0,0 +1,368 @@
+package cn.wangwenzhu.claude.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Excel提取结果缓存
+ * 以文件路径为键，将每个工作簿提取出的通讯主机号以紧凑的二进制格式保存在本地目录中，
+ * 文件未变化时直接回放缓存结果，跳过POI解析
+ * <p>
+ * 命中判断：文件大小和修改时间一致直接命中；大小一致但修改时间变化时比较内容SHA-256，
+ * 内容一致仍视为命中，并把缓存头中的修改时间更新为文件当前的修改时间，之后不再重复计算哈希。
+ * 缓存头中记录提取逻辑版本和读取模式，任一变化即失效
+ * <p>
+ * 文件指纹（大小、修改时间、内容哈希）须在解析之前通过 {@link #fingerprint(File)} 获取并传给
+ * {@link #store} 或 {@link #recorder}：解析期间文件被修改时，缓存记录的是旧指纹，下次读取时不会命中
+ * <p>
+ * 文件格式：魔数、格式版本、提取逻辑版本、读取模式、文件大小、修改时间、内容哈希，
+ * 随后每条记录以1字节类型开头：规范IPv4地址存为4字节int，其他内容存为UTF字符串，最后是1字节结束标记；
+ * 十进制数值加载时重新计算。记录数不写在文件头中，流式导出时可以边解析边写入缓存（见 {@link Recorder}）
+ * <p>
+ * 命中和未命中次数由调用方（每次处理任务）统计
+ * <p>
+ * 线程安全：缓存文件先写临时文件再原子替换，多个任务可以共享同一个实例
+ */
+@Slf4j
+public class ExtractionCache {
+
+    private static final int MAGIC = 0x49504358; // "IPCX"
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte ENTRY_IPV4 = 0;
+
+    private static final byte ENTRY_TEXT = 1;
+
+    private static final byte ENTRY_END = 2;
+
+    // 缓存头中修改时间的位置：魔数、格式版本、提取逻辑版本、读取模式、文件大小之后
+    private static final int MODIFIED_OFFSET = 3 * Integer.BYTES + 1 + Long.BYTES;
+
+    // 缓存头长度：修改时间和内容哈希之后是第一条记录
+    private static final int HEADER_SIZE = MODIFIED_OFFSET + Long.BYTES + 32;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path cacheDir;
+
+    private final int extractionVersion;
+
+    /**
+     * 文件指纹
+     *
+     * @param size     文件大小
+     * @param modified 修改时间（毫秒）
+     * @param hash     内容SHA-256
+     */
+    public record Fingerprint(long size, long modified, byte[] hash) {
+    }
+
+    /**
+     * @param cacheDir          缓存目录
+     * @param extractionVersion 提取逻辑版本，列识别等逻辑变化时递增以使旧缓存失效
+     */
+    public ExtractionCache(Path cacheDir, int extractionVersion) {
+        this.cacheDir = cacheDir;
+        this.extractionVersion = extractionVersion;
+    }
+
+    /**
+     * 尝试从缓存加载文件的提取结果
+     *
+     * @param file     Excel文件
+     * @param readMode 读取模式
+     * @param target   命中时接收记录的导出器
+     * @return 是否命中
+     */
+    public boolean load(File file, ExcelReader.ReadMode readMode, IPExporter target) {
+        var cacheFile = cacheFileFor(file);
+        if (!Files.isRegularFile(cacheFile)) {
+            return false;
+        }
+
+        long currentModified;
+        boolean rehashed;
+        try (var channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            var in = openStream(channel, 0);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || in.readInt() != extractionVersion || in.readByte() != readMode.ordinal()) {
+                return false;
+            }
+
+            var attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            var size = in.readLong();
+            var modified = in.readLong();
+            var hash = in.readNBytes(32);
+            if (size != attributes.size()) {
+                return false;
+            }
+            currentModified = attributes.lastModifiedTime().toMillis();
+            rehashed = modified != currentModified;
+            if (rehashed && !Arrays.equals(hash, contentHash(file.toPath()))) {
+                return false;
+            }
+
+            // 先完整读一遍校验记录，缓存损坏时不会向目标写入部分记录；
+            // 校验通过后从同一个文件句柄再读一遍直接写入目标，不在内存中缓冲整个文件的记录
+            for (var type = in.readByte(); type != ENTRY_END; type = in.readByte()) {
+                readEntry(in, type);
+            }
+            in = openStream(channel, HEADER_SIZE);
+            var fileName = file.getName();
+            for (var type = in.readByte(); type != ENTRY_END; type = in.readByte()) {
+                var ip = readEntry(in, type);
+                target.addIPEntry(fileName, ip, IPConverter.ipToDecimal(ip));
+            }
+        } catch (IOException e) {
+            log.warn("读取缓存失败，重新解析文件: {}, {}", file.getName(), e.getMessage());
+            return false;
+        }
+
+        if (rehashed) {
+            updateModified(file, cacheFile, currentModified);
+        }
+        return true;
+    }
+
+    /**
+     * 获取文件指纹，在解析文件之前调用
+     *
+     * @param file Excel文件
+     * @return 文件指纹
+     */
+    public Fingerprint fingerprint(File file) throws IOException {
+        var attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        return new Fingerprint(attributes.size(), attributes.lastModifiedTime().toMillis(), contentHash(file.toPath()));
+    }
+
+    /**
+     * 保存文件的提取结果
+     *
+     * @param file        Excel文件
+     * @param readMode    读取模式
+     * @param fingerprint 解析之前获取的文件指纹
+     * @param buffer      该文件的提取结果
+     */
+    public void store(File file, ExcelReader.ReadMode readMode, Fingerprint fingerprint, IPExporter buffer) {
+        try (var recorder = recorder(file, readMode, fingerprint)) {
+            for (var entry : buffer.snapshot()) {
+                recorder.add(entry.ipAddress());
+            }
+            recorder.commit();
+        }
+    }
+
+    /**
+     * 创建边解析边写入的缓存记录器，解析成功后调用 {@link Recorder#commit()}
+     *
+     * @param file        Excel文件
+     * @param readMode    读取模式
+     * @param fingerprint 解析之前获取的文件指纹
+     * @return 记录器，使用完毕后需关闭
+     */
+    public Recorder recorder(File file, ExcelReader.ReadMode readMode, Fingerprint fingerprint) {
+        var recorder = new Recorder(file, readMode, fingerprint);
+        recorder.restart();
+        return recorder;
+    }
+
+    /**
+     * 缓存记录器：提取到的记录逐条写入临时文件，提交时原子替换缓存文件，未提交就关闭时丢弃。
+     * 写入出错时只输出日志并停止记录，不影响解析。非线程安全
+     */
+    public final class Recorder implements Closeable {
+
+        private final File file;
+
+        private final ExcelReader.ReadMode readMode;
+
+        private final Fingerprint fingerprint;
+
+        private Path tempFile;
+
+        private DataOutputStream out;
+
+        private Recorder(File file, ExcelReader.ReadMode readMode, Fingerprint fingerprint) {
+            this.file = file;
+            this.readMode = readMode;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * 丢弃已记录的内容重新开始，例如流式读取失败回退到DOM模式时
+         */
+        void restart() {
+            discard();
+            try {
+                Files.createDirectories(cacheDir);
+                tempFile = Files.createTempFile(cacheDir, "cache-", ".tmp");
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(extractionVersion);
+                out.writeByte(readMode.ordinal());
+                out.writeLong(fingerprint.size());
+                out.writeLong(fingerprint.modified());
+                out.write(fingerprint.hash());
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * 记录一个通讯主机号
+         */
+        public void add(String ip) {
+            if (out == null) {
+                return;
+            }
+            try {
+                var value = IPConverter.parseIpv4(ip);
+                if (value != IPConverter.INVALID && isCanonical(ip, value)) {
+                    out.writeByte(ENTRY_IPV4);
+                    out.writeInt((int) value);
+                } else {
+                    out.writeByte(ENTRY_TEXT);
+                    out.writeUTF(ip);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * 写入结束标记并替换缓存文件
+         */
+        public void commit() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.writeByte(ENTRY_END);
+                out.close();
+                out = null;
+                Files.move(tempFile, cacheFileFor(file), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                tempFile = null;
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            discard();
+        }
+
+        private void fail(IOException e) {
+            log.warn("写入缓存失败: {}, {}", file.getName(), e.getMessage());
+            discard();
+        }
+
+        private void discard() {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+                if (tempFile != null) {
+                    Files.deleteIfExists(tempFile);
+                }
+            } catch (IOException e) {
+                log.debug("删除缓存临时文件失败: {}, {}", tempFile, e.getMessage());
+            } finally {
+                out = null;
+                tempFile = null;
+            }
+        }
+    }
+
+    /**
+     * 内容未变化、只是修改时间变化时，更新缓存头中的修改时间
+     */
+    private void updateModified(File file, Path cacheFile, long modified) {
+        try (var channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, modified), MODIFIED_OFFSET);
+        } catch (IOException e) {
+            log.warn("更新缓存修改时间失败: {}, {}", file.getName(), e.getMessage());
+        }
+    }
+
+    private static DataInputStream openStream(FileChannel channel, long position) throws IOException {
+        channel.position(position);
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    private static String readEntry(DataInputStream in, byte type) throws IOException {
+        return switch (type) {
+            case ENTRY_IPV4 -> IPConverter.appendIpv4(new StringBuilder(IPConverter.MAX_IPV4_LENGTH),
+                    in.readInt() & 0xFFFFFFFFL).toString();
+            case ENTRY_TEXT -> in.readUTF();
+            default -> throw new IOException("无效的缓存记录类型: " + type);
+        };
+    }
+
+    private Path cacheFileFor(File file) {
+        var digest = sha256();
+        var key = digest.digest(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+        return cacheDir.resolve(HexFormat.of().formatHex(key, 0, 16) + ".bin");
+    }
+
+    /**
+     * 判断IP字符串是否为规范格式，只有规范格式才能以int存储后原样还原
+     */
+    private static boolean isCanonical(String ip, long value) {
+        var buffer = new char[IPConverter.MAX_IPV4_LENGTH];
+        var length = IPConverter.formatIpv4(value, buffer, 0);
+        if (length != ip.length()) {
+            return false;
+        }
+        for (var i = 0; i < length; i++) {
+            if (buffer[i] != ip.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] contentHash(Path path) throws IOException {
+        var digest = sha256();
+        try (InputStream in = Files.newInputStream(path)) {
+            var buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+}
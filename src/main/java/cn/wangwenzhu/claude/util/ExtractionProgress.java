@@ -0,0 +1,88 @@
+package cn.wangwenzhu.claude.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个文件的提取日志：逐条记录、抽样记录和读取进度
+ * <ul>
+ *     <li>逐条记录：本类的日志级别为TRACE时输出每一条通讯主机号</li>
+ *     <li>抽样记录：每 {@code sampleInterval} 条以INFO级别输出一条，0表示不抽样</li>
+ *     <li>读取进度：较大的文件读取过程中定期输出已读取条数和速率，读取完成后输出汇总</li>
+ * </ul>
+ * 未启用逐条和抽样记录时，每条记录只做一次计数，不拼接字符串。
+ * 多个工作表并行解析时共享同一个实例，线程安全
+ */
+@Slf4j
+final class ExtractionProgress {
+
+    // 每读取这么多条检查一次是否需要输出进度，避免每条都读取时钟
+    private static final long PROGRESS_CHECK_MASK = (1 << 14) - 1;
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final String fileName;
+
+    private final long sampleInterval;
+
+    private final boolean traceEnabled;
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong lastProgressNanos = new AtomicLong(startNanos);
+
+    /**
+     * @param fileName       文件名
+     * @param sampleInterval 抽样间隔（条），0表示不抽样
+     */
+    ExtractionProgress(String fileName, int sampleInterval) {
+        this.fileName = fileName;
+        this.sampleInterval = Math.max(0, sampleInterval);
+        this.traceEnabled = log.isTraceEnabled();
+    }
+
+    /**
+     * 记录一条通讯主机号
+     */
+    void record(String ip, String decimal) {
+        var n = count.incrementAndGet();
+        if (traceEnabled) {
+            log.trace("  {} -> {}", ip, decimal);
+        } else if (sampleInterval > 0 && n % sampleInterval == 0) {
+            log.info("  {} 第 {} 条: {} -> {}", fileName, n, ip, decimal);
+        }
+
+        if ((n & PROGRESS_CHECK_MASK) == 0) {
+            logProgress(n);
+        }
+    }
+
+    private void logProgress(long n) {
+        var now = System.nanoTime();
+        var last = lastProgressNanos.get();
+        // 并行解析时只由一个线程输出
+        if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgressNanos.compareAndSet(last, now)) {
+            log.info("正在读取: {}, 已读取 {} 条, {} 条/秒", fileName, n, ratePerSecond(n, now - startNanos));
+        }
+    }
+
+    /**
+     * 文件读取完成，输出汇总
+     *
+     * @param sheetCount 读取的工作表数
+     */
+    void finish(int sheetCount) {
+        var n = count.get();
+        var elapsed = System.nanoTime() - startNanos;
+        log.info("文件读取完成: {}, {} 个工作表, {} 条记录, 耗时 {} ms, {} 条/秒",
+                fileName, sheetCount, n, TimeUnit.NANOSECONDS.toMillis(elapsed), ratePerSecond(n, elapsed));
+    }
+
+    private static long ratePerSecond(long n, long elapsedNanos) {
+        return elapsedNanos > 0 ? n * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : n;
+    }
+}
@@ -0,0 +1,186 @@
+package cn.wangwenzhu.claude.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通讯主机号去重
+ * 以IPv4数值为键，用 {@link IntIntHashMap} 记录每个主机号所属的文件（出现在多个文件中时标记为共有），
+ * 每个文件用 {@link IntHashSet} 记录其中的共有主机号，不产生装箱对象；同时统计每个文件的重复、共有和独有主机号数
+ * <p>
+ * 文件以文件名标识（与导出的CSV按文件名分组一致），同一文件的记录不连续到达时统计仍然正确；
+ * 无法解析为IPv4的内容不参与去重，原样保留。非线程安全
+ */
+@Slf4j
+public class HostDeduplicator {
+
+    /**
+     * 去重模式
+     */
+    public enum Mode {
+        /**
+         * 不去重
+         */
+        NONE,
+        /**
+         * 去除同一文件内的重复主机号
+         */
+        FILE,
+        /**
+         * 每个主机号只保留第一次出现的记录
+         */
+        GLOBAL
+    }
+
+    /**
+     * 单个文件的去重统计
+     *
+     * @param fileName      文件名
+     * @param rows          记录数
+     * @param distinctHosts 不同主机号数
+     * @param duplicateRows 文件内重复的记录数
+     * @param sharedHosts   与其他文件共有的主机号数
+     * @param uniqueHosts   只出现在该文件中的主机号数
+     */
+    public record FileStatistics(String fileName, int rows, int distinctHosts, int duplicateRows,
+                                 int sharedHosts, int uniqueHosts) {
+    }
+
+    private static final int ABSENT = -1;
+
+    private static final int SHARED = -2;
+
+    private static final class FileCounters {
+        private final String fileName;
+        private int rows;
+        private int distinctHosts;
+        private int duplicateRows;
+        // 该文件中与其他文件共有的主机号
+        private final IntHashSet sharedHosts = new IntHashSet();
+
+        private FileCounters(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    private final Mode mode;
+
+    // 主机号 -> 所属文件ID，出现在多个文件中时为 SHARED
+    private final IntIntHashMap owners = new IntIntHashMap(1024);
+
+    private final Map<String, Integer> fileIds = new HashMap<>();
+
+    private final List<FileCounters> files = new ArrayList<>();
+
+    private FileCounters current;
+
+    private int currentFileId;
+
+    private int totalRows;
+
+    private int droppedRows;
+
+    public HostDeduplicator(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * 处理一条记录
+     *
+     * @param fileName  源文件名
+     * @param ipAddress IP地址
+     * @return 是否保留该记录
+     */
+    public boolean accept(String fileName, String ipAddress) {
+        if (current == null || !current.fileName.equals(fileName)) {
+            switchFile(fileName);
+        }
+        totalRows++;
+        current.rows++;
+
+        var ip = IPConverter.parseIpv4(ipAddress);
+        if (ip == IPConverter.INVALID) {
+            return true;
+        }
+
+        var key = (int) ip;
+        var owner = owners.get(key, ABSENT);
+        boolean keep;
+        if (owner == ABSENT) {
+            owners.put(key, currentFileId);
+            current.distinctHosts++;
+            keep = true;
+        } else if (owner == currentFileId
+                || (owner == SHARED && current.sharedHosts.contains(key))) {
+            // 当前文件已出现过该主机号
+            current.duplicateRows++;
+            keep = mode == Mode.NONE;
+        } else {
+            if (owner != SHARED) {
+                owners.put(key, SHARED);
+                files.get(owner).sharedHosts.add(key);
+            }
+            current.sharedHosts.add(key);
+            current.distinctHosts++;
+            keep = mode != Mode.GLOBAL;
+        }
+
+        if (!keep) {
+            droppedRows++;
+        }
+        return keep;
+    }
+
+    /**
+     * 去除的记录数
+     */
+    public int getDroppedCount() {
+        return droppedRows;
+    }
+
+    /**
+     * 全部文件中不同主机号的数量
+     */
+    public int getDistinctHostCount() {
+        return owners.size();
+    }
+
+    /**
+     * 各文件的去重统计，按文件首次出现的顺序
+     */
+    public List<FileStatistics> statistics() {
+        return files.stream()
+                .map(counters -> new FileStatistics(counters.fileName, counters.rows, counters.distinctHosts,
+                        counters.duplicateRows, counters.sharedHosts.size(),
+                        counters.distinctHosts - counters.sharedHosts.size()))
+                .toList();
+    }
+
+    /**
+     * 输出去重统计
+     */
+    public void logStatistics() {
+        log.info("主机号去重（{}）: 共 {} 条记录, 去除 {} 条, 不同主机号 {} 个",
+                mode, totalRows, droppedRows, getDistinctHostCount());
+        for (var stats : statistics()) {
+            log.info("  {}: {} 条记录, 不同主机号 {} 个, 文件内重复 {} 条, 与其他文件共有 {} 个, 独有 {} 个",
+                    stats.fileName(), stats.rows(), stats.distinctHosts(), stats.duplicateRows(),
+                    stats.sharedHosts(), stats.uniqueHosts());
+        }
+    }
+
+    private void switchFile(String fileName) {
+        var id = fileIds.get(fileName);
+        if (id == null) {
+            id = files.size();
+            fileIds.put(fileName, id);
+            files.add(new FileCounters(fileName));
+        }
+        currentFileId = id;
+        current = files.get(id);
+    }
+}
@@ -0,0 +1,127 @@
+package cn.wangwenzhu.claude.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 从一个工作表的行中提取通讯主机号：第一行确定通讯主机号列，后续每行结束时输出一个主机号
+ * <p>
+ * 主机号列以外的单元格先暂存，只有本行主机号为空时才在行结束时扫描，主机号非空的行不做IP匹配。
+ * 非线程安全，每个工作表使用一个实例
+ */
+public final class HostRowCollector implements SheetRowHandler {
+
+    private final Consumer<String> hostConsumer;
+
+    private final SheetHostColumns columns = new SheetHostColumns();
+
+    private boolean headerSeen;
+
+    // 数据行状态
+    private int hostCount;
+    private int currentRow = -1;
+    private String hostValue;
+
+    // 本行暂存的候选单元格（按列顺序）
+    private final List<String> pendingValues = new ArrayList<>();
+    private int[] pendingColumns = new int[16];
+
+    /**
+     * @param hostConsumer 每读取到一个通讯主机号回调一次（已去除首尾空白）
+     */
+    public HostRowCollector(Consumer<String> hostConsumer) {
+        this.hostConsumer = hostConsumer;
+    }
+
+    /**
+     * 通讯主机号列索引，-1表示无法确定
+     */
+    public int getHostColumnIndex() {
+        return columns.hostColumnIndex();
+    }
+
+    /**
+     * 是否使用第一列作为默认的主机号列
+     */
+    public boolean isFirstColumnFallback() {
+        return columns.isFirstColumnFallback();
+    }
+
+    /**
+     * 读取到的通讯主机号数量
+     */
+    public int getHostCount() {
+        return hostCount;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+        currentRow = rowNum;
+        hostValue = null;
+        pendingValues.clear();
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+        if (rowNum == 0) {
+            headerSeen = true;
+            columns.resolveHostColumn();
+            return;
+        }
+        if (columns.hostColumnIndex() == -1) {
+            return;
+        }
+
+        var value = hostValue;
+        if (value == null || value.isBlank()) {
+            value = scanPending();
+        }
+        if (value != null && !value.isBlank()) {
+            hostConsumer.accept(value.trim());
+            hostCount++;
+        }
+    }
+
+    @Override
+    public void cell(int column, String value) {
+        if (value == null) {
+            return;
+        }
+
+        if (currentRow == 0) {
+            columns.headerCell(column, value);
+            return;
+        }
+        if (!headerSeen || columns.hostColumnIndex() == -1) {
+            return;
+        }
+
+        if (column == columns.hostColumnIndex()) {
+            hostValue = value;
+        } else if (value.length() >= 7 && columns.mayHoldIp(column)) {
+            // 主机号列可能为空，暂存可能形如IP地址的单元格，行结束时再判断
+            if (pendingValues.size() == pendingColumns.length) {
+                pendingColumns = Arrays.copyOf(pendingColumns, pendingColumns.length * 2);
+            }
+            pendingColumns[pendingValues.size()] = column;
+            pendingValues.add(value);
+        }
+    }
+
+    /**
+     * 主机号为空时，取本行第一个形如IP地址的单元格
+     */
+    private String scanPending() {
+        for (var i = 0; i < pendingValues.size(); i++) {
+            var value = pendingValues.get(i);
+            if (columns.isIpCandidate(pendingColumns[i], value)) {
+                columns.fallbackRowScanned(pendingColumns[i]);
+                return value;
+            }
+        }
+        columns.fallbackRowScanned(-1);
+        return null;
+    }
+}
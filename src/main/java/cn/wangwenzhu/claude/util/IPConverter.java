@@ -1,13 +1,29 @@
 package cn.wangwenzhu.claude.util;
 
-import java.math.BigInteger;
-
 /**
  * IP地址转换工具类
  * 提供IP地址与十进制数值之间的相互转换功能
+ * <p>
+ * 基础方法直接在字符序列/字节区间上单次扫描，结果以 long 表示（0 ~ 4294967295，无效时为 {@link #INVALID}），
+ * 不创建字符串等中间对象；String 方法是对它们的简单包装
  */
 public class IPConverter {
 
+    /**
+     * 无效IP地址的返回值
+     */
+    public static final long INVALID = -1L;
+
+    /**
+     * IPv4地址点分格式的最大字符数，用于预分配格式化缓冲区
+     */
+    public static final int MAX_IPV4_LENGTH = 15;
+
+    private static final long MAX_IPV4_VALUE = 0xFFFFFFFFL;
+
+    // appendDigit超出255时的返回值
+    private static final int INVALID_OCTET = -1;
+
     /**
      * 将IP地址转换为十进制数值
      *
@@ -15,102 +31,347 @@ public class IPConverter {
      * @return 十进制数值字符串
      */
     public static String ipToDecimal(String ipAddress) {
-        if (ipAddress == null || ipAddress.trim().isEmpty()) {
-            return "0";
+        var value = parseIpv4(ipAddress);
+        return value == INVALID ? "0" : Long.toString(value);
+    }
+
+    /**
+     * 将十进制数值转换为IP地址
+     *
+     * @param decimal 十进制数值字符串
+     * @return IP地址字符串，格式如 "192.168.1.1"
+     */
+    public static String decimalToIp(String decimal) {
+        var value = parseDecimal(decimal);
+        if (value == INVALID) {
+            return "0.0.0.0"; // 转换失败或超出IP地址范围
         }
+        return appendIpv4(new StringBuilder(MAX_IPV4_LENGTH), value).toString();
+    }
 
-        try {
-            var parts = ipAddress.trim().split("\\.");
-            if (parts.length != 4) {
-                return "0";
+    /**
+     * 验证IP地址格式是否有效
+     *
+     * @param ipAddress IP地址字符串
+     * @return 是否有效
+     */
+    public static boolean isValidIp(String ipAddress) {
+        return parseIpv4(ipAddress) != INVALID;
+    }
+
+    /**
+     * 格式化输出IP地址及其对应的十进制数值
+     *
+     * @param ipAddress IP地址字符串
+     * @return 格式化后的字符串
+     */
+    public static String formatIpWithDecimal(String ipAddress) {
+        var value = parseIpv4(ipAddress);
+        if (value == INVALID) {
+            return ipAddress + " -> 无效IP";
+        }
+        return ipAddress + " -> " + value;
+    }
+
+    /**
+     * 解析点分格式的IPv4地址
+     *
+     * @param text IP地址字符序列，可为null
+     * @return 32位无符号数值，无效时返回 {@link #INVALID}
+     */
+    public static long parseIpv4(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+        return parseIpv4(text, 0, text.length());
+    }
+
+    /**
+     * 解析字符序列 [start, end) 区间内的点分格式IPv4地址
+     * <p>
+     * 规则与原有的 trim + split + Integer.parseInt 实现一致：忽略首尾空白；
+     * 每段为可带正负号的十进制数字（允许前导零），取值 0~255；第四段之后允许出现多余的 '.'。
+     * 唯一的差别是只接受ASCII数字，Integer.parseInt 接受的全角等其他Unicode数字（如 "１０.０.０.１"）视为无效
+     *
+     * @param text  字符序列
+     * @param start 起始位置（包含）
+     * @param end   结束位置（不包含）
+     * @return 32位无符号数值，无效时返回 {@link #INVALID}
+     */
+    public static long parseIpv4(CharSequence text, int start, int end) {
+        while (start < end && isBlank(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && isBlank(text.charAt(end - 1))) {
+            end--;
+        }
+
+        var result = 0L;
+        var octets = 0;
+        var i = start;
+        while (i < end && octets < 4) {
+            var c = text.charAt(i);
+            var negative = c == '-';
+            if (negative || c == '+') {
+                i++;
             }
 
-            var result = BigInteger.ZERO;
-            for (var i = 0; i < 4; i++) {
-                var part = Integer.parseInt(parts[i]);
-                if (part < 0 || part > 255) {
-                    return "0"; // 无效的IP地址段
+            var digitsStart = i;
+            var octet = 0;
+            while (i < end && isDigit(c = text.charAt(i))) {
+                octet = appendDigit(octet, c);
+                if (octet == INVALID_OCTET) {
+                    return INVALID;
                 }
-                result = result.multiply(BigInteger.valueOf(256)).add(BigInteger.valueOf(part));
+                i++;
+            }
+            if (!isValidOctet(i - digitsStart, negative, octet)) {
+                return INVALID;
             }
 
-            return result.toString();
-        } catch (NumberFormatException e) {
-            return "0"; // 转换失败返回0
+            result = (result << 8) | octet;
+            if (++octets < 4) {
+                if (i >= end || text.charAt(i) != '.') {
+                    return INVALID;
+                }
+                i++;
+            }
         }
+        if (octets < 4) {
+            return INVALID;
+        }
+
+        // split会丢弃末尾的空段，因此 "1.2.3.4." 视为有效
+        while (i < end) {
+            if (text.charAt(i++) != '.') {
+                return INVALID;
+            }
+        }
+        return result;
     }
 
     /**
-     * 将十进制数值转换为IP地址
+     * 解析字节数组 [start, end) 区间内的点分格式IPv4地址（ASCII编码），规则同 {@link #parseIpv4(CharSequence, int, int)}
+     * <p>
+     * 与字符序列版本是同一个循环的两份特化，避免通过接口或lambda访问字符带来的分配和多态调用；
+     * 空白、数字和每段取值的规则由共用的静态方法判断
      *
-     * @param decimal 十进制数值字符串
-     * @return IP地址字符串，格式如 "192.168.1.1"
+     * @param bytes 字节数组
+     * @param start 起始位置（包含）
+     * @param end   结束位置（不包含）
+     * @return 32位无符号数值，无效时返回 {@link #INVALID}
      */
-    public static String decimalToIp(String decimal) {
-        if (decimal == null || decimal.trim().isEmpty()) {
-            return "0.0.0.0";
+    public static long parseIpv4(byte[] bytes, int start, int end) {
+        while (start < end && isBlank(bytes[start] & 0xFF)) {
+            start++;
+        }
+        while (end > start && isBlank(bytes[end - 1] & 0xFF)) {
+            end--;
         }
 
-        try {
-            var value = new BigInteger(decimal.trim());
-            if (value.compareTo(BigInteger.ZERO) < 0 || value.compareTo(BigInteger.valueOf(4294967295L)) > 0) {
-                return "0.0.0.0"; // 超出IP地址范围
+        var result = 0L;
+        var octets = 0;
+        var i = start;
+        while (i < end && octets < 4) {
+            var c = bytes[i] & 0xFF;
+            var negative = c == '-';
+            if (negative || c == '+') {
+                i++;
+            }
+
+            var digitsStart = i;
+            var octet = 0;
+            while (i < end && isDigit(c = bytes[i] & 0xFF)) {
+                octet = appendDigit(octet, c);
+                if (octet == INVALID_OCTET) {
+                    return INVALID;
+                }
+                i++;
+            }
+            if (!isValidOctet(i - digitsStart, negative, octet)) {
+                return INVALID;
             }
 
-            var parts = new int[4];
-            for (var i = 3; i >= 0; i--) {
-                var divideAndRemainder = value.divideAndRemainder(BigInteger.valueOf(256));
-                parts[i] = divideAndRemainder[1].intValue();
-                value = divideAndRemainder[0];
+            result = (result << 8) | octet;
+            if (++octets < 4) {
+                if (i >= end || (bytes[i] & 0xFF) != '.') {
+                    return INVALID;
+                }
+                i++;
             }
+        }
+        if (octets < 4) {
+            return INVALID;
+        }
 
-            return parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[3];
-        } catch (NumberFormatException e) {
-            return "0.0.0.0"; // 转换失败返回默认值
+        // split会丢弃末尾的空段，因此 "1.2.3.4." 视为有效
+        while (i < end) {
+            if ((bytes[i++] & 0xFF) != '.') {
+                return INVALID;
+            }
         }
+        return result;
+    }
+
+    private static boolean isBlank(int c) {
+        return c <= ' ';
     }
 
     /**
-     * 验证IP地址格式是否有效
+     * 只接受ASCII数字
+     */
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * 在当前段的数值后追加一位数字
      *
-     * @param ipAddress IP地址字符串
-     * @return 是否有效
+     * @return 新的数值，超过255时返回 {@link #INVALID_OCTET}
      */
-    public static boolean isValidIp(String ipAddress) {
-        if (ipAddress == null || ipAddress.trim().isEmpty()) {
+    private static int appendDigit(int octet, int c) {
+        var value = octet * 10 + (c - '0');
+        return value > 255 ? INVALID_OCTET : value;
+    }
+
+    /**
+     * 一段是否有效：至少一位数字，带负号时只允许0（与 Integer.parseInt("-0") 一致）
+     */
+    private static boolean isValidOctet(int digits, boolean negative, int octet) {
+        return digits > 0 && (!negative || octet == 0);
+    }
+
+    /**
+     * 解析十进制数值字符序列（可带正负号，忽略首尾空白）
+     *
+     * @param text 十进制数值字符序列，可为null
+     * @return 0 ~ 4294967295 范围内的数值，无效或超出范围时返回 {@link #INVALID}
+     */
+    public static long parseDecimal(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+
+        var start = 0;
+        var end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return INVALID;
+        }
+
+        var c = text.charAt(start);
+        var negative = c == '-';
+        if (negative || c == '+') {
+            start++;
+        }
+        if (start == end) {
+            return INVALID;
+        }
+
+        var value = 0L;
+        var outOfRange = false;
+        for (var i = start; i < end; i++) {
+            c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            // 超出范围后只继续校验格式，避免溢出
+            if (!outOfRange) {
+                value = value * 10 + (c - '0');
+                outOfRange = value > MAX_IPV4_VALUE;
+            }
+        }
+        if (outOfRange || (negative && value != 0)) {
+            return INVALID;
+        }
+        return value;
+    }
+
+    /**
+     * 判断文本中是否含有形如IP地址的片段（四段数字以 '.' 相连，不校验取值范围），
+     * 与 {@code text.matches(".*\\d+\\.\\d+\\.\\d+\\.\\d+.*")} 结果一致
+     * <p>
+     * 单遍扫描的状态机，不回溯、不分配对象：状态为已匹配的段数，遇到数字和 '.' 交替推进，其他字符复位
+     *
+     * @param text 待检查的文本，可为null
+     * @return 是否含有形如IP地址的片段
+     */
+    public static boolean containsIpv4Token(CharSequence text) {
+        if (text == null) {
             return false;
         }
 
-        var parts = ipAddress.trim().split("\\.");
-        if (parts.length != 4) {
+        var length = text.length();
+        // 最短的匹配为 "0.0.0.0"
+        if (length < 7) {
             return false;
         }
 
-        try {
-            for (var part : parts) {
-                var value = Integer.parseInt(part);
-                if (value < 0 || value > 255) {
-                    return false;
+        // 0: 无进行中的匹配；2k-1: 正在读第k段数字；2k: 第k段数字后已读到 '.'
+        var state = 0;
+        var found = false;
+        for (var i = 0; i < length; i++) {
+            var c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (state == 0 || (state & 1) == 0) {
+                    state++;
+                    if (state == 7) {
+                        found = true;
+                    }
                 }
+            } else if (c == '.' && (state & 1) == 1 && state < 7) {
+                state++;
+            } else if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                // 正则的 '.' 不匹配行结束符，含换行的文本整体不匹配
+                return false;
+            } else if (!found) {
+                state = 0;
             }
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
         }
+        return found;
     }
 
     /**
-     * 格式化输出IP地址及其对应的十进制数值
+     * 将32位IPv4数值以点分格式追加到StringBuilder
      *
-     * @param ipAddress IP地址字符串
-     * @return 格式化后的字符串
+     * @param builder 目标StringBuilder，可复用
+     * @param ip      32位无符号数值（只取低32位）
+     * @return 传入的builder
      */
-    public static String formatIpWithDecimal(String ipAddress) {
-        if (!isValidIp(ipAddress)) {
-            return ipAddress + " -> 无效IP";
-        }
+    public static StringBuilder appendIpv4(StringBuilder builder, long ip) {
+        return builder.append((ip >>> 24) & 0xFF).append('.')
+                .append((ip >>> 16) & 0xFF).append('.')
+                .append((ip >>> 8) & 0xFF).append('.')
+                .append(ip & 0xFF);
+    }
 
-        var decimal = ipToDecimal(ipAddress);
-        return ipAddress + " -> " + decimal;
+    /**
+     * 将32位IPv4数值以点分格式写入字符缓冲区
+     *
+     * @param ip     32位无符号数值（只取低32位）
+     * @param buffer 目标缓冲区，可复用，从offset起至少需要 {@link #MAX_IPV4_LENGTH} 个字符
+     * @param offset 写入起始位置
+     * @return 写入结束后的位置
+     */
+    public static int formatIpv4(long ip, char[] buffer, int offset) {
+        for (var shift = 24; shift >= 0; shift -= 8) {
+            var octet = (int) (ip >>> shift) & 0xFF;
+            if (octet >= 100) {
+                buffer[offset++] = (char) ('0' + octet / 100);
+                buffer[offset++] = (char) ('0' + octet / 10 % 10);
+            } else if (octet >= 10) {
+                buffer[offset++] = (char) ('0' + octet / 10);
+            }
+            buffer[offset++] = (char) ('0' + octet % 10);
+            if (shift > 0) {
+                buffer[offset++] = '.';
+            }
+        }
+        return offset;
     }
-}
\ No newline at end of file
+}
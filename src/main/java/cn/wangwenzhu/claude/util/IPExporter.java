@@ -2,19 +2,47 @@ package cn.wangwenzhu.claude.util;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.FileOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * IP地址导出工具类
  * 将IP地址和对应的十进制数值导出到CSV文件
+ * <p>
+ * 支持两种模式：
+ * <ul>
+ *     <li>缓冲模式（默认构造）：记录保存在内存中，调用 {@link #exportToCSV(String)} 时一次性写出</li>
+ *     <li>流式模式（{@link #streaming(String)}）：打开CSV文件后每条记录到达即写入缓冲区，不保留记录，内存占用恒定</li>
+ * </ul>
+ * 两种模式都会在CSV旁生成同名的 .sql 查询文件（见 {@link DeviceSqlWriter}），
+ * 并可选生成 .ipidx 二进制索引文件（见 {@link IPIndexWriter}、{@link IPIndex}）；
+ * 启用去重时，CSV、SQL和索引只包含去重后的记录（见 {@link HostDeduplicator}）
  */
 @Slf4j
-public class IPExporter {
+public class IPExporter implements Closeable {
+
+    /**
+     * 导出模式
+     */
+    public enum ExportMode {
+        /**
+         * 全部记录保存在内存中，最后统一导出
+         */
+        BUFFERED,
+        /**
+         * 记录到达即写入CSV文件
+         */
+        STREAMING
+    }
 
     /**
      * IP地址数据记录
@@ -22,8 +50,97 @@ public class IPExporter {
     public record IPEntry(String fileName, String ipAddress, String decimalValue) {
     }
 
+    /**
+     * 导出选项
+     *
+     * @param sqlOptions SQL文件输出选项，为null时不生成SQL文件
+     * @param writeIndex 是否生成IP索引文件
+     * @param dedupMode  主机号去重模式
+     */
+    public record ExportOptions(DeviceSqlWriter.Options sqlOptions, boolean writeIndex, HostDeduplicator.Mode dedupMode) {
+
+        public static final ExportOptions DEFAULT =
+                new ExportOptions(DeviceSqlWriter.Options.DEFAULT, false, HostDeduplicator.Mode.NONE);
+
+        static ExportOptions of(DeviceSqlWriter.Options sqlOptions) {
+            return new ExportOptions(sqlOptions, false, HostDeduplicator.Mode.NONE);
+        }
+
+        HostDeduplicator newDeduplicator() {
+            return dedupMode == null || dedupMode == HostDeduplicator.Mode.NONE ? null : new HostDeduplicator(dedupMode);
+        }
+    }
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private static final String CSV_HEADER = "源文件名,IP地址,十进制数值\n";
+
     private final List<IPEntry> ipEntries = new ArrayList<>();
 
+    // 流式模式状态
+    private final String streamOutputPath;
+    private final Writer streamWriter;
+    private final DeviceSqlWriter streamSqlWriter;
+    private final IPIndexWriter streamIndexWriter;
+    private final HostDeduplicator streamDeduplicator;
+    private String streamFileName;
+    private int streamedCount;
+
+    public IPExporter() {
+        this.streamOutputPath = null;
+        this.streamWriter = null;
+        this.streamSqlWriter = null;
+        this.streamIndexWriter = null;
+        this.streamDeduplicator = null;
+    }
+
+    private IPExporter(String outputPath, Writer writer, DeviceSqlWriter sqlWriter, IPIndexWriter indexWriter,
+                       HostDeduplicator deduplicator) {
+        this.streamOutputPath = outputPath;
+        this.streamWriter = writer;
+        this.streamSqlWriter = sqlWriter;
+        this.streamIndexWriter = indexWriter;
+        this.streamDeduplicator = deduplicator;
+    }
+
+    public static IPExporter streaming(String outputPath) throws IOException {
+        return streaming(outputPath, DeviceSqlWriter.Options.DEFAULT);
+    }
+
+    public static IPExporter streaming(String outputPath, DeviceSqlWriter.Options sqlOptions) throws IOException {
+        return streaming(outputPath, ExportOptions.of(sqlOptions));
+    }
+
+    /**
+     * 创建流式导出器：立即打开CSV文件并写入BOM和标题行，之后每条记录直接写入文件
+     * 生成索引或去重时，每条记录在关闭前还要在内存中占用若干字节
+     *
+     * @param outputPath 输出文件路径
+     * @param options    导出选项
+     * @return 流式导出器，使用完毕后需调用 {@link #close()}
+     */
+    public static IPExporter streaming(String outputPath, ExportOptions options) throws IOException {
+        var writer = openCsvWriter(outputPath);
+        try {
+            writeCsvHeader(writer);
+            var sqlWriter = options.sqlOptions() != null
+                    ? new DeviceSqlWriter(DeviceSqlWriter.sqlPathFor(outputPath), options.sqlOptions())
+                    : null;
+            var indexWriter = options.writeIndex() ? new IPIndexWriter(IPIndexWriter.indexPathFor(outputPath)) : null;
+            return new IPExporter(outputPath, writer, sqlWriter, indexWriter, options.newDeduplicator());
+        } catch (IOException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 是否为流式导出器
+     */
+    public boolean isStreaming() {
+        return streamWriter != null;
+    }
+
     /**
      * 添加IP地址记录
      *
@@ -31,52 +148,111 @@ public class IPExporter {
      * @param ipAddress    IP地址
      * @param decimalValue 十进制数值
      */
-    public void addIPEntry(String fileName, String ipAddress, String decimalValue) {
-        ipEntries.add(new IPEntry(fileName, ipAddress, decimalValue));
+    public synchronized void addIPEntry(String fileName, String ipAddress, String decimalValue) {
+        if (streamWriter == null) {
+            ipEntries.add(new IPEntry(fileName, ipAddress, decimalValue));
+            return;
+        }
+
+        if (streamDeduplicator != null && !streamDeduplicator.accept(fileName, ipAddress)) {
+            return;
+        }
+
+        try {
+            streamFileName = writeEntry(streamWriter, streamFileName, fileName, ipAddress, decimalValue);
+            streamedCount++;
+            if (streamSqlWriter != null) {
+                streamSqlWriter.add(decimalValue);
+            }
+            if (streamIndexWriter != null) {
+                streamIndexWriter.add(fileName, decimalValue);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入CSV文件失败: " + streamOutputPath, e);
+        }
+    }
+
+    /**
+     * 追加另一个导出器中的全部记录（保持原有顺序）
+     *
+     * @param other 其他导出器
+     */
+    public void addAll(IPExporter other) {
+        var entries = other.snapshot();
+        synchronized (this) {
+            if (streamWriter == null) {
+                ipEntries.addAll(entries);
+                return;
+            }
+            for (var entry : entries) {
+                addIPEntry(entry.fileName(), entry.ipAddress(), entry.decimalValue());
+            }
+        }
+    }
+
+    synchronized List<IPEntry> snapshot() {
+        return new ArrayList<>(ipEntries);
+    }
+
+    public boolean exportToCSV(String outputPath) {
+        return exportToCSV(outputPath, DeviceSqlWriter.Options.DEFAULT);
+    }
+
+    public boolean exportToCSV(String outputPath, DeviceSqlWriter.Options sqlOptions) {
+        return exportToCSV(outputPath, ExportOptions.of(sqlOptions));
     }
 
     /**
      * 导出到CSV文件（优化格式：每个文件只显示一次文件名）
      *
      * @param outputPath 输出文件路径
+     * @param options    导出选项
      * @return 是否导出成功
      */
-    public boolean exportToCSV(String outputPath) {
+    public synchronized boolean exportToCSV(String outputPath, ExportOptions options) {
+        if (streamWriter != null) {
+            throw new IllegalStateException("流式导出器已写入 " + streamOutputPath + "，请调用close()完成导出");
+        }
+
         if (ipEntries.isEmpty()) {
-            System.out.println("没有数据可导出");
+            log.info("没有数据可导出");
             return false;
         }
 
-        try (var writer = new OutputStreamWriter(
-                new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
-            // 写入BOM标记，让Excel正确识别UTF-8编码
-            writer.write('\uFEFF');
-            // 写入CSV标题行
-            writer.write("源文件名,IP地址,十进制数值\n");
+        // 去重后的记录（不修改已保存的记录）
+        var entries = ipEntries;
+        var deduplicator = options.newDeduplicator();
+        if (deduplicator != null) {
+            entries = new ArrayList<>(ipEntries.size());
+            for (var entry : ipEntries) {
+                if (deduplicator.accept(entry.fileName(), entry.ipAddress())) {
+                    entries.add(entry);
+                }
+            }
+            deduplicator.logStatistics();
+        }
+
+        try (var writer = openCsvWriter(outputPath)) {
+            writeCsvHeader(writer);
 
             // 按文件名分组导出
             var currentFileName = (String) null;
-            for (IPEntry entry : ipEntries) {
-                if (!entry.fileName().equals(currentFileName)) {
-                    // 新文件，先写入文件标题行
-                    writer.write(String.format("\"%s\",,\n", entry.fileName()));
-                    // 再写入第一个IP地址
-                    writer.write(String.format(",\"%s\",\"%s\"\n",
-                            entry.ipAddress(),
-                            entry.decimalValue()));
-                    currentFileName = entry.fileName();
-                } else {
-                    // 同一文件的其他IP地址，文件名留空
-                    writer.write(String.format(",\"%s\",\"%s\"\n",
-                            entry.ipAddress(),
-                            entry.decimalValue()));
-                }
+            for (IPEntry entry : entries) {
+                currentFileName = writeEntry(writer, currentFileName,
+                        entry.fileName(), entry.ipAddress(), entry.decimalValue());
             }
 
-            System.out.println("成功导出 " + ipEntries.size() + " 条记录到: " + outputPath);
+            log.info("成功导出 {} 条记录到: {}", entries.size(), outputPath);
 
             // 生成SQL查询语句
-            generateSQLQuery();
+            if (options.sqlOptions() != null) {
+                generateSQLFile(entries, DeviceSqlWriter.sqlPathFor(outputPath), options.sqlOptions());
+            }
+
+            // 生成IP索引文件
+            if (options.writeIndex()) {
+                generateIndexFile(entries, IPIndexWriter.indexPathFor(outputPath));
+            }
 
             return true;
 
@@ -87,30 +263,116 @@ public class IPExporter {
     }
 
     /**
-     * 生成SQL查询语句
+     * 完成流式导出：刷新缓冲区并关闭文件。缓冲模式下无操作
      */
-    private void generateSQLQuery() {
-        if (ipEntries.isEmpty()) {
-            log.info("没有数据可生成SQL查询");
+    @Override
+    public synchronized void close() throws IOException {
+        if (streamWriter == null) {
             return;
         }
+        try {
+            streamWriter.close();
+        } finally {
+            try {
+                if (streamSqlWriter != null) {
+                    streamSqlWriter.close();
+                }
+            } finally {
+                if (streamIndexWriter != null) {
+                    streamIndexWriter.close();
+                }
+            }
+        }
+        log.info("成功导出 {} 条记录到: {}", streamedCount, streamOutputPath);
+        if (streamDeduplicator != null) {
+            streamDeduplicator.logStatistics();
+        }
+    }
 
-        var sql = new StringBuilder();
-        sql.append("SELECT * FROM sop_position_info WHERE device_no IN (");
+    /**
+     * 与导出文件同名、扩展名不同的文件路径
+     *
+     * @param path      导出文件路径
+     * @param extension 新扩展名（含 '.'）
+     */
+    static String siblingPath(String path, String extension) {
+        var dot = path.lastIndexOf('.');
+        var separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return (dot > separator ? path.substring(0, dot) : path) + extension;
+    }
 
-        // 添加所有十进制数值
-        for (int i = 0; i < ipEntries.size(); i++) {
-            if (i > 0) {
-                sql.append(",");
-            }
-            sql.append("'").append(ipEntries.get(i).decimalValue()).append("'");
+    private static Writer openCsvWriter(String outputPath) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Path.of(outputPath)), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+
+    private static void writeCsvHeader(Writer writer) throws IOException {
+        // 写入BOM标记，让Excel正确识别UTF-8编码
+        writer.write('\uFEFF');
+        // 写入CSV标题行
+        writer.write(CSV_HEADER);
+    }
+
+    /**
+     * 写入一条记录，遇到新文件时先写入文件标题行
+     *
+     * @return 当前文件名
+     */
+    private static String writeEntry(Writer writer, String currentFileName,
+                                     String fileName, String ipAddress, String decimalValue) throws IOException {
+        if (!fileName.equals(currentFileName)) {
+            // 新文件，先写入文件标题行
+            writer.write('"');
+            writer.write(fileName);
+            writer.write("\",,\n");
         }
+        // 同一文件的其他IP地址，文件名留空
+        writer.write(",\"");
+        writer.write(ipAddress);
+        writer.write("\",\"");
+        writer.write(decimalValue);
+        writer.write("\"\n");
+        return fileName;
+    }
 
-        sql.append(");");
+    /**
+     * 生成SQL查询文件（去重、分块）
+     *
+     * @param entries    导出的记录
+     * @param sqlPath    SQL文件路径
+     * @param sqlOptions SQL文件输出选项
+     */
+    private static void generateSQLFile(List<IPEntry> entries, String sqlPath, DeviceSqlWriter.Options sqlOptions) {
+        if (entries.isEmpty()) {
+            log.info("没有数据可生成SQL查询");
+            return;
+        }
+
+        try (var sqlWriter = new DeviceSqlWriter(sqlPath, sqlOptions)) {
+            for (var entry : entries) {
+                sqlWriter.add(entry.decimalValue());
+            }
+        } catch (IOException e) {
+            log.error("生成SQL文件时发生错误: {}", e.getMessage(), e);
+        }
+    }
 
-        log.info("\n=== SQL查询语句 ===");
-        log.info(sql.toString());
-        log.info("==================\n");
+    /**
+     * 生成IP索引文件
+     *
+     * @param entries   导出的记录
+     * @param indexPath 索引文件路径
+     */
+    private static void generateIndexFile(List<IPEntry> entries, String indexPath) {
+        var indexWriter = new IPIndexWriter(indexPath);
+        for (var entry : entries) {
+            indexWriter.add(entry.fileName(), entry.decimalValue());
+        }
+        try {
+            indexWriter.close();
+        } catch (IOException e) {
+            log.error("生成IP索引文件时发生错误: {}", e.getMessage(), e);
+        }
     }
 
     /**
@@ -118,14 +380,14 @@ public class IPExporter {
      *
      * @return 记录数量
      */
-    public int getRecordCount() {
-        return ipEntries.size();
+    public synchronized int getRecordCount() {
+        return streamWriter == null ? ipEntries.size() : streamedCount;
     }
 
     /**
      * 清空所有记录
      */
-    public void clear() {
+    public synchronized void clear() {
         ipEntries.clear();
     }
-}
\ No newline at end of file
+}
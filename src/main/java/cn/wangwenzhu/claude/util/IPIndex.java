@@ -0,0 +1,225 @@
+package cn.wangwenzhu.claude.util;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IP索引查询
+ * 以只读方式内存映射 {@link IPIndexWriter} 写出的索引文件，IPv4数值和源文件ID直接从映射区读取，
+ * 不加载到堆内存；查询为二分查找，可在多个线程中并发使用
+ * <p>
+ * 映射在对象被回收时释放，索引文件被替换后需重新打开才能看到新内容
+ */
+public final class IPIndex {
+
+    private final IntBuffer ips;
+
+    private final IntBuffer fileIds;
+
+    private final String[] fileNames;
+
+    /**
+     * 查询结果
+     *
+     * @param ipAddress  IP地址
+     * @param ip         IPv4数值
+     * @param sourceFile 源文件名
+     */
+    public record Entry(String ipAddress, long ip, String sourceFile) {
+    }
+
+    private IPIndex(IntBuffer ips, IntBuffer fileIds, String[] fileNames) {
+        this.ips = ips;
+        this.fileIds = fileIds;
+        this.fileNames = fileNames;
+    }
+
+    /**
+     * 打开索引文件
+     *
+     * @param path 索引文件路径
+     * @return 索引
+     * @throws IOException 文件无法读取或格式不正确
+     */
+    public static IPIndex open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < IPIndexWriter.HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("索引文件大小无效: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != IPIndexWriter.MAGIC || buffer.getInt(4) != IPIndexWriter.FORMAT_VERSION) {
+            throw new IOException("不是有效的IP索引文件: " + path);
+        }
+        var count = buffer.getInt(8);
+        var fileCount = buffer.getInt(12);
+        var namesOffset = buffer.getLong(16);
+        if (count < 0 || fileCount < 0 || namesOffset != IPIndexWriter.HEADER_SIZE + 8L * count
+                || namesOffset > buffer.capacity()) {
+            throw new IOException("IP索引文件头损坏: " + path);
+        }
+
+        var ips = buffer.slice(IPIndexWriter.HEADER_SIZE, 4 * count).asIntBuffer();
+        var fileIds = buffer.slice(IPIndexWriter.HEADER_SIZE + 4 * count, 4 * count).asIntBuffer();
+
+        var fileNames = new String[fileCount];
+        var position = (int) namesOffset;
+        for (var i = 0; i < fileCount; i++) {
+            if (position > buffer.capacity() - Integer.BYTES) {
+                throw new IOException("IP索引文件名表损坏: " + path);
+            }
+            var length = buffer.getInt(position);
+            if (length < 0 || (long) position + Integer.BYTES + length > buffer.capacity()) {
+                throw new IOException("IP索引文件名表损坏: " + path);
+            }
+            var bytes = new byte[length];
+            buffer.get(position + Integer.BYTES, bytes);
+            fileNames[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += Integer.BYTES + length;
+        }
+        return new IPIndex(ips, fileIds, fileNames);
+    }
+
+    /**
+     * 索引中的记录数（相同IP来自不同文件时各占一条）
+     */
+    public int size() {
+        return ips.limit();
+    }
+
+    /**
+     * 索引包含的源文件名
+     */
+    public List<String> sourceFiles() {
+        return List.of(fileNames);
+    }
+
+    /**
+     * 判断IP地址是否存在
+     *
+     * @param ipAddress IP地址字符串，格式无效时返回false
+     */
+    public boolean contains(String ipAddress) {
+        var ip = IPConverter.parseIpv4(ipAddress);
+        return ip != IPConverter.INVALID && contains(ip);
+    }
+
+    /**
+     * 判断IPv4数值是否存在
+     */
+    public boolean contains(long ip) {
+        var index = lowerBound(ip);
+        return index < size() && ipAt(index) == ip;
+    }
+
+    /**
+     * 查询包含指定IP地址的源文件
+     *
+     * @param ipAddress IP地址字符串
+     * @return 源文件名列表，不存在或格式无效时为空
+     */
+    public List<String> sourcesOf(String ipAddress) {
+        var ip = IPConverter.parseIpv4(ipAddress);
+        if (ip == IPConverter.INVALID) {
+            return List.of();
+        }
+        return range(ip, ip).stream().map(Entry::sourceFile).toList();
+    }
+
+    /**
+     * 统计 [from, to] 范围内的记录数
+     */
+    public int countInRange(long from, long to) {
+        if (from > to) {
+            return 0;
+        }
+        return lowerBound(to + 1) - lowerBound(from);
+    }
+
+    /**
+     * 查询 [from, to] 范围内的全部记录，按IP升序
+     *
+     * @param from 起始IPv4数值（含）
+     * @param to   结束IPv4数值（含）
+     */
+    public List<Entry> range(long from, long to) {
+        if (from > to) {
+            return List.of();
+        }
+        var start = lowerBound(from);
+        var end = lowerBound(to + 1);
+        var entries = new ArrayList<Entry>(end - start);
+        for (var i = start; i < end; i++) {
+            var ip = ipAt(i);
+            var ipAddress = IPConverter.appendIpv4(new StringBuilder(IPConverter.MAX_IPV4_LENGTH), ip).toString();
+            entries.add(new Entry(ipAddress, ip, fileNames[fileIds.get(i)]));
+        }
+        return entries;
+    }
+
+    /**
+     * 查询CIDR网段内的全部记录，例如 "10.2.0.0/16"
+     *
+     * @param cidr CIDR表示的网段，不带前缀长度时按单个地址处理
+     * @throws IllegalArgumentException 格式无效
+     */
+    public List<Entry> cidr(String cidr) {
+        var range = cidrRange(cidr);
+        return range(range[0], range[1]);
+    }
+
+    /**
+     * 解析CIDR网段
+     *
+     * @return [起始IPv4数值, 结束IPv4数值]
+     */
+    static long[] cidrRange(String cidr) {
+        var slash = cidr.indexOf('/');
+        var base = IPConverter.parseIpv4(cidr, 0, slash < 0 ? cidr.length() : slash);
+        var prefix = 32;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                prefix = -1;
+            }
+        }
+        if (base == IPConverter.INVALID || prefix < 0 || prefix > 32) {
+            throw new IllegalArgumentException("无效的CIDR网段: " + cidr);
+        }
+
+        var mask = prefix == 0 ? 0L : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        var from = base & mask;
+        return new long[]{from, from | (~mask & 0xFFFFFFFFL)};
+    }
+
+    private long ipAt(int index) {
+        return Integer.toUnsignedLong(ips.get(index));
+    }
+
+    /**
+     * 第一个IPv4数值不小于 ip 的位置
+     */
+    private int lowerBound(long ip) {
+        var low = 0;
+        var high = size();
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (ipAt(mid) < ip) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,209 @@
+package cn.wangwenzhu.claude.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IP索引文件写入工具类
+ * 收集 (IPv4数值, 源文件) 记录，关闭时排序去重后写出二进制索引文件，供 {@link IPIndex} 内存映射查询
+ * <p>
+ * 文件格式（大端序）：
+ * <ul>
+ *     <li>文件头 {@value #HEADER_SIZE} 字节：魔数、格式版本、记录数 n、源文件数、源文件名表偏移量（long）</li>
+ *     <li>IPv4数值 int[n]，按无符号值升序排列</li>
+ *     <li>源文件ID int[n]，与IPv4数值一一对应</li>
+ *     <li>源文件名表：每个文件名为 int 长度 + UTF-8 字节，ID 即表中位置</li>
+ * </ul>
+ * 每条记录在内存中占8字节（IPv4数值和源文件ID打包为一个long），排序后直接写出
+ */
+@Slf4j
+public class IPIndexWriter implements Closeable {
+
+    static final int MAGIC = 0x49504958; // "IPIX"
+
+    static final int FORMAT_VERSION = 1;
+
+    static final int HEADER_SIZE = 24;
+
+    // 单个内存映射区域不能超过2GB
+    private static final int MAX_ENTRIES = (Integer.MAX_VALUE - HEADER_SIZE) / 8 - (1 << 20);
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final String outputPath;
+
+    private final Map<String, Integer> fileIds = new HashMap<>();
+
+    private final List<String> fileNames = new ArrayList<>();
+
+    private long[] keys = new long[1024];
+
+    private int size;
+
+    // 记录通常按文件连续到达，缓存上一个文件的ID
+    private String lastFileName;
+
+    private int lastFileId;
+
+    public IPIndexWriter(String outputPath) {
+        this.outputPath = outputPath;
+    }
+
+    /**
+     * 根据CSV导出路径得到对应的索引文件路径
+     *
+     * @param csvPath CSV文件路径
+     * @return 同名的 .ipidx 文件路径
+     */
+    public static String indexPathFor(String csvPath) {
+        return IPExporter.siblingPath(csvPath, ".ipidx");
+    }
+
+    /**
+     * 添加一条记录，无效的十进制数值忽略
+     *
+     * @param fileName     源文件名
+     * @param decimalValue 十进制数值字符串
+     */
+    public void add(String fileName, String decimalValue) {
+        var value = IPConverter.parseDecimal(decimalValue);
+        if (value != IPConverter.INVALID) {
+            add(fileName, value);
+        }
+    }
+
+    /**
+     * 添加一条记录
+     *
+     * @param fileName 源文件名
+     * @param ip       0 ~ 4294967295 范围内的IPv4数值
+     */
+    public void add(String fileName, long ip) {
+        if (size == keys.length) {
+            if (size >= MAX_ENTRIES) {
+                throw new IllegalStateException("索引记录数超过上限: " + MAX_ENTRIES);
+            }
+            keys = Arrays.copyOf(keys, (int) Math.min(MAX_ENTRIES, size * 2L));
+        }
+        keys[size++] = key(ip, fileIdOf(fileName));
+    }
+
+    /**
+     * 已添加的记录数（去重前）
+     */
+    public int getEntryCount() {
+        return size;
+    }
+
+    /**
+     * 排序去重并写出索引文件，先写临时文件再原子替换，正在读取旧索引的进程不受影响
+     */
+    @Override
+    public void close() throws IOException {
+        Arrays.parallelSort(keys, 0, size);
+        var unique = 0;
+        for (var i = 0; i < size; i++) {
+            if (unique == 0 || keys[i] != keys[unique - 1]) {
+                keys[unique++] = keys[i];
+            }
+        }
+
+        var target = Path.of(outputPath).toAbsolutePath();
+        var tempFile = Files.createTempFile(target.getParent(), "ipidx-", ".tmp");
+        try {
+            try (var channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                write(channel, unique);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        log.info("IP索引已写入: {} ({}条记录, {}个源文件, 去除重复{}条)",
+                outputPath, unique, fileNames.size(), size - unique);
+    }
+
+    private void write(FileChannel channel, int count) throws IOException {
+        var names = new byte[fileNames.size()][];
+        for (var i = 0; i < names.length; i++) {
+            names[i] = fileNames.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        var buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        buffer.putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putInt(count)
+                .putInt(names.length)
+                .putLong(HEADER_SIZE + 8L * count);
+
+        for (var i = 0; i < count; i++) {
+            ensureRemaining(channel, buffer, Integer.BYTES);
+            buffer.putInt((int) ((keys[i] >>> 32) ^ 0x80000000L));
+        }
+        for (var i = 0; i < count; i++) {
+            ensureRemaining(channel, buffer, Integer.BYTES);
+            buffer.putInt((int) keys[i]);
+        }
+        for (var name : names) {
+            ensureRemaining(channel, buffer, Integer.BYTES);
+            buffer.putInt(name.length);
+            var offset = 0;
+            while (offset < name.length) {
+                ensureRemaining(channel, buffer, 1);
+                var length = Math.min(buffer.remaining(), name.length - offset);
+                buffer.put(name, offset, length);
+                offset += length;
+            }
+        }
+        flush(channel, buffer);
+        channel.force(false);
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private int fileIdOf(String fileName) {
+        if (fileName.equals(lastFileName)) {
+            return lastFileId;
+        }
+        var id = fileIds.computeIfAbsent(fileName, name -> {
+            fileNames.add(name);
+            return fileNames.size() - 1;
+        });
+        lastFileName = fileName;
+        lastFileId = id;
+        return id;
+    }
+
+    /**
+     * IPv4数值翻转符号位后放在高32位，按有符号long排序即为按无符号IPv4数值排序
+     */
+    private static long key(long ip, int fileId) {
+        return ((ip ^ 0x80000000L) << 32) | fileId;
+    }
+}
@@ -0,0 +1,126 @@
+package cn.wangwenzhu.claude.util;
+
+import java.util.Arrays;
+
+/**
+ * int开放寻址哈希集合
+ * 以int数组存储元素（线性探测），不产生装箱对象，适合对IPv4数值去重
+ * <p>
+ * 非线程安全
+ */
+public class IntHashSet {
+
+    private static final int EMPTY = 0;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] table;
+
+    private int mask;
+
+    private int size;
+
+    // 0作为空槽标记，单独记录
+    private boolean containsZero;
+
+    public IntHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预计元素数量
+     */
+    public IntHashSet(int expectedSize) {
+        var capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1;
+        table = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param value 元素
+     * @return 元素原本不存在时返回true
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        var index = slot(value);
+        int current;
+        while ((current = table[index]) != EMPTY) {
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        // 负载因子达到0.5时扩容
+        if (++size > (mask + 1) >>> 1) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * 是否包含元素
+     */
+    public boolean contains(int value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+
+        var index = slot(value);
+        int current;
+        while ((current = table[index]) != EMPTY) {
+            if (current == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 元素数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空集合（保留已分配的容量）
+     */
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        containsZero = false;
+        size = 0;
+    }
+
+    private int slot(int value) {
+        // 乘法散列，打散连续的IP地址
+        var hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash() {
+        var oldTable = table;
+        table = new int[oldTable.length << 1];
+        mask = table.length - 1;
+        for (var value : oldTable) {
+            if (value != EMPTY) {
+                var index = slot(value);
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+}
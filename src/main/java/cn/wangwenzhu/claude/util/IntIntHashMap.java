@@ -0,0 +1,116 @@
+package cn.wangwenzhu.claude.util;
+
+/**
+ * int到int的开放寻址哈希表
+ * 每个槽位是一个long（高32位为键、低32位为值），键和值相邻存放，线性探测时只访问一个数组，不产生装箱对象
+ * <p>
+ * 负载因子0.75，每个键平均占用约11~21字节。非线程安全
+ */
+public class IntIntHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+
+    private int mask;
+
+    private int size;
+
+    // 键0的槽位与空槽无法区分，单独记录
+    private boolean containsZeroKey;
+
+    private int zeroKeyValue;
+
+    public IntIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预计键数量
+     */
+    public IntIntHashMap(int expectedSize) {
+        var capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 4 / 3)) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 获取键对应的值
+     *
+     * @param key          键
+     * @param defaultValue 键不存在时返回的值
+     */
+    public int get(int key, int defaultValue) {
+        if (key == 0) {
+            return containsZeroKey ? zeroKeyValue : defaultValue;
+        }
+
+        var index = slot(key);
+        long current;
+        while ((current = table[index]) != 0) {
+            if ((int) (current >>> 32) == key) {
+                return (int) current;
+            }
+            index = (index + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 设置键对应的值，已存在时覆盖
+     */
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroKeyValue = value;
+            return;
+        }
+
+        var entry = ((long) key << 32) | (value & 0xFFFFFFFFL);
+        var index = slot(key);
+        long current;
+        while ((current = table[index]) != 0) {
+            if ((int) (current >>> 32) == key) {
+                table[index] = entry;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = entry;
+        // 负载因子达到0.75时扩容
+        if (++size > (mask + 1) - ((mask + 1) >>> 2)) {
+            rehash();
+        }
+    }
+
+    /**
+     * 键数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private int slot(int key) {
+        // 乘法散列，打散连续的IP地址
+        var hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash() {
+        var oldTable = table;
+        table = new long[oldTable.length << 1];
+        mask = table.length - 1;
+        for (var entry : oldTable) {
+            if (entry != 0) {
+                var index = slot((int) (entry >>> 32));
+                while (table[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = entry;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package cn.wangwenzhu.claude.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * 表格数据源
+ * 将不同格式的文件统一为按工作表、按行回调的流式读取：
+ * <ul>
+ *     <li>.xlsx / .xlsm：POI事件模型（{@link XlsxRowSource}），多个较大的工作表可并行解析</li>
+ *     <li>.xls：HSSF事件模型（{@link XlsRowSource}）</li>
+ *     <li>.csv：逐字符解析（{@link CsvRowSource}），整个文件视为一个工作表</li>
+ * </ul>
+ * DOM模式下 .xlsx / .xls 使用 {@link DomRowSource} 加载完整工作簿后按同样的方式回调
+ */
+public interface RowSource {
+
+    /**
+     * 为每个工作表创建行处理器
+     */
+    @FunctionalInterface
+    interface SheetHandlerFactory {
+
+        /**
+         * 开始读取一个工作表；并行解析时可能在不同线程中调用
+         *
+         * @param sheetIndex 工作表序号（从0开始）
+         * @param sheetName  工作表名称
+         * @return 该工作表的行处理器
+         */
+        SheetRowHandler sheetStarted(int sheetIndex, String sheetName);
+    }
+
+    /**
+     * 读取全部工作表
+     *
+     * @param handlers 行处理器工厂
+     * @param executor 并行解析工作表使用的执行器，为null时顺序读取；不支持并行的数据源忽略此参数
+     * @throws IOException 文件无法读取或格式错误
+     */
+    void read(SheetHandlerFactory handlers, Executor executor) throws IOException;
+
+    /**
+     * 是否为支持的文件格式
+     */
+    static boolean isSupported(String fileName) {
+        var name = fileName.toLowerCase(Locale.ROOT);
+        return !name.startsWith("~$")
+                && (name.endsWith(".xlsx") || name.endsWith(".xlsm") || name.endsWith(".xls") || name.endsWith(".csv"));
+    }
+
+    /**
+     * 根据扩展名创建流式数据源
+     */
+    static RowSource streaming(File file) {
+        var name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return new CsvRowSource(file);
+        }
+        if (name.endsWith(".xls")) {
+            return new XlsRowSource(file);
+        }
+        return new XlsxRowSource(file);
+    }
+
+    /**
+     * 根据内容开头的签名创建输入流上的数据源（HTTP上传等不可回退的流），流由数据源关闭：
+     * zip签名按xlsx读取（{@link XlsxZipStreamSource}），其他内容按csv读取。
+     * xls（OLE2）需要随机访问整个文件，不支持
+     *
+     * @param in       输入流
+     * @param fileName 文件名，用作csv的工作表名称和错误信息
+     * @throws IOException 读取失败或内容为xls
+     */
+    static RowSource streaming(InputStream in, String fileName) throws IOException {
+        var buffered = in.markSupported() ? in : new BufferedInputStream(in);
+        buffered.mark(4);
+        var magic = buffered.readNBytes(4);
+        buffered.reset();
+
+        if (magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            return new XlsxZipStreamSource(buffered, fileName);
+        }
+        if (magic.length == 4 && (magic[0] & 0xFF) == 0xD0 && (magic[1] & 0xFF) == 0xCF
+                && (magic[2] & 0xFF) == 0x11 && (magic[3] & 0xFF) == 0xE0) {
+            buffered.close();
+            throw new IOException("xls文件或加密的xlsx文件需要随机访问，不支持从输入流读取: " + fileName);
+        }
+        return new CsvRowSource(buffered, fileName);
+    }
+
+    /**
+     * 根据扩展名创建DOM数据源（.csv没有DOM模式，仍使用流式读取）
+     */
+    static RowSource dom(File file) {
+        if (file.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return new CsvRowSource(file);
+        }
+        return new DomRowSource(file);
+    }
+}
@@ -0,0 +1,111 @@
+package cn.wangwenzhu.claude.util;
+
+import java.util.BitSet;
+
+/**
+ * 单个工作表的通讯主机号列判定
+ * <ul>
+ *     <li>标题行单遍判定：逐个单元格同时检查精确匹配"通讯主机号"和包含"通讯"关键字，精确匹配优先，都没有时使用第一列</li>
+ *     <li>主机号列为空时回退到整行查找形如IP地址的单元格。前 {@value #SAMPLE_ROWS} 个回退行扫描全部列，
+ *     记录命中的列；之后只扫描这些列，其余列不再检查。采样期间没有任何命中时继续扫描全部列</li>
+ * </ul>
+ * 非线程安全，每个工作表使用一个实例
+ */
+final class SheetHostColumns {
+
+    static final String COMM_HOST_HEADER = "通讯主机号";
+
+    static final int SAMPLE_ROWS = 64;
+
+    // 标题行状态
+    private int exactHeaderIndex = -1;
+    private int keywordHeaderIndex = -1;
+    private boolean firstColumnPresent;
+    private int hostColumnIndex = -1;
+
+    // 回退扫描的列判定
+    private final BitSet ipColumns = new BitSet();
+    private int sampledRows;
+    private boolean ipColumnsDecided;
+
+    /**
+     * 处理标题行的一个非空单元格
+     *
+     * @param column 列索引
+     * @param value  单元格文本
+     */
+    void headerCell(int column, String value) {
+        if (column == 0) {
+            firstColumnPresent = true;
+        }
+        if (exactHeaderIndex == -1 && COMM_HOST_HEADER.equals(value)) {
+            exactHeaderIndex = column;
+        } else if (keywordHeaderIndex == -1 && value.contains("通讯")) {
+            keywordHeaderIndex = column;
+        }
+    }
+
+    /**
+     * 标题行结束，确定通讯主机号列
+     *
+     * @return 通讯主机号列索引，-1表示无法确定
+     */
+    int resolveHostColumn() {
+        if (exactHeaderIndex != -1) {
+            hostColumnIndex = exactHeaderIndex;
+        } else if (keywordHeaderIndex != -1) {
+            hostColumnIndex = keywordHeaderIndex;
+        } else if (firstColumnPresent) {
+            hostColumnIndex = 0;
+        }
+        return hostColumnIndex;
+    }
+
+    /**
+     * 通讯主机号列索引，-1表示无法确定
+     */
+    int hostColumnIndex() {
+        return hostColumnIndex;
+    }
+
+    /**
+     * 是否使用第一列作为默认的主机号列（标题行中没有找到"通讯"相关的列）
+     */
+    boolean isFirstColumnFallback() {
+        return hostColumnIndex == 0 && exactHeaderIndex == -1 && keywordHeaderIndex == -1;
+    }
+
+    /**
+     * 该列是否需要在回退时扫描
+     */
+    boolean mayHoldIp(int column) {
+        return !ipColumnsDecided || ipColumns.get(column);
+    }
+
+    /**
+     * 回退扫描时判断单元格是否形如IP地址；已确定IP列时，其他列直接跳过
+     *
+     * @param column 列索引
+     * @param value  单元格文本
+     */
+    boolean isIpCandidate(int column, String value) {
+        return mayHoldIp(column) && IPConverter.containsIpv4Token(value);
+    }
+
+    /**
+     * 一个回退行扫描结束
+     *
+     * @param matchedColumn 命中的列索引，没有命中时为-1
+     */
+    void fallbackRowScanned(int matchedColumn) {
+        if (ipColumnsDecided) {
+            return;
+        }
+        if (matchedColumn >= 0) {
+            ipColumns.set(matchedColumn);
+        }
+        if (++sampledRows >= SAMPLE_ROWS && !ipColumns.isEmpty()) {
+            ipColumnsDecided = true;
+        }
+    }
+}
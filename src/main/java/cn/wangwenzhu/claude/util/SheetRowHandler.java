@@ -0,0 +1,30 @@
+package cn.wangwenzhu.claude.util;
+
+/**
+ * 工作表行处理器
+ * 数据源按行顺序回调，同一行内单元格按列顺序回调；空单元格可以不回调
+ */
+public interface SheetRowHandler {
+
+    /**
+     * 开始一行
+     *
+     * @param rowNum 行号（从0开始）
+     */
+    void startRow(int rowNum);
+
+    /**
+     * 一个非空单元格
+     *
+     * @param column 列索引（从0开始）
+     * @param value  单元格的显示文本
+     */
+    void cell(int column, String value);
+
+    /**
+     * 结束一行
+     *
+     * @param rowNum 行号（从0开始）
+     */
+    void endRow(int rowNum);
+}
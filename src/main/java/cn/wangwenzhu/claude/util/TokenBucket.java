@@ -0,0 +1,75 @@
+package cn.wangwenzhu.claude.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶（GCRA算法）
+ * 不保存令牌数，只保存"理论到达时间"（下一个令牌可用的时刻），获取令牌时用一次CAS向后推进，
+ * 不需要定时补充令牌的线程，也不加锁
+ * <p>
+ * 桶中至少有一个令牌时即允许获取，一次获取多个令牌（批量提交）时可以透支，透支部分由之后的获取等待偿还
+ */
+public final class TokenBucket {
+
+    // 每个令牌的产生间隔
+    private final long intervalNanos;
+
+    // 突发容量对应的时长
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param ratePerSecond 每秒产生的令牌数
+     * @param burst         桶容量（允许的突发数量）
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("令牌桶速率和容量必须大于0: " + ratePerSecond + ", " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 获取令牌
+     *
+     * @param permits 令牌数
+     * @return 0表示获取成功，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(int permits) {
+        return tryAcquire(permits, System.nanoTime());
+    }
+
+    long tryAcquire(int permits, long now) {
+        while (true) {
+            var current = theoreticalArrival.get();
+            var start = current - now > 0 ? current : now;
+            var wait = start - burstNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, start + intervalNanos * permits)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 退还令牌（获取后请求又被其他检查拒绝时），退还的令牌不会使桶超过容量
+     *
+     * @param permits 令牌数
+     */
+    public void release(int permits) {
+        theoreticalArrival.addAndGet(-intervalNanos * permits);
+    }
+
+    /**
+     * 桶是否已满（一段时间内没有获取），可以丢弃后按需重建
+     */
+    public boolean isIdle() {
+        return theoreticalArrival.get() - System.nanoTime() <= 0;
+    }
+}
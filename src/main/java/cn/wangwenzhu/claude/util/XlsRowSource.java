@@ -0,0 +1,159 @@
+package cn.wangwenzhu.claude.util;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * xls流式数据源
+ * 基于HSSF事件模型逐条处理BIFF记录，不构建HSSFWorkbook对象。
+ * 工作表记录在文件中顺序存放，只能顺序解析，忽略执行器参数
+ * <p>
+ * 公式单元格取缓存的计算结果；数值和日期按单元格格式转换为显示文本
+ */
+final class XlsRowSource implements RowSource {
+
+    private final File file;
+
+    XlsRowSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void read(SheetHandlerFactory handlers, Executor executor) throws IOException {
+        try (var fs = new POIFSFileSystem(file, true)) {
+            var listener = new RecordListener(handlers);
+            var request = new HSSFRequest();
+            request.addListenerForAllRecords(listener.formatListener);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    /**
+     * 将BIFF记录转换为按工作表、按行的回调
+     */
+    private static final class RecordListener implements HSSFListener {
+
+        private final SheetHandlerFactory handlers;
+
+        private final FormatTrackingHSSFListener formatListener;
+
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+
+        private BoundSheetRecord[] orderedSheets;
+
+        private SSTRecord sharedStrings;
+
+        // 当前工作表状态
+        private int sheetIndex = -1;
+        private SheetRowHandler handler;
+        private int currentRow = -1;
+
+        // 字符串结果的公式，值在随后的StringRecord中
+        private boolean nextIsFormulaString;
+        private int formulaRow;
+        private int formulaColumn;
+
+        private RecordListener(SheetHandlerFactory handlers) {
+            this.handlers = handlers;
+            this.formatListener = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(this));
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            switch (record) {
+                case BoundSheetRecord boundSheet -> boundSheets.add(boundSheet);
+                case BOFRecord bof when bof.getType() == BOFRecord.TYPE_WORKSHEET -> startSheet();
+                case SSTRecord sst -> sharedStrings = sst;
+                case LabelSSTRecord label -> {
+                    if (sharedStrings != null) {
+                        cell(label.getRow(), label.getColumn(), sharedStrings.getString(label.getSSTIndex()).getString());
+                    }
+                }
+                case LabelRecord label -> cell(label.getRow(), label.getColumn(), label.getValue());
+                case NumberRecord number -> cell(number.getRow(), number.getColumn(), formatListener.formatNumberDateCell(number));
+                case FormulaRecord formula -> {
+                    if (Double.isNaN(formula.getValue())) {
+                        // 字符串结果存放在下一条StringRecord中
+                        nextIsFormulaString = true;
+                        formulaRow = formula.getRow();
+                        formulaColumn = formula.getColumn();
+                    } else {
+                        cell(formula.getRow(), formula.getColumn(), formatListener.formatNumberDateCell(formula));
+                    }
+                }
+                case StringRecord string -> {
+                    if (nextIsFormulaString) {
+                        nextIsFormulaString = false;
+                        cell(formulaRow, formulaColumn, string.getString());
+                    }
+                }
+                case BoolErrRecord boolErr -> {
+                    if (boolErr.isBoolean()) {
+                        cell(boolErr.getRow(), boolErr.getColumn(), String.valueOf(boolErr.getBooleanValue()));
+                    }
+                }
+                case LastCellOfRowDummyRecord lastCell -> endRow(lastCell.getRow());
+                default -> {
+                }
+            }
+        }
+
+        private void startSheet() {
+            if (orderedSheets == null) {
+                orderedSheets = BoundSheetRecord.orderByBofPosition(boundSheets);
+            }
+            sheetIndex++;
+            var sheetName = sheetIndex < orderedSheets.length
+                    ? orderedSheets[sheetIndex].getSheetname()
+                    : "Sheet" + (sheetIndex + 1);
+            handler = handlers.sheetStarted(sheetIndex, sheetName);
+            currentRow = -1;
+            nextIsFormulaString = false;
+        }
+
+        private void cell(int row, int column, String value) {
+            if (handler == null) {
+                return;
+            }
+            if (row != currentRow) {
+                currentRow = row;
+                handler.startRow(row);
+            }
+            handler.cell(column, value);
+        }
+
+        private void endRow(int row) {
+            if (handler == null) {
+                return;
+            }
+            if (row != currentRow) {
+                // 只有空白单元格的行
+                handler.startRow(row);
+            }
+            handler.endRow(row);
+            currentRow = -1;
+            nextIsFormulaString = false;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package cn.wangwenzhu.claude.util;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * xlsx流式数据源
+ * 基于POI事件模型（XSSFReader + XSSFSheetXMLHandler）逐行解析全部工作表，
+ * 不构建完整的工作簿对象，内存占用与文件大小无关
+ * <p>
+ * 共享字符串表和样式表在所有工作表之间共享（只读），每个工作表使用独立的XML解析器和DataFormatter。
+ * 工作表数大于1且平均每个工作表不小于 {@value #PARALLEL_MIN_SHEET_BYTES} 字节时，
+ * 由调用线程和执行器中的辅助任务共同领取工作表并行解析；小文件的调度开销大于收益，仍顺序解析
+ */
+final class XlsxRowSource implements RowSource {
+
+    static final long PARALLEL_MIN_SHEET_BYTES = 256 * 1024;
+
+    private final File file;
+
+    XlsxRowSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void read(SheetHandlerFactory handlers, Executor executor) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("无法打开xlsx文件: " + e.getMessage(), e);
+        }
+
+        var sheetStreams = new ArrayList<InputStream>();
+        try {
+            var reader = new XSSFReader(pkg);
+            var sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            var styles = reader.getStylesTable();
+
+            var sheetNames = new ArrayList<String>();
+            var sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                sheetStreams.add(sheets.next());
+                sheetNames.add(sheets.getSheetName());
+            }
+
+            var sheetCount = sheetStreams.size();
+            if (executor == null || sheetCount < 2 || file.length() / sheetCount < PARALLEL_MIN_SHEET_BYTES) {
+                for (var i = 0; i < sheetCount; i++) {
+                    parseSheet(sheetStreams.get(i), handlers.sheetStarted(i, sheetNames.get(i)), styles, sharedStrings);
+                }
+            } else {
+                readInParallel(sheetStreams, sheetNames, handlers, executor, styles, sharedStrings);
+            }
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException("解析xlsx文件失败: " + e.getMessage(), e);
+        } finally {
+            for (var stream : sheetStreams) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                    // 只读流，关闭失败不影响结果
+                }
+            }
+            // 只读方式打开的包使用revert关闭，避免写回
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 并行解析工作表
+     * 辅助任务和调用线程从同一个计数器领取工作表，每个工作表只会被领取一次；
+     * 辅助任务被拒绝或迟迟未执行时由调用线程解析剩余的工作表，不会因线程池饱和而死锁
+     */
+    private static void readInParallel(List<InputStream> sheetStreams, List<String> sheetNames,
+                                       SheetHandlerFactory handlers, Executor executor,
+                                       StylesTable styles, ReadOnlySharedStringsTable sharedStrings) throws IOException {
+        var sheetCount = sheetStreams.size();
+        var nextSheet = new AtomicInteger();
+        var failed = new AtomicBoolean();
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Void>[] done = new CompletableFuture[sheetCount];
+        for (var i = 0; i < sheetCount; i++) {
+            done[i] = new CompletableFuture<>();
+        }
+
+        Runnable worker = () -> {
+            int i;
+            while ((i = nextSheet.getAndIncrement()) < sheetCount) {
+                if (failed.get()) {
+                    // 已有工作表失败，剩余的工作表不再解析
+                    done[i].complete(null);
+                    continue;
+                }
+                try {
+                    parseSheet(sheetStreams.get(i), handlers.sheetStarted(i, sheetNames.get(i)), styles, sharedStrings);
+                    done[i].complete(null);
+                } catch (Throwable t) {
+                    failed.set(true);
+                    done[i].completeExceptionally(t);
+                }
+            }
+        };
+
+        var helpers = Math.min(sheetCount, Runtime.getRuntime().availableProcessors()) - 1;
+        for (var i = 0; i < helpers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // 执行器饱和时由调用线程继续解析
+                break;
+            }
+        }
+        worker.run();
+
+        // 等待所有已领取的工作表结束后才能关闭包，失败时抛出第一个异常
+        Throwable failure = null;
+        for (var future : done) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure instanceof Error e) {
+            throw e;
+        }
+        if (failure != null) {
+            throw new IOException("解析工作表失败: " + failure.getMessage(), failure);
+        }
+    }
+
+    private static void parseSheet(InputStream sheetStream, SheetRowHandler handler,
+                                   StylesTable styles, ReadOnlySharedStringsTable sharedStrings) throws IOException {
+        try {
+            var xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+                    styles, sharedStrings, new ContentsAdapter(handler), new DataFormatter(), false));
+            xmlReader.parse(new InputSource(sheetStream));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("解析工作表失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 将单元格引用（如 "AB12"）的列字母部分解析为从0开始的列索引
+     */
+    static int columnIndexOf(String cellReference) {
+        var column = 0;
+        for (var i = 0; i < cellReference.length(); i++) {
+            var c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * 将POI的单元格事件转换为按列索引回调
+     */
+    private static final class ContentsAdapter implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final SheetRowHandler handler;
+
+        private int lastColumn = -1;
+
+        private ContentsAdapter(SheetRowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            lastColumn = -1;
+            handler.startRow(rowNum);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.endRow(rowNum);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            var column = cellReference != null ? columnIndexOf(cellReference) : lastColumn + 1;
+            lastColumn = column;
+            if (formattedValue != null) {
+                handler.cell(column, formattedValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,649 @@
+package cn.wangwenzhu.claude.util;
+
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.util.XMLHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 不可回退输入流上的xlsx数据源（HTTP上传等）
+ * OPCPackage需要随机访问整个压缩包，这里改为用ZipInputStream按压缩包中的顺序逐个读取部件，
+ * 不把整个文件读入内存，也不写临时文件：
+ * <ul>
+ *     <li>xl/workbook.xml 和 xl/_rels/workbook.xml.rels：工作表名称</li>
+ *     <li>xl/sharedStrings.xml：共享字符串表，保存在内存中（与事件模型的ReadOnlySharedStringsTable相同）</li>
+ *     <li>xl/worksheets/*.xml：逐行解析；共享字符串表已读取时立即回调</li>
+ * </ul>
+ * Excel保存的文件通常把工作表放在共享字符串表之前，此时工作表的单元格以紧凑形式（共享字符串只记录序号）暂存，
+ * 读到共享字符串表（或压缩包结束）后按原顺序回放。单元格值不按数字格式转换，数值单元格输出原始值
+ * <p>
+ * 不经过POI的 {@link ZipSecureFile}，这里自行防范压缩炸弹：限制单个部件和整个压缩包解压后的大小，
+ * 按 {@link ZipSecureFile#getMinInflateRatio()} 检查解压比例，并限制暂存的单元格数，超出时抛出 IOException
+ */
+final class XlsxZipStreamSource implements RowSource {
+
+    private static final String WORKBOOK = "xl/workbook.xml";
+
+    private static final String WORKBOOK_RELS = "xl/_rels/workbook.xml.rels";
+
+    private static final String SHARED_STRINGS = "xl/sharedStrings.xml";
+
+    private static final String WORKSHEETS = "xl/worksheets/";
+
+    // 最大列序号（XFD列）
+    private static final int MAX_COLUMN_INDEX = 16383;
+
+    // 部件解压超过该大小后才检查解压比例（与 ZipSecureFile 的宽限值相同），避免小部件误判
+    private static final long RATIO_GRACE_BYTES = 100 * 1024;
+
+    /**
+     * 解压限制
+     *
+     * @param maxEntryBytes    单个部件解压后的最大字节数
+     * @param maxTotalBytes    整个压缩包解压后的最大字节数
+     * @param maxDeferredCells 共享字符串表之前的工作表最多暂存的单元格数
+     */
+    record Limits(long maxEntryBytes, long maxTotalBytes, int maxDeferredCells) {
+
+        static final Limits DEFAULT = new Limits(256L << 20, 1L << 30, 5_000_000);
+    }
+
+    private final InputStream in;
+
+    private final String fileName;
+
+    private final Limits limits;
+
+    /**
+     * @param in       xlsx内容，流由本数据源关闭
+     * @param fileName 文件名，仅用于错误信息
+     */
+    XlsxZipStreamSource(InputStream in, String fileName) {
+        this(in, fileName, Limits.DEFAULT);
+    }
+
+    XlsxZipStreamSource(InputStream in, String fileName, Limits limits) {
+        this.in = in;
+        this.fileName = fileName;
+        this.limits = limits;
+    }
+
+    @Override
+    public void read(SheetHandlerFactory handlers, Executor executor) throws IOException {
+        var sheetNames = new SheetNames();
+        List<String> sharedStrings = null;
+        var deferred = new ArrayList<DeferredSheet>();
+        var deferredCells = 0;
+        var sheetIndex = 0;
+
+        var compressed = new CountingInputStream(in);
+        try (var zip = new ZipInputStream(compressed)) {
+            var inflated = new InflatedBytes();
+            for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                var name = entry.getName();
+                var part = new LimitedEntryStream(zip, compressed, inflated, name);
+                if (name.equals(WORKBOOK)) {
+                    parse(part, sheetNames.workbookHandler());
+                } else if (name.equals(WORKBOOK_RELS)) {
+                    parse(part, sheetNames.relationshipsHandler());
+                } else if (name.equals(SHARED_STRINGS)) {
+                    sharedStrings = readSharedStrings(part);
+                    // 回放在共享字符串表之前读取的工作表
+                    for (var sheet : deferred) {
+                        sheet.replay(handlers, sharedStrings);
+                    }
+                    deferred.clear();
+                } else if (name.startsWith(WORKSHEETS) && name.endsWith(".xml")) {
+                    var sheetName = sheetNames.nameOf(name, sheetIndex);
+                    if (sharedStrings != null) {
+                        var handler = handlers.sheetStarted(sheetIndex, sheetName);
+                        parse(part, new SheetHandler(new DirectEvents(handler, sharedStrings)));
+                    } else {
+                        var sheet = new DeferredSheet(sheetIndex, sheetName, limits.maxDeferredCells() - deferredCells);
+                        parse(part, new SheetHandler(sheet));
+                        deferred.add(sheet);
+                        deferredCells += sheet.cells;
+                    }
+                    sheetIndex++;
+                }
+                // 未解析的部件（以及解析器未读完的部分）同样计入解压限制
+                part.skipRemaining();
+                zip.closeEntry();
+            }
+        }
+
+        // 没有共享字符串表的工作簿（全部为数值或内联字符串）
+        for (var sheet : deferred) {
+            sheet.replay(handlers, List.of());
+        }
+        if (sheetIndex == 0) {
+            throw new IOException("不是有效的xlsx文件（没有工作表）: " + fileName);
+        }
+    }
+
+    private static void parse(InputStream part, DefaultHandler handler) throws IOException {
+        try {
+            var reader = XMLHelper.newXMLReader();
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(part));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("解析xlsx部件失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<String> readSharedStrings(InputStream part) throws IOException {
+        var strings = new ArrayList<String>();
+        parse(part, new DefaultHandler() {
+
+            private final StringBuilder text = new StringBuilder();
+            private boolean inText;
+            private boolean inPhonetic;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                switch (localName(localName, qName)) {
+                    case "si" -> text.setLength(0);
+                    case "rPh" -> inPhonetic = true;
+                    case "t" -> inText = !inPhonetic;
+                    default -> {
+                    }
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                switch (localName(localName, qName)) {
+                    case "si" -> strings.add(text.toString());
+                    case "rPh" -> inPhonetic = false;
+                    case "t" -> inText = false;
+                    default -> {
+                    }
+                }
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                if (inText) {
+                    text.append(ch, start, length);
+                }
+            }
+        });
+        return strings;
+    }
+
+    private static String localName(String localName, String qName) {
+        if (localName != null && !localName.isEmpty()) {
+            return localName;
+        }
+        var colon = qName.indexOf(':');
+        return colon >= 0 ? qName.substring(colon + 1) : qName;
+    }
+
+    /**
+     * 工作表的单元格事件，共享字符串只给出序号
+     */
+    private interface CellEvents {
+
+        void startRow(int rowNum);
+
+        void sharedString(int column, int index) throws SAXException;
+
+        void text(int column, String value) throws SAXException;
+
+        void endRow(int rowNum);
+    }
+
+    /**
+     * 共享字符串表已读取，直接回调
+     */
+    private record DirectEvents(SheetRowHandler handler, List<String> sharedStrings) implements CellEvents {
+
+        @Override
+        public void startRow(int rowNum) {
+            handler.startRow(rowNum);
+        }
+
+        @Override
+        public void sharedString(int column, int index) {
+            if (index >= 0 && index < sharedStrings.size()) {
+                handler.cell(column, sharedStrings.get(index));
+            }
+        }
+
+        @Override
+        public void text(int column, String value) {
+            handler.cell(column, value);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.endRow(rowNum);
+        }
+    }
+
+    /**
+     * 暂存的工作表：事件编码为int序列，共享字符串只保存序号，其他文本单独保存
+     */
+    private static final class DeferredSheet implements CellEvents {
+
+        private static final int START_ROW = 0;
+        private static final int SHARED_STRING = 1;
+        private static final int TEXT = 2;
+        private static final int END_ROW = 3;
+
+        private final int sheetIndex;
+
+        private final String sheetName;
+
+        private final int maxCells;
+
+        private final List<String> texts = new ArrayList<>();
+
+        private int[] events = new int[256];
+
+        private int size;
+
+        private int cells;
+
+        private DeferredSheet(int sheetIndex, String sheetName, int maxCells) {
+            this.sheetIndex = sheetIndex;
+            this.sheetName = sheetName;
+            this.maxCells = maxCells;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            append(START_ROW, rowNum);
+        }
+
+        @Override
+        public void sharedString(int column, int index) throws SAXException {
+            countCell();
+            append(SHARED_STRING, column, index);
+        }
+
+        @Override
+        public void text(int column, String value) throws SAXException {
+            countCell();
+            append(TEXT, column, texts.size());
+            texts.add(value);
+        }
+
+        private void countCell() throws SAXException {
+            if (++cells > maxCells) {
+                throw new SAXException("共享字符串表之前的工作表单元格过多，暂存的单元格超过上限");
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            append(END_ROW, rowNum);
+        }
+
+        private void append(int... values) {
+            if (size + values.length > events.length) {
+                events = Arrays.copyOf(events, Math.max(events.length * 2, size + values.length));
+            }
+            System.arraycopy(values, 0, events, size, values.length);
+            size += values.length;
+        }
+
+        private void replay(SheetHandlerFactory handlers, List<String> sharedStrings) {
+            var target = new DirectEvents(handlers.sheetStarted(sheetIndex, sheetName), sharedStrings);
+            var i = 0;
+            while (i < size) {
+                switch (events[i]) {
+                    case START_ROW -> {
+                        target.startRow(events[i + 1]);
+                        i += 2;
+                    }
+                    case SHARED_STRING -> {
+                        target.sharedString(events[i + 1], events[i + 2]);
+                        i += 3;
+                    }
+                    case TEXT -> {
+                        target.text(events[i + 1], texts.get(events[i + 2]));
+                        i += 3;
+                    }
+                    default -> {
+                        target.endRow(events[i + 1]);
+                        i += 2;
+                    }
+                }
+            }
+            // 释放暂存的事件
+            events = new int[0];
+            texts.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * 工作表XML解析：row开始/结束时回调行事件，每个c结束时回调一个单元格
+     */
+    private static final class SheetHandler extends DefaultHandler {
+
+        private final CellEvents events;
+
+        private final StringBuilder value = new StringBuilder();
+
+        private int currentRow = -1;
+        private int lastColumn = -1;
+
+        // 当前单元格
+        private int column;
+        private String type;
+        private boolean inValue;
+        private boolean inInlineText;
+
+        private SheetHandler(CellEvents events) {
+            this.events = events;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            switch (localName(localName, qName)) {
+                case "row" -> {
+                    var r = attributes.getValue("r");
+                    currentRow = r != null ? rowIndexOf(r) : currentRow + 1;
+                    lastColumn = -1;
+                    events.startRow(currentRow);
+                }
+                case "c" -> {
+                    var r = attributes.getValue("r");
+                    column = r != null ? columnIndexOf(r) : lastColumn + 1;
+                    lastColumn = column;
+                    type = attributes.getValue("t");
+                    value.setLength(0);
+                }
+                case "v" -> inValue = true;
+                case "t" -> inInlineText = "inlineStr".equals(type);
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName(localName, qName)) {
+                case "v" -> inValue = false;
+                case "t" -> inInlineText = false;
+                case "c" -> cellEnded();
+                case "row" -> events.endRow(currentRow);
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineText) {
+                value.append(ch, start, length);
+            }
+        }
+
+        /**
+         * 单元格引用中的列序号；没有列字母或超出XFD列时按格式错误处理，不把负数或溢出的列序号交给回调
+         */
+        private static int columnIndexOf(String r) throws SAXException {
+            var letters = 0;
+            while (letters < r.length() && r.charAt(letters) >= 'A' && r.charAt(letters) <= 'Z') {
+                letters++;
+            }
+            var column = letters > 0 && letters <= 3 ? XlsxRowSource.columnIndexOf(r) : -1;
+            if (column < 0 || column > MAX_COLUMN_INDEX) {
+                throw new SAXException("无效的单元格引用: " + r);
+            }
+            return column;
+        }
+
+        private static int rowIndexOf(String r) throws SAXException {
+            try {
+                var row = Integer.parseInt(r);
+                if (row >= 1) {
+                    return row - 1;
+                }
+            } catch (NumberFormatException ignored) {
+                // 下面统一抛出
+            }
+            throw new SAXException("无效的行号: " + r);
+        }
+
+        private void cellEnded() throws SAXException {
+            if (value.isEmpty()) {
+                return;
+            }
+            var text = value.toString();
+            if (type == null) {
+                events.text(column, text);
+                return;
+            }
+            switch (type) {
+                case "s" -> {
+                    try {
+                        events.sharedString(column, Integer.parseInt(text.trim()));
+                    } catch (NumberFormatException ignored) {
+                        // 无效的共享字符串序号，按空单元格处理
+                    }
+                }
+                case "b" -> events.text(column, "1".equals(text) ? "TRUE" : "FALSE");
+                case "e" -> {
+                    // 错误值不输出
+                }
+                default -> events.text(column, text);
+            }
+        }
+    }
+
+    /**
+     * 工作表名称：workbook.xml 中的 sheet 元素给出名称和关系ID，关系文件给出关系ID对应的部件路径
+     */
+    private static final class SheetNames {
+
+        private final Map<String, String> nameByRelationId = new HashMap<>();
+
+        private final Map<String, String> partByRelationId = new HashMap<>();
+
+        private final List<String> namesInOrder = new ArrayList<>();
+
+        private String nameOf(String partName, int sheetIndex) {
+            for (var entry : partByRelationId.entrySet()) {
+                if (entry.getValue().equals(partName)) {
+                    var name = nameByRelationId.get(entry.getKey());
+                    if (name != null) {
+                        return name;
+                    }
+                }
+            }
+            return sheetIndex < namesInOrder.size() ? namesInOrder.get(sheetIndex) : "Sheet" + (sheetIndex + 1);
+        }
+
+        private DefaultHandler workbookHandler() {
+            return new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if (!"sheet".equals(localName(localName, qName))) {
+                        return;
+                    }
+                    var name = attributes.getValue("name");
+                    namesInOrder.add(name);
+                    for (var i = 0; i < attributes.getLength(); i++) {
+                        if ("id".equals(localName(attributes.getLocalName(i), attributes.getQName(i)))) {
+                            nameByRelationId.put(attributes.getValue(i), name);
+                        }
+                    }
+                }
+            };
+        }
+
+        private DefaultHandler relationshipsHandler() {
+            return new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if (!"Relationship".equals(localName(localName, qName))) {
+                        return;
+                    }
+                    var target = attributes.getValue("Target");
+                    if (target != null) {
+                        partByRelationId.put(attributes.getValue("Id"),
+                                target.startsWith("/") ? target.substring(1) : "xl/" + target);
+                    }
+                }
+            };
+        }
+    }
+
+    private static String sizeOf(long bytes) {
+        return bytes >= 1 << 20 ? (bytes >> 20) + " MB" : bytes + " 字节";
+    }
+
+    /**
+     * 统计从原始输入流读取的（压缩）字节数
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * 整个压缩包已解压的字节数
+     */
+    private static final class InflatedBytes {
+        private long total;
+    }
+
+    /**
+     * 单个部件的输入流：统计解压字节数并检查解压限制；
+     * 关闭时不关闭压缩包流（XML解析器在部件结束时会关闭输入流），由外层的ZipInputStream统一关闭
+     */
+    private final class LimitedEntryStream extends FilterInputStream {
+
+        private final CountingInputStream compressed;
+
+        private final InflatedBytes inflated;
+
+        private final String entryName;
+
+        private final long compressedAtStart;
+
+        private long entryBytes;
+
+        private LimitedEntryStream(ZipInputStream zip, CountingInputStream compressed, InflatedBytes inflated,
+                                   String entryName) {
+            super(zip);
+            this.compressed = compressed;
+            this.inflated = inflated;
+            this.entryName = entryName;
+            this.compressedAtStart = compressed.count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = super.read();
+            if (b >= 0) {
+                inflated(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var n = super.read(b, off, len);
+            if (n > 0) {
+                inflated(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的内容同样需要解压，按读取处理
+            var buffer = new byte[(int) Math.min(n, 8192)];
+            var skipped = 0L;
+            while (skipped < n) {
+                var read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            // 由外层的ZipInputStream统一关闭
+        }
+
+        private void skipRemaining() throws IOException {
+            var buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) >= 0) {
+                // 读到部件结束
+            }
+        }
+
+        private void inflated(int n) throws IOException {
+            entryBytes += n;
+            inflated.total += n;
+            if (entryBytes > limits.maxEntryBytes()) {
+                throw new IOException("上传文件中的部件解压后超过 " + sizeOf(limits.maxEntryBytes())
+                        + "，拒绝读取: " + fileName + " / " + entryName);
+            }
+            if (inflated.total > limits.maxTotalBytes()) {
+                throw new IOException("上传文件解压后超过 " + sizeOf(limits.maxTotalBytes()) + "，拒绝读取: " + fileName);
+            }
+            // ZipInputStream按块预读，压缩字节数是近似值，宽限大小之后再检查
+            if (entryBytes > RATIO_GRACE_BYTES) {
+                var ratio = (double) (compressed.count - compressedAtStart) / entryBytes;
+                if (ratio < ZipSecureFile.getMinInflateRatio()) {
+                    throw new IOException(String.format("上传文件中的部件解压比例异常（%.4f，下限 %.4f），可能是压缩炸弹: %s / %s",
+                            ratio, ZipSecureFile.getMinInflateRatio(), fileName, entryName));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package cn.wangwenzhu.claude.config;
+
+import cn.wangwenzhu.claude.task.TaskType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskLanePropertiesTest {
+
+    @Test
+    void testUnsetFieldsFallBackToDefaultsIndividually() {
+        // 只配置了期限（其余项绑定为0）
+        var properties = new TaskLaneProperties(Map.of(
+                TaskType.LONG, new TaskLaneProperties.Lane(0, 0, Duration.ofSeconds(5)),
+                TaskType.QUICK, new TaskLaneProperties.Lane(8, 0, null)));
+
+        assertEquals(new TaskLaneProperties.Lane(3, 50, Duration.ofSeconds(5)), properties.lane(TaskType.LONG));
+        assertEquals(Duration.ofSeconds(5), properties.timeout(TaskType.LONG));
+        assertEquals(new TaskLaneProperties.Lane(8, 200, Duration.ofSeconds(10)), properties.lane(TaskType.QUICK));
+        assertEquals(new TaskLaneProperties.Lane(3, 100, Duration.ofSeconds(30)), properties.lane(TaskType.RANDOM));
+    }
+
+    @Test
+    void testNoLanesConfigured() {
+        var properties = new TaskLaneProperties(null);
+        assertEquals(Duration.ofSeconds(60), properties.timeout(TaskType.LONG));
+        assertEquals(4, properties.lane(TaskType.QUICK).concurrency());
+    }
+}
@@ -0,0 +1,39 @@
+package cn.wangwenzhu.claude.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadTaskExecutorTest {
+
+    @Test
+    public void testInterruptedWhileWaitingStillRunsTask() throws Exception {
+        var executor = new VirtualThreadTaskExecutor(1);
+        executor.initialize();
+
+        var release = new CountDownLatch(1);
+        executor.execute(() -> {
+            // 占用唯一的许可，关闭时的中断也不提前结束
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException ignored) {
+                    // 继续等待
+                }
+            }
+        });
+        var waiting = executor.submit(() -> Thread.currentThread().isInterrupted());
+        while (executor.getWaitingCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        // 中断等待许可的线程：任务仍在取得许可后执行，Future正常完成
+        executor.getThreadPoolExecutor().shutdownNow();
+        release.countDown();
+        assertTrue(waiting.get(5, TimeUnit.SECONDS), "任务带着中断标志执行");
+    }
+}
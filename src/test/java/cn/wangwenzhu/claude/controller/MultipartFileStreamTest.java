@@ -0,0 +1,90 @@
+package cn.wangwenzhu.claude.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MultipartFileStreamTest {
+
+    private static final String BOUNDARY = "----boundary7MA4YWxk";
+
+    @Test
+    public void testFirstFileSkipsFieldsAndStopsAtBoundary() throws Exception {
+        // 文件内容中包含不完整的边界，且以每次1字节的方式到达
+        var content = "序号,通讯主机号\r\n1,10.0.0.1\r\n--" + BOUNDARY.substring(0, 6) + "\r\n";
+        var body = "preamble\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"format\"\r\n\r\n"
+                + "csv\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"主机.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + content + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        var part = MultipartFileStream.firstFile(new OneByteInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY);
+
+        assertEquals("主机.csv", part.fileName());
+        assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), part.content().readAllBytes());
+        assertEquals(-1, part.content().read());
+    }
+
+    @Test
+    public void testNoFilePart() {
+        var body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"format\"\r\n\r\n"
+                + "csv\r\n"
+                + "--" + BOUNDARY + "--";
+
+        assertThrows(IOException.class, () -> MultipartFileStream.firstFile(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY));
+    }
+
+    @Test
+    public void testTruncatedBody() throws Exception {
+        var body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.csv\"\r\n\r\n"
+                + "1,10.0.0.1";
+
+        var part = MultipartFileStream.firstFile(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY);
+
+        assertThrows(IOException.class, () -> part.content().readAllBytes());
+    }
+
+    @Test
+    public void testFileNameOf() {
+        assertEquals("a.xlsx", MultipartFileStream.fileNameOf("form-data; name=\"file\"; filename=\"a.xlsx\""));
+        assertEquals("主机.xlsx", MultipartFileStream.fileNameOf(
+                "form-data; name=\"file\"; filename=\"x.xlsx\"; filename*=UTF-8''%E4%B8%BB%E6%9C%BA.xlsx"));
+        assertEquals(null, MultipartFileStream.fileNameOf("form-data; name=\"format\""));
+    }
+
+    /**
+     * 每次最多返回1字节，模拟分片到达的请求体
+     */
+    private static final class OneByteInputStream extends InputStream {
+
+        private final ByteArrayInputStream in;
+
+        private OneByteInputStream(byte[] bytes) {
+            this.in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, 1));
+        }
+    }
+}
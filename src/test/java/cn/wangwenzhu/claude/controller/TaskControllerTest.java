@@ -0,0 +1,103 @@
+package cn.wangwenzhu.claude.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 状态快照只在启动时采样一次，条件请求的结果不受后台刷新影响
+@SpringBootTest(properties = "task.status.sample-interval=1h")
+public class TaskControllerTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void testBatchSubmitReturnsTaskIds() throws Exception {
+        mockMvc.perform(post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"type\":\"QUICK\",\"taskName\":\"batch-1\"},{\"type\":\"QUICK\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.submitted").value(2))
+                .andExpect(jsonPath("$.taskIds.length()").value(2));
+    }
+
+    @Test
+    void testBatchSubmitRejectsMissingType() throws Exception {
+        mockMvc.perform(post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"taskName\":\"no-type\"}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testBatchLargerThanLaneQueueIsRejected() throws Exception {
+        var content = new StringBuilder("[");
+        for (var i = 0; i < 200; i++) {
+            content.append(i == 0 ? "" : ",").append("{\"type\":\"LONG\"}");
+        }
+        content.append(']');
+
+        mockMvc.perform(post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content.toString()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.reason").value("QUEUE_FULL"));
+    }
+
+    @Test
+    void testStatusSupportsConditionalGet() throws Exception {
+        var eTag = mockMvc.perform(get("/api/tasks/status"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.corePoolSize").exists())
+                .andExpect(jsonPath("$.lanes.QUICK").exists())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/tasks/status").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/tasks/status").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", eTag));
+    }
+
+    @Test
+    void testCancelTask() throws Exception {
+        var response = mockMvc.perform(post("/api/tasks/long").param("taskName", "to-cancel"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        var taskId = new ObjectMapper().readTree(response).get("taskId").asText();
+
+        mockMvc.perform(post("/api/tasks/" + taskId + "/cancel"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.taskId").value(Long.parseLong(taskId)));
+        // 已取消的任务不能再次取消
+        mockMvc.perform(post("/api/tasks/" + taskId + "/cancel"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/tasks/999999999/cancel"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testUnknownTaskReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/tasks/999999999"))
+                .andExpect(status().isNotFound());
+    }
+}
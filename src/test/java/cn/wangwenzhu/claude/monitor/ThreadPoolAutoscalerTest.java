@@ -0,0 +1,149 @@
+package cn.wangwenzhu.claude.monitor;
+
+import cn.wangwenzhu.claude.config.TaskLaneProperties;
+import cn.wangwenzhu.claude.config.TaskLanes;
+import cn.wangwenzhu.claude.config.ThreadPoolAutoscaleProperties;
+import cn.wangwenzhu.claude.task.TaskType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreadPoolAutoscalerTest {
+
+    private static final QueueLatencyProbe.Window NO_WAIT = new QueueLatencyProbe.Window(10, 1, 2);
+
+    private static final QueueLatencyProbe.Window SLOW = new QueueLatencyProbe.Window(10, 250, 800);
+
+    private ThreadPoolAutoscaler.Controller autoscaler;
+
+    @BeforeEach
+    void setup() {
+        var properties = properties(Map.of());
+        var lanes = new TaskLanes(Map.of(), Map.of());
+        autoscaler = new ThreadPoolAutoscaler(new ThreadPoolTaskExecutor(), new QueueLatencyProbe(), lanes,
+                new TaskLaneProperties(null), properties).controllers().getFirst();
+    }
+
+    private static ThreadPoolAutoscaleProperties properties(Map<TaskType, ThreadPoolAutoscaleProperties.Bounds> lanes) {
+        return new ThreadPoolAutoscaleProperties(true, 2, 16,
+                Duration.ofSeconds(1), Duration.ofMillis(100), 2, 0.3, 3, lanes);
+    }
+
+    @Test
+    void testScalesUpAfterConsecutiveOverloadedSamples() {
+        var sample = new ThreadPoolAutoscaler.Sample(5, 10, 5, 3, 20, SLOW);
+
+        assertNull(autoscaler.decide(sample));
+        assertEquals(new ThreadPoolAutoscaler.Decision(7, 14), autoscaler.decide(sample));
+    }
+
+    @Test
+    void testScalesUpWhenQueueIsHalfFull() {
+        var sample = new ThreadPoolAutoscaler.Sample(10, 16, 10, 10, 20, NO_WAIT);
+
+        assertNull(autoscaler.decide(sample));
+        assertEquals(new ThreadPoolAutoscaler.Decision(15, 16), autoscaler.decide(sample));
+    }
+
+    @Test
+    void testNormalSampleResetsHysteresis() {
+        var overloaded = new ThreadPoolAutoscaler.Sample(5, 10, 5, 3, 20, SLOW);
+        var normal = new ThreadPoolAutoscaler.Sample(5, 10, 4, 1, 20, NO_WAIT);
+
+        assertNull(autoscaler.decide(overloaded));
+        assertNull(autoscaler.decide(normal));
+        assertNull(autoscaler.decide(overloaded));
+    }
+
+    @Test
+    void testScalesDownOneThreadAfterIdleSamples() {
+        var idle = new ThreadPoolAutoscaler.Sample(5, 10, 0, 0, 20, NO_WAIT);
+
+        assertNull(autoscaler.decide(idle));
+        assertNull(autoscaler.decide(idle));
+        assertEquals(new ThreadPoolAutoscaler.Decision(4, 8), autoscaler.decide(idle));
+    }
+
+    @Test
+    void testStaysWithinBounds() {
+        var overloaded = new ThreadPoolAutoscaler.Sample(16, 16, 16, 20, 20, SLOW);
+        var idle = new ThreadPoolAutoscaler.Sample(2, 4, 0, 0, 20, NO_WAIT);
+
+        for (var i = 0; i < 5; i++) {
+            assertNull(autoscaler.decide(overloaded));
+        }
+        for (var i = 0; i < 5; i++) {
+            assertNull(autoscaler.decide(idle));
+        }
+    }
+
+    @Test
+    void testEachLaneHasItsOwnController() {
+        var lanes = new TaskLanes(Map.of(TaskType.QUICK, new ThreadPoolTaskExecutor(),
+                TaskType.LONG, new ThreadPoolTaskExecutor()),
+                Map.of(TaskType.QUICK, new QueueLatencyProbe(), TaskType.LONG, new QueueLatencyProbe()));
+        var properties = properties(Map.of(TaskType.LONG, new ThreadPoolAutoscaleProperties.Bounds(0, 6)));
+
+        var controllers = new ThreadPoolAutoscaler(new ThreadPoolTaskExecutor(), new QueueLatencyProbe(), lanes,
+                new TaskLaneProperties(null), properties).controllers();
+
+        assertEquals(3, controllers.size());
+        assertEquals(new ThreadPoolAutoscaleProperties.Bounds(2, 16), controllers.getFirst().bounds());
+        for (var controller : controllers.subList(1, 3)) {
+            if (controller.executor() == lanes.executor(TaskType.QUICK)) {
+                // 未配置时固定为通道并发数，不超过通道的并发上限
+                assertEquals(new ThreadPoolAutoscaleProperties.Bounds(4, 4), controller.bounds());
+            } else {
+                assertSame(lanes.executor(TaskType.LONG), controller.executor());
+                assertEquals(new ThreadPoolAutoscaleProperties.Bounds(3, 6), controller.bounds());
+            }
+        }
+    }
+
+    @Test
+    void testResizesLaneExecutor() throws Exception {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(4);
+        var probe = new QueueLatencyProbe();
+        executor.setTaskDecorator(probe.decorator());
+        executor.initialize();
+
+        var lanes = new TaskLanes(Map.of(TaskType.LONG, executor), Map.of(TaskType.LONG, probe));
+        var laneProperties = new TaskLaneProperties(Map.of(
+                TaskType.LONG, new TaskLaneProperties.Lane(2, 4, Duration.ofSeconds(60))));
+        var properties = properties(Map.of(TaskType.LONG, new ThreadPoolAutoscaleProperties.Bounds(0, 8)));
+        var lane = new ThreadPoolAutoscaler(new ThreadPoolTaskExecutor(), new QueueLatencyProbe(), lanes,
+                laneProperties, properties).controllers().getLast();
+
+        var release = new CountDownLatch(1);
+        try {
+            // 占满两个线程，队列中再排两个，队列过半
+            for (var i = 0; i < 4; i++) {
+                executor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            lane.sample();
+            assertEquals(2, executor.getCorePoolSize());
+            lane.sample();
+            assertEquals(3, executor.getCorePoolSize());
+            assertEquals(6, executor.getMaxPoolSize());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package cn.wangwenzhu.claude.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreadPoolStatusSamplerTest {
+
+    private static ThreadPoolStatus status(int activeCount) {
+        return new ThreadPoolStatus(5, 10, 5, activeCount, 100, 90, 0, 20, "90.00%", "PLATFORM",
+                null, null, null, Map.of());
+    }
+
+    private static ThreadPoolStatusSampler sampler() {
+        // 只测试快照发布，不启动后台采样
+        return new ThreadPoolStatusSampler(null, null, null, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testUnchangedStatusKeepsSnapshot() {
+        var sampler = sampler();
+        sampler.publish(status(3));
+        var first = sampler.current();
+
+        sampler.publish(status(3));
+        assertSame(first, sampler.current());
+
+        sampler.publish(status(4));
+        assertNotEquals(first.eTag(), sampler.current().eTag());
+        assertEquals(status(4), sampler.current().status());
+    }
+
+    @Test
+    void testETagDiffersAcrossRestarts() {
+        // 两个实例模拟重启前后：同样是第一个版本，ETag 也不同
+        var beforeRestart = sampler();
+        var afterRestart = sampler();
+        beforeRestart.publish(status(3));
+        afterRestart.publish(status(3));
+
+        assertNotEquals(beforeRestart.current().eTag(), afterRestart.current().eTag());
+        assertTrue(afterRestart.current().eTag().startsWith("\""));
+        assertTrue(afterRestart.current().eTag().endsWith("\""));
+    }
+}
@@ -0,0 +1,80 @@
+package cn.wangwenzhu.claude.service;
+
+import cn.wangwenzhu.claude.util.ExcelReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExcelWatchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        var inputDir = Files.createDirectories(tempDir.resolve("input"));
+        var output = tempDir.resolve("out.csv");
+        Files.writeString(inputDir.resolve("a.csv"), "通讯主机号\n10.0.0.1\n", StandardCharsets.UTF_8);
+        Files.writeString(inputDir.resolve("b.csv"), "通讯主机号\n10.0.0.2\n", StandardCharsets.UTF_8);
+
+        var service = new ExcelWatchService(new ExcelReader(ExcelReader.ReadMode.STREAMING), true,
+                inputDir.toString(), output.toString(), Duration.ofMillis(100));
+
+        assertTrue(service.rescan());
+        service.export();
+        assertTrue(Files.readString(output).contains("10.0.0.2"));
+        assertEquals(2, service.snapshot().processedFiles());
+
+        // 未变化的文件不重新读取
+        assertFalse(service.refresh(List.of("a.csv", "b.csv")));
+        assertEquals(2, service.snapshot().processedFiles());
+
+        // 修改和删除只处理相应的文件
+        Files.writeString(inputDir.resolve("a.csv"), "通讯主机号\n10.0.0.1\n10.0.0.3\n", StandardCharsets.UTF_8);
+        Files.delete(inputDir.resolve("b.csv"));
+        assertTrue(service.refresh(List.of("a.csv", "b.csv")));
+        service.export();
+
+        var csv = Files.readString(output);
+        assertTrue(csv.contains("10.0.0.3"));
+        assertFalse(csv.contains("10.0.0.2"));
+
+        var snapshot = service.snapshot();
+        assertEquals(1, snapshot.trackedFiles());
+        assertEquals(3, snapshot.processedFiles());
+        assertEquals(2, snapshot.exportCount());
+        assertEquals(3, snapshot.fileLatency().count());
+    }
+
+    @Test
+    public void testDeletingAllInputsClearsOutputs() throws Exception {
+        var inputDir = Files.createDirectories(tempDir.resolve("input"));
+        var output = tempDir.resolve("out.csv");
+        var sql = tempDir.resolve("out.sql");
+        Files.writeString(inputDir.resolve("a.csv"), "通讯主机号\n10.0.0.1\n", StandardCharsets.UTF_8);
+
+        var service = new ExcelWatchService(new ExcelReader(ExcelReader.ReadMode.STREAMING), true,
+                inputDir.toString(), output.toString(), Duration.ofMillis(100));
+        assertTrue(service.rescan());
+        service.export();
+        assertTrue(Files.readString(output).contains("10.0.0.1"));
+        assertTrue(Files.readString(sql).contains("167772161"));
+
+        // 最后一个输入文件被删除后，上一次的导出结果不能保留
+        Files.delete(inputDir.resolve("a.csv"));
+        assertTrue(service.rescan());
+        service.export();
+
+        assertEquals("\uFEFF源文件名,IP地址,十进制数值\n", Files.readString(output));
+        assertEquals("", Files.readString(sql));
+        assertEquals(0, service.snapshot().trackedFiles());
+        assertEquals(2, service.snapshot().exportCount());
+    }
+}
@@ -0,0 +1,71 @@
+package cn.wangwenzhu.claude.service;
+
+import cn.wangwenzhu.claude.config.TaskAdmissionProperties;
+import cn.wangwenzhu.claude.config.TaskLanes;
+import cn.wangwenzhu.claude.monitor.TaskMetrics;
+import cn.wangwenzhu.claude.task.TaskType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskAdmissionServiceTest {
+
+    private TaskAdmissionService admission;
+
+    @BeforeEach
+    void setup() {
+        // 速率极低，测试期间不会补充令牌；不检查队列容量
+        var properties = new TaskAdmissionProperties(true, TaskAdmissionProperties.OverflowPolicy.SHED_OLDEST,
+                Map.of(TaskType.QUICK, new TaskAdmissionProperties.Limit(0.001, 3),
+                        TaskType.LONG, new TaskAdmissionProperties.Limit(0.001, 10)),
+                new TaskAdmissionProperties.Limit(0.001, 5), 100);
+        admission = new TaskAdmissionService(properties, new TaskLanes(Map.of(), Map.of()), new TaskMetrics());
+    }
+
+    private static Map<TaskType, Integer> counts(int quick, int longTasks) {
+        var counts = new EnumMap<TaskType, Integer>(TaskType.class);
+        if (quick > 0) {
+            counts.put(TaskType.QUICK, quick);
+        }
+        if (longTasks > 0) {
+            counts.put(TaskType.LONG, longTasks);
+        }
+        return counts;
+    }
+
+    @Test
+    void testFloodingClientDoesNotStarveOthers() {
+        for (var i = 0; i < 5; i++) {
+            assertTrue(admission.admit(counts(0, 1), "flooder").admitted());
+        }
+        // 超限的客户端继续提交，不消耗任务类型令牌
+        for (var i = 0; i < 50; i++) {
+            var decision = admission.admit(counts(0, 1), "flooder");
+            assertEquals(TaskAdmissionService.Reason.CLIENT_RATE_LIMITED, decision.reason());
+        }
+
+        for (var i = 0; i < 5; i++) {
+            assertTrue(admission.admit(counts(0, 1), "other").admitted());
+        }
+        assertEquals(10, admission.snapshot().admitted());
+        assertEquals(50, admission.snapshot().clientRateLimited());
+    }
+
+    @Test
+    void testRejectedBatchRefundsTokens() {
+        assertTrue(admission.admit(counts(0, 10), "a").admitted());
+
+        // LONG已无令牌：整批拒绝，已获取的QUICK令牌和客户端令牌都退还
+        var decision = admission.admit(counts(3, 1), "b");
+        assertEquals(TaskAdmissionService.Reason.TYPE_RATE_LIMITED, decision.reason());
+
+        assertTrue(admission.admit(counts(3, 0), "b").admitted());
+        // 客户端令牌已退还，b仍有余量，再次被拒绝的原因是任务类型而不是客户端
+        assertEquals(TaskAdmissionService.Reason.TYPE_RATE_LIMITED, admission.admit(counts(0, 1), "b").reason());
+        assertEquals(TaskAdmissionService.Reason.TYPE_RATE_LIMITED, admission.admit(counts(1, 0), "c").reason());
+    }
+}
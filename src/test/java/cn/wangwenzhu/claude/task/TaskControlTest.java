@@ -0,0 +1,109 @@
+package cn.wangwenzhu.claude.task;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskControlTest {
+
+    private static final TaskSpec SPEC = new TaskSpec(TaskType.LONG, "t");
+
+    @Test
+    void testStopBeforeStartDropsTask() {
+        var control = new TaskControl(SPEC, new CompletableFuture<>());
+        var ran = new AtomicBoolean();
+        var task = QueuedTask.submitFor(control, () -> QueuedTask.decorator().decorate(() -> ran.set(true)));
+
+        assertTrue(control.stop(TaskResult.Status.TIMED_OUT));
+        assertEquals(TaskResult.Status.TIMED_OUT, control.result().join().status());
+
+        // 出队时丢弃
+        task.run();
+        assertFalse(ran.get());
+        assertFalse(control.hasStarted());
+        assertFalse(control.stop(TaskResult.Status.CANCELLED), "已停止的任务不能再次停止");
+    }
+
+    @Test
+    void testStopBeforeStartFreesQueueCapacity() throws Exception {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(2);
+        executor.setTaskDecorator(QueuedTask.decorator(executor));
+        executor.initialize();
+
+        var release = new CountDownLatch(1);
+        var ran = new AtomicBoolean();
+        try {
+            // 占住唯一的线程，之后的任务在队列中等待
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            var control = new TaskControl(SPEC, new CompletableFuture<>());
+            QueuedTask.submitFor(control, () -> {
+                executor.execute(() -> ran.set(true));
+                return null;
+            });
+            var queue = executor.getThreadPoolExecutor().getQueue();
+            assertEquals(1, queue.size());
+
+            assertTrue(control.stop(TaskResult.Status.CANCELLED));
+            assertEquals(0, queue.size(), "开始前被取消的任务应移出队列");
+            assertEquals(2, queue.remainingCapacity());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void testStopWhileRunningInterrupts() throws Exception {
+        var control = new TaskControl(SPEC, new CompletableFuture<>());
+        var started = new CountDownLatch(1);
+        var task = QueuedTask.submitFor(control, () -> QueuedTask.decorator().decorate(() -> {
+            started.countDown();
+            var status = TaskResult.Status.COMPLETED;
+            try {
+                TimeUnit.SECONDS.sleep(30);
+            } catch (InterruptedException e) {
+                status = TaskResult.Status.INTERRUPTED;
+            }
+            control.result().complete(control.resolve(new TaskResult("t", TaskType.LONG, status, 0)));
+        }));
+
+        var worker = new Thread(task);
+        worker.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(control.stop(TaskResult.Status.CANCELLED));
+        worker.join(5000);
+        assertFalse(worker.isAlive(), "执行中的任务应被中断");
+        assertTrue(control.hasStarted());
+        assertEquals(TaskResult.Status.CANCELLED, control.result().join().status());
+    }
+
+    @Test
+    void testStopAfterFinishHasNoEffect() {
+        var control = new TaskControl(SPEC, new CompletableFuture<>());
+        QueuedTask.submitFor(control, () -> QueuedTask.decorator().decorate(() -> { })).run();
+
+        assertFalse(control.stop(TaskResult.Status.CANCELLED));
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        var result = new TaskResult("t", TaskType.LONG, TaskResult.Status.COMPLETED, 5);
+        assertSame(result, control.resolve(result));
+    }
+}
@@ -0,0 +1,154 @@
+package cn.wangwenzhu.claude.task;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRecoverPendingTasks() throws Exception {
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            assertTrue(journal.recoveredTasks().isEmpty());
+            journal.recordSubmitted(1, new TaskSpec(TaskType.QUICK, "a"));
+            journal.recordSubmitted(2, new TaskSpec(TaskType.LONG, "长任务"));
+            var seq = journal.recordSubmitted(3, new TaskSpec(TaskType.RANDOM, "c", 1500));
+            journal.recordCompleted(2);
+            assertTrue(journal.awaitDurable(seq));
+        }
+
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            assertEquals(List.of(new TaskJournal.PendingTask(1, new TaskSpec(TaskType.QUICK, "a")),
+                    new TaskJournal.PendingTask(3, new TaskSpec(TaskType.RANDOM, "c", 1500))), journal.recoveredTasks());
+            assertEquals(3, journal.maxRecoveredTaskId());
+            journal.recordCompleted(1);
+        }
+
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            assertEquals(List.of(new TaskJournal.PendingTask(3, new TaskSpec(TaskType.RANDOM, "c", 1500))),
+                    journal.recoveredTasks());
+        }
+    }
+
+    @Test
+    public void testSegmentsRollAndAreDeleted() throws Exception {
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            // 每条提交记录约30字节，1000条跨越多个段
+            for (var i = 1; i <= 1000; i++) {
+                journal.recordSubmitted(i, new TaskSpec(TaskType.QUICK, "task-" + i));
+            }
+            assertTrue(segmentCount() > 5);
+
+            for (var i = 1; i <= 1000; i++) {
+                journal.recordCompleted(i);
+            }
+            // 任务全部结束，只剩当前段
+            assertEquals(1, segmentCount());
+            journal.recordSubmitted(1001, new TaskSpec(TaskType.QUICK, "task-1001"));
+        }
+
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            assertEquals(List.of(new TaskJournal.PendingTask(1001, new TaskSpec(TaskType.QUICK, "task-1001"))),
+                    journal.recoveredTasks());
+            assertEquals(1, segmentCount());
+        }
+    }
+
+    @Test
+    public void testSegmentKeptWhileEarlierSegmentIsLive() throws Exception {
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            journal.recordSubmitted(1, new TaskSpec(TaskType.QUICK, "x"));
+            journal.recordSubmitted(2, new TaskSpec(TaskType.QUICK, "y"));
+            // 填满第一个段，最后一个任务写入第二个段
+            var taskId = 2L;
+            while (segmentCount() == 1) {
+                journal.recordSubmitted(++taskId, new TaskSpec(TaskType.QUICK, "filler"));
+            }
+            // 任务1的结束记录写入第二个段
+            journal.recordCompleted(1);
+            // 第二个段写满后，其中提交的任务全部结束，只剩第一个段中的任务2未结束
+            while (segmentCount() == 2) {
+                journal.recordSubmitted(++taskId, new TaskSpec(TaskType.QUICK, "filler"));
+            }
+            for (var id = 3L; id <= taskId; id++) {
+                journal.recordCompleted(id);
+            }
+        }
+
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            assertEquals(List.of(new TaskJournal.PendingTask(2, new TaskSpec(TaskType.QUICK, "y"))),
+                    journal.recoveredTasks());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws Exception {
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            journal.recordSubmitted(1, new TaskSpec(TaskType.QUICK, "a"));
+            journal.recordSubmitted(2, new TaskSpec(TaskType.QUICK, "b"));
+        }
+
+        // 模拟第二条记录写入中途崩溃：破坏记录体（第一条记录占39字节，第二条的记录体从47开始）
+        try (var segments = Files.list(dir);
+             var channel = FileChannel.open(segments.findFirst().orElseThrow(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF}), 39 + 8 + 10);
+        }
+
+        try (var journal = TaskJournal.open(dir, SEGMENT_SIZE, Duration.ofMillis(1))) {
+            assertEquals(List.of(new TaskJournal.PendingTask(1, new TaskSpec(TaskType.QUICK, "a"))),
+                    journal.recoveredTasks());
+        }
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        var executor = Executors.newFixedThreadPool(8);
+        try (var journal = TaskJournal.open(dir, 1 << 20, Duration.ofMillis(10))) {
+            var flushesBefore = journal.getFlushCount();
+            var submitters = new ArrayList<CompletableFuture<Void>>();
+            for (var t = 0; t < 8; t++) {
+                var base = t * 1000L;
+                submitters.add(CompletableFuture.runAsync(() -> {
+                    for (var i = 1; i <= 20; i++) {
+                        var seq = journal.recordSubmitted(base + i, new TaskSpec(TaskType.QUICK, "t"));
+                        try {
+                            assertTrue(journal.awaitDurable(seq));
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(submitters.toArray(CompletableFuture[]::new)).join();
+
+            // 8个线程各自依次提交20个任务，同一间隔内的提交共享一次刷盘
+            assertTrue(journal.getFlushCount() - flushesBefore < 80);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private long segmentCount() throws Exception {
+        try (var files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvRowSourceTest {
+
+    @Test
+    public void testParseQuotedFieldsAndLineEndings() throws Exception {
+        var events = new StringBuilder();
+        var csv = "\uFEFF序号,\"通讯\n主机号\",备注\r\n1,10.0.0.1,\"a,\"\"b\"\"\"\n\n2,,x\r3,\"10.0.0.3\"";
+        CsvRowSource.parse(new StringReader(csv), new SheetRowHandler() {
+            @Override
+            public void startRow(int rowNum) {
+                events.append('[').append(rowNum);
+            }
+
+            @Override
+            public void cell(int column, String value) {
+                events.append(' ').append(column).append('=').append(value);
+            }
+
+            @Override
+            public void endRow(int rowNum) {
+                events.append(']');
+            }
+        });
+
+        assertEquals("[0 0=序号 1=通讯\n主机号 2=备注][1 0=1 1=10.0.0.1 2=a,\"b\"][2][3 0=2 2=x][4 0=3 1=10.0.0.3]",
+                events.toString());
+    }
+
+    @Test
+    public void testHostRowCollector() throws Exception {
+        var hosts = new ArrayList<String>();
+        var collector = new HostRowCollector(hosts::add);
+        var csv = "序号,通讯主机号,备注\n1, 10.0.0.1 ,\n2,,备用 192.168.1.1\n3,,\n";
+        CsvRowSource.parse(new StringReader(csv), collector);
+
+        assertEquals(1, collector.getHostColumnIndex());
+        assertEquals(2, collector.getHostCount());
+        assertEquals("10.0.0.1", hosts.get(0));
+        assertEquals("备用 192.168.1.1", hosts.get(1));
+    }
+}
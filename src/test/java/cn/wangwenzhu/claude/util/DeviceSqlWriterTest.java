@@ -0,0 +1,92 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeviceSqlWriterTest {
+
+    private static final String SELECT = "SELECT * FROM sop_position_info WHERE device_no IN (";
+
+    private static final String INSERT = "INSERT INTO tmp_device_no (device_no) VALUES ";
+
+    @TempDir
+    Path tempDir;
+
+    private List<String> write(DeviceSqlWriter.Options options, long... values) throws Exception {
+        var path = tempDir.resolve("out.sql");
+        try (var writer = new DeviceSqlWriter(path.toString(), options)) {
+            for (var value : values) {
+                writer.add(value);
+            }
+        }
+        return Files.readAllLines(path, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testChunkSizeOne() throws Exception {
+        var lines = write(new DeviceSqlWriter.Options(1, DeviceSqlWriter.Format.IN_LIST), 1, 2);
+        assertEquals(List.of(SELECT + "'1');", SELECT + "'2');"), lines);
+    }
+
+    @Test
+    void testExactlyOneFullChunk() throws Exception {
+        var lines = write(new DeviceSqlWriter.Options(3, DeviceSqlWriter.Format.IN_LIST), 1, 2, 3);
+        assertEquals(List.of(SELECT + "'1','2','3');"), lines);
+    }
+
+    @Test
+    void testOneMoreThanChunk() throws Exception {
+        var lines = write(new DeviceSqlWriter.Options(3, DeviceSqlWriter.Format.IN_LIST), 1, 2, 3, 4);
+        assertEquals(List.of(SELECT + "'1','2','3');", SELECT + "'4');"), lines);
+    }
+
+    @Test
+    void testValuesTableFormat() throws Exception {
+        var lines = write(new DeviceSqlWriter.Options(3, DeviceSqlWriter.Format.VALUES_TABLE),
+                0, 3232235777L, 4294967295L, 16909060);
+        assertEquals(List.of(
+                "CREATE TEMPORARY TABLE tmp_device_no (device_no VARCHAR(10) PRIMARY KEY);",
+                INSERT + "('0'),('3232235777'),('4294967295');",
+                INSERT + "('16909060');",
+                "SELECT p.* FROM sop_position_info p JOIN tmp_device_no t ON p.device_no = t.device_no;"), lines);
+    }
+
+    @Test
+    void testDuplicatesAreSkippedAndDoNotFillChunks() throws Exception {
+        var path = tempDir.resolve("dup.sql");
+        try (var writer = new DeviceSqlWriter(path.toString(), new DeviceSqlWriter.Options(2, DeviceSqlWriter.Format.IN_LIST))) {
+            writer.add(5);
+            writer.add("5");
+            writer.add(0);
+            writer.add(" 0 ");
+            writer.add(4294967295L);
+            writer.add("4294967295");
+            // 无效值忽略，不计为重复
+            writer.add("abc");
+            writer.add("4294967296");
+
+            assertEquals(3, writer.getUniqueCount());
+            assertEquals(3, writer.getDuplicateCount());
+        }
+        assertEquals(List.of(SELECT + "'5','0');", SELECT + "'4294967295');"),
+                Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEmptyInputWritesNoStatements() throws Exception {
+        assertEquals(List.of(), write(DeviceSqlWriter.Options.DEFAULT));
+    }
+
+    @Test
+    void testRejectsInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DeviceSqlWriter.Options(0, DeviceSqlWriter.Format.IN_LIST));
+    }
+}
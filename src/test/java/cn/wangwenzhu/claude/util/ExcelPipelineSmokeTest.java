@@ -0,0 +1,65 @@
+package cn.wangwenzhu.claude.util;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 完整处理流程的冒烟测试：生成xlsx和xls样例文件，分别以流式和DOM模式读取并导出
+ * 同时在原生镜像中运行（./gradlew nativeTest），验证POI/XMLBeans的原生镜像元数据完整
+ */
+public class ExcelPipelineSmokeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testStreamingMode() throws Exception {
+        assertPipeline(ExcelReader.ReadMode.STREAMING);
+    }
+
+    @Test
+    public void testDomMode() throws Exception {
+        assertPipeline(ExcelReader.ReadMode.DOM);
+    }
+
+    private void assertPipeline(ExcelReader.ReadMode mode) throws Exception {
+        var inputDir = Files.createDirectories(tempDir.resolve("input"));
+        writeWorkbook(new XSSFWorkbook(), inputDir.resolve("a.xlsx"), "10.0.1.");
+        writeWorkbook(new HSSFWorkbook(), inputDir.resolve("b.xls"), "10.0.2.");
+        var output = tempDir.resolve("out.csv");
+
+        var result = new ExcelReader(mode).process(inputDir, output.toString());
+
+        assertEquals(new ExcelReader.JobResult(2, 0, 2, 6, 0, true), result);
+        var lines = Files.readAllLines(output);
+        // 标题行 + 2个文件标题行 + 6条记录
+        assertEquals(9, lines.size());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("10.0.2.3")));
+        assertTrue(Files.exists(tempDir.resolve("out.sql")));
+    }
+
+    private static void writeWorkbook(Workbook workbook, Path file, String prefix) throws Exception {
+        try (workbook; var out = new FileOutputStream(file.toFile())) {
+            var sheet = workbook.createSheet("设备列表");
+            var header = sheet.createRow(0);
+            header.createCell(0).setCellValue("序号");
+            header.createCell(1).setCellValue("通讯主机号");
+            for (var i = 1; i <= 3; i++) {
+                var row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(prefix + i);
+            }
+            workbook.write(out);
+        }
+    }
+}
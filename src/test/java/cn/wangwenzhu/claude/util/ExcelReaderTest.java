@@ -0,0 +1,75 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExcelReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testJobsDoNotShareRecords() throws Exception {
+        var inputDir = writeInputs();
+        var reader = new ExcelReader(ExcelReader.ReadMode.STREAMING);
+
+        var first = reader.process(inputDir, tempDir.resolve("first.csv").toString());
+        var second = reader.process(inputDir, tempDir.resolve("second.csv").toString());
+
+        assertTrue(first.exported());
+        assertEquals(new ExcelReader.JobResult(2, 0, 2, 3, 0, true), first);
+        assertEquals(first, second);
+        assertEquals(Files.readAllLines(tempDir.resolve("first.csv")), Files.readAllLines(tempDir.resolve("second.csv")));
+        // 标题行 + 2个文件标题行 + 3条记录
+        assertEquals(6, Files.readAllLines(tempDir.resolve("second.csv")).size());
+    }
+
+    @Test
+    public void testConcurrentJobs() throws Exception {
+        var inputDir = writeInputs();
+        var reader = new ExcelReader(ExcelReader.ReadMode.STREAMING);
+
+        var jobs = new CompletableFuture<?>[4];
+        for (var i = 0; i < jobs.length; i++) {
+            var output = tempDir.resolve("out-" + i + ".csv").toString();
+            jobs[i] = CompletableFuture.supplyAsync(() -> reader.process(inputDir, output));
+        }
+        CompletableFuture.allOf(jobs).join();
+
+        for (var i = 0; i < jobs.length; i++) {
+            assertEquals(3, ((ExcelReader.JobResult) jobs[i].join()).hostCount());
+            assertEquals(6, Files.readAllLines(tempDir.resolve("out-" + i + ".csv")).size());
+        }
+    }
+
+    @Test
+    public void testStreamingExportRecordsCache() throws Exception {
+        var inputDir = writeInputs();
+        var cache = new ExtractionCache(tempDir.resolve("cache"), ExcelReader.EXTRACTION_VERSION);
+        var reader = new ExcelReader(ExcelReader.ReadMode.STREAMING, IPExporter.ExportMode.STREAMING,
+                IPExporter.ExportOptions.DEFAULT, null, 1, cache, 0);
+
+        var first = reader.process(inputDir, tempDir.resolve("first.csv").toString());
+        var second = reader.process(inputDir, tempDir.resolve("second.csv").toString());
+
+        assertEquals(new ExcelReader.JobResult(2, 0, 2, 3, 0, true), first);
+        // 流式导出时解析出的记录同时写入缓存，第二次全部命中
+        assertEquals(new ExcelReader.JobResult(2, 0, 2, 3, 2, true), second);
+        assertEquals(Files.readAllLines(tempDir.resolve("first.csv")), Files.readAllLines(tempDir.resolve("second.csv")));
+    }
+
+    private Path writeInputs() throws Exception {
+        var inputDir = Files.createDirectories(tempDir.resolve("input"));
+        Files.writeString(inputDir.resolve("a.csv"), "序号,通讯主机号\n1,10.0.0.1\n2,10.0.0.2\n", StandardCharsets.UTF_8);
+        Files.writeString(inputDir.resolve("b.csv"), "序号,通讯主机号\n1,10.0.0.3\n", StandardCharsets.UTF_8);
+        Files.writeString(inputDir.resolve("~$a.xlsx"), "lock", StandardCharsets.UTF_8);
+        return inputDir;
+    }
+}
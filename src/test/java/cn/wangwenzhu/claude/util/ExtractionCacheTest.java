@@ -0,0 +1,130 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtractionCacheTest {
+
+    private static final ExcelReader.ReadMode MODE = ExcelReader.ReadMode.STREAMING;
+
+    @TempDir
+    Path tempDir;
+
+    private File workbook(String content) throws Exception {
+        var path = tempDir.resolve("hosts.xlsx");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(1_700_000_000_000L));
+        return path.toFile();
+    }
+
+    private static IPExporter records(File file) {
+        var records = new IPExporter();
+        records.addIPEntry(file.getName(), "10.0.0.1", IPConverter.ipToDecimal("10.0.0.1"));
+        // 非规范格式以原文保存
+        records.addIPEntry(file.getName(), "010.0.0.2", IPConverter.ipToDecimal("010.0.0.2"));
+        return records;
+    }
+
+    private static void store(ExtractionCache cache, File file) throws Exception {
+        cache.store(file, MODE, cache.fingerprint(file), records(file));
+    }
+
+    @Test
+    void testMissThenHit() throws Exception {
+        var file = workbook("content-a");
+        var cache = new ExtractionCache(tempDir.resolve("cache"), 1);
+        assertFalse(cache.load(file, MODE, new IPExporter()));
+
+        store(cache, file);
+        var target = new IPExporter();
+        assertTrue(cache.load(file, MODE, target));
+        assertEquals(List.of(
+                new IPExporter.IPEntry("hosts.xlsx", "10.0.0.1", "167772161"),
+                new IPExporter.IPEntry("hosts.xlsx", "010.0.0.2", "167772162")), target.snapshot());
+    }
+
+    @Test
+    void testRecorderWritesOnlyOnCommit() throws Exception {
+        var file = workbook("content-a");
+        var cache = new ExtractionCache(tempDir.resolve("cache"), 1);
+        try (var recorder = cache.recorder(file, MODE, cache.fingerprint(file))) {
+            recorder.add("10.0.0.1");
+        }
+        assertFalse(cache.load(file, MODE, new IPExporter()), "未提交的记录被丢弃");
+
+        try (var recorder = cache.recorder(file, MODE, cache.fingerprint(file))) {
+            recorder.add("10.0.0.1");
+            recorder.restart();
+            recorder.add("10.0.0.3");
+            recorder.commit();
+        }
+        var target = new IPExporter();
+        assertTrue(cache.load(file, MODE, target));
+        assertEquals(List.of(new IPExporter.IPEntry("hosts.xlsx", "10.0.0.3", "167772163")), target.snapshot());
+        try (var files = Files.list(tempDir.resolve("cache"))) {
+            assertEquals(1, files.count(), "不残留临时文件");
+        }
+    }
+
+    @Test
+    void testModifiedTimeOnlyChangeStillHits() throws Exception {
+        var file = workbook("content-a");
+        var cache = new ExtractionCache(tempDir.resolve("cache"), 1);
+        store(cache, file);
+
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(1_800_000_000_000L));
+        assertTrue(cache.load(file, MODE, new IPExporter()), "内容未变化时比较哈希后命中");
+
+        // 哈希命中后缓存记录了新的修改时间：之后修改时间一致直接命中，不再比较内容
+        Files.writeString(file.toPath(), "content-b", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(1_800_000_000_000L));
+        assertTrue(cache.load(file, MODE, new IPExporter()));
+    }
+
+    @Test
+    void testContentChangeMisses() throws Exception {
+        var file = workbook("content-a");
+        var cache = new ExtractionCache(tempDir.resolve("cache"), 1);
+        store(cache, file);
+
+        // 大小相同、内容不同
+        Files.writeString(file.toPath(), "content-b", StandardCharsets.UTF_8);
+        assertFalse(cache.load(file, MODE, new IPExporter()));
+
+        // 大小不同
+        Files.writeString(file.toPath(), "content-longer", StandardCharsets.UTF_8);
+        assertFalse(cache.load(file, MODE, new IPExporter()));
+    }
+
+    @Test
+    void testVersionOrModeChangeInvalidates() throws Exception {
+        var file = workbook("content-a");
+        store(new ExtractionCache(tempDir.resolve("cache"), 1), file);
+
+        assertTrue(new ExtractionCache(tempDir.resolve("cache"), 1).load(file, MODE, new IPExporter()));
+        assertFalse(new ExtractionCache(tempDir.resolve("cache"), 2).load(file, MODE, new IPExporter()));
+        assertFalse(new ExtractionCache(tempDir.resolve("cache"), 1).load(file, ExcelReader.ReadMode.DOM, new IPExporter()));
+    }
+
+    @Test
+    void testFileChangedDuringParseIsNotServedFromCache() throws Exception {
+        var file = workbook("content-a");
+        var cache = new ExtractionCache(tempDir.resolve("cache"), 1);
+
+        // 解析前取指纹，解析期间文件被替换
+        var fingerprint = cache.fingerprint(file);
+        Files.writeString(file.toPath(), "content-b", StandardCharsets.UTF_8);
+        cache.store(file, MODE, fingerprint, records(file));
+
+        assertFalse(cache.load(file, MODE, new IPExporter()));
+    }
+}
@@ -0,0 +1,81 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HostDeduplicatorTest {
+
+    private static final String[][] ROWS = {
+            {"a.xlsx", "1.1.1.1"}, {"a.xlsx", "1.1.1.1"}, {"a.xlsx", "2.2.2.2"}, {"a.xlsx", "not-an-ip"},
+            {"b.xlsx", "1.1.1.1"}, {"b.xlsx", "3.3.3.3"}, {"b.xlsx", "3.3.3.3"},
+            {"c.xlsx", "1.1.1.1"}, {"c.xlsx", "2.2.2.2"}, {"c.xlsx", "0.0.0.0"}
+    };
+
+    private static int acceptAll(HostDeduplicator deduplicator) {
+        var kept = 0;
+        for (var row : ROWS) {
+            if (deduplicator.accept(row[0], row[1])) {
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    @Test
+    void testFileModeDropsDuplicatesWithinFile() {
+        var deduplicator = new HostDeduplicator(HostDeduplicator.Mode.FILE);
+
+        assertEquals(8, acceptAll(deduplicator));
+        assertEquals(2, deduplicator.getDroppedCount());
+    }
+
+    @Test
+    void testGlobalModeKeepsFirstOccurrence() {
+        var deduplicator = new HostDeduplicator(HostDeduplicator.Mode.GLOBAL);
+
+        // 无法解析的内容原样保留
+        assertEquals(5, acceptAll(deduplicator));
+        assertEquals(4, deduplicator.getDistinctHostCount());
+    }
+
+    @Test
+    void testOverlapStatistics() {
+        var deduplicator = new HostDeduplicator(HostDeduplicator.Mode.FILE);
+        acceptAll(deduplicator);
+
+        assertEquals(List.of(
+                new HostDeduplicator.FileStatistics("a.xlsx", 4, 2, 1, 2, 0),
+                new HostDeduplicator.FileStatistics("b.xlsx", 3, 2, 1, 1, 1),
+                new HostDeduplicator.FileStatistics("c.xlsx", 3, 3, 0, 2, 1)
+        ), deduplicator.statistics());
+    }
+
+    @Test
+    void testInterleavedFilesCountEachHostOnce() {
+        var deduplicator = new HostDeduplicator(HostDeduplicator.Mode.FILE);
+        String[][] rows = {
+                {"a.xlsx", "1.1.1.1"}, {"a.xlsx", "2.2.2.2"},
+                {"b.xlsx", "1.1.1.1"}, {"b.xlsx", "2.2.2.2"},
+                // a.xlsx 的记录再次到达：共有主机号和独有主机号都属于文件内重复
+                {"a.xlsx", "1.1.1.1"}, {"a.xlsx", "2.2.2.2"}, {"a.xlsx", "4.4.4.4"},
+                {"b.xlsx", "2.2.2.2"}
+        };
+
+        var kept = 0;
+        for (var row : rows) {
+            if (deduplicator.accept(row[0], row[1])) {
+                kept++;
+            }
+        }
+
+        assertEquals(5, kept);
+        assertEquals(3, deduplicator.getDistinctHostCount());
+        assertEquals(List.of(
+                new HostDeduplicator.FileStatistics("a.xlsx", 5, 3, 2, 2, 1),
+                new HostDeduplicator.FileStatistics("b.xlsx", 3, 2, 1, 2, 0)
+        ), deduplicator.statistics());
+    }
+}
@@ -0,0 +1,80 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IPConverterTest {
+
+    @Test
+    void testIpToDecimal() {
+        assertEquals("3232235777", IPConverter.ipToDecimal("192.168.1.1"));
+        assertEquals("4294967295", IPConverter.ipToDecimal(" 255.255.255.255 "));
+        assertEquals("16909060", IPConverter.ipToDecimal("001.002.003.004"));
+        assertEquals("0", IPConverter.ipToDecimal("256.1.1.1"));
+        assertEquals("0", IPConverter.ipToDecimal("1.2.3"));
+        assertEquals("0", IPConverter.ipToDecimal(null));
+    }
+
+    @Test
+    void testDecimalToIp() {
+        assertEquals("192.168.1.1", IPConverter.decimalToIp("3232235777"));
+        assertEquals("255.255.255.255", IPConverter.decimalToIp("4294967295"));
+        assertEquals("0.0.0.0", IPConverter.decimalToIp("4294967296"));
+        assertEquals("0.0.0.0", IPConverter.decimalToIp("-1"));
+        assertEquals("0.0.0.0", IPConverter.decimalToIp("abc"));
+    }
+
+    @Test
+    void testIsValidIpMatchesSplitSemantics() {
+        assertTrue(IPConverter.isValidIp("10.0.0.1"));
+        assertTrue(IPConverter.isValidIp("+1.2.3.4"));
+        assertTrue(IPConverter.isValidIp("1.2.3.4."));
+        assertFalse(IPConverter.isValidIp("1..2.3"));
+        assertFalse(IPConverter.isValidIp("1.2.3.4.5"));
+        assertFalse(IPConverter.isValidIp("-1.2.3.4"));
+        assertFalse(IPConverter.isValidIp(""));
+    }
+
+    @Test
+    void testOnlyAsciiDigitsAccepted() {
+        // Integer.parseInt 接受全角数字，这里有意只接受ASCII数字
+        assertFalse(IPConverter.isValidIp("１０.０.０.１"));
+        assertFalse(IPConverter.isValidIp("10.0.0.١"));
+        var bytes = "１０.０.０.１".getBytes(StandardCharsets.UTF_8);
+        assertEquals(IPConverter.INVALID, IPConverter.parseIpv4(bytes, 0, bytes.length));
+    }
+
+    @Test
+    void testByteAndCharOverloadsAgree() {
+        for (var text : new String[]{"10.0.0.1", " 1.2.3.4. ", "+1.2.3.4", "-0.0.0.0", "-1.2.3.4", "1..2.3",
+                "1.2.3.4.5", "256.0.0.1", "001.002.003.004", "", "   ", "1.2.3"}) {
+            var bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(IPConverter.parseIpv4(text), IPConverter.parseIpv4(bytes, 0, bytes.length), text);
+        }
+    }
+
+    @Test
+    void testPrimitiveRoundTrip() {
+        var bytes = "host=10.2.33.4;".getBytes(StandardCharsets.US_ASCII);
+        var ip = IPConverter.parseIpv4(bytes, 5, 14);
+        assertEquals(IPConverter.parseIpv4("10.2.33.4"), ip);
+
+        var buffer = new char[IPConverter.MAX_IPV4_LENGTH];
+        var end = IPConverter.formatIpv4(ip, buffer, 0);
+        assertEquals("10.2.33.4", new String(buffer, 0, end));
+        assertEquals("10.2.33.4", IPConverter.appendIpv4(new StringBuilder(), ip).toString());
+    }
+
+    @Test
+    void testContainsIpv4TokenMatchesRegex() {
+        var samples = new String[]{"10.0.0.1", "迁移至 192.168.1.1 机房", "1.2.3", "1..2.3.4", "a1.2.3.4b",
+                "v1.2.3.4.5", "1.2.3.", "1.2.3.4\n", "版本 1.2.3 于 2024.01.15", "", "0.0.0.0", "１.2.3.4"};
+        for (var sample : samples) {
+            assertEquals(sample.matches(".*\\d+\\.\\d+\\.\\d+\\.\\d+.*"), IPConverter.containsIpv4Token(sample), sample);
+        }
+        assertFalse(IPConverter.containsIpv4Token(null));
+    }
+}
@@ -0,0 +1,103 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IPIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private IPIndex writeIndex() throws Exception {
+        var indexPath = tempDir.resolve("hosts.ipidx");
+        try (var writer = new IPIndexWriter(indexPath.toString())) {
+            writer.add("a.xlsx", IPConverter.parseIpv4("10.2.3.4"));
+            writer.add("a.xlsx", IPConverter.parseIpv4("192.168.1.1"));
+            writer.add("b.xlsx", IPConverter.parseIpv4("10.2.3.4"));
+            writer.add("b.xlsx", IPConverter.parseIpv4("10.3.0.1"));
+            writer.add("b.xlsx", IPConverter.parseIpv4("255.255.255.255"));
+            writer.add("b.xlsx", IPConverter.parseIpv4("0.0.0.0"));
+            // 重复记录只保留一条
+            writer.add("a.xlsx", IPConverter.parseIpv4("10.2.3.4"));
+        }
+        return IPIndex.open(indexPath);
+    }
+
+    @Test
+    void testContains() throws Exception {
+        var index = writeIndex();
+
+        assertEquals(6, index.size());
+        assertTrue(index.contains("10.2.3.4"));
+        assertTrue(index.contains("192.168.1.1"));
+        assertTrue(index.contains("255.255.255.255"));
+        assertTrue(index.contains("0.0.0.0"));
+        assertFalse(index.contains("10.2.3.5"));
+        assertFalse(index.contains("not an ip"));
+    }
+
+    @Test
+    void testSourcesOf() throws Exception {
+        var index = writeIndex();
+
+        assertEquals(List.of("a.xlsx", "b.xlsx"), index.sourcesOf("10.2.3.4"));
+        assertEquals(List.of("b.xlsx"), index.sourcesOf("10.3.0.1"));
+        assertEquals(List.of(), index.sourcesOf("8.8.8.8"));
+    }
+
+    @Test
+    void testCidrRange() throws Exception {
+        var index = writeIndex();
+
+        var entries = index.cidr("10.2.0.0/16");
+        assertEquals(2, entries.size());
+        assertEquals("10.2.3.4", entries.get(0).ipAddress());
+
+        assertEquals(3, index.cidr("10.0.0.0/8").size());
+        assertEquals(6, index.cidr("0.0.0.0/0").size());
+        assertEquals(1, index.cidr("255.255.255.255/32").size());
+        assertEquals(4, index.countInRange(IPConverter.parseIpv4("10.0.0.0"), IPConverter.parseIpv4("192.168.1.1")));
+    }
+
+    @Test
+    void testInvalidCidr() {
+        assertThrows(IllegalArgumentException.class, () -> IPIndex.cidrRange("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> IPIndex.cidrRange("10.0.0/8"));
+    }
+
+    @Test
+    void testCorruptNamesTable() throws Exception {
+        writeIndex();
+        var indexPath = tempDir.resolve("hosts.ipidx");
+        var namesOffset = 24 + 8 * 6;
+
+        // 文件名长度为负数
+        try (var channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, -1), namesOffset);
+        }
+        assertThrows(IOException.class, () -> IPIndex.open(indexPath));
+
+        // 文件名长度超出文件末尾
+        try (var channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), namesOffset);
+        }
+        assertThrows(IOException.class, () -> IPIndex.open(indexPath));
+
+        // 文件名表被截断
+        writeIndex();
+        try (var channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(indexPath) - 2);
+        }
+        assertThrows(IOException.class, () -> IPIndex.open(indexPath));
+    }
+}
@@ -0,0 +1,91 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurstThenRefill() {
+        var bucket = new TokenBucket(10, 5);
+        var now = System.nanoTime();
+
+        for (var i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(1, now), "突发容量内应立即获取");
+        }
+        var wait = bucket.tryAcquire(1, now);
+        assertEquals(SECOND / 10, wait, "桶空后应等待一个令牌间隔");
+
+        // 一个间隔后补充一个令牌
+        assertEquals(0, bucket.tryAcquire(1, now + wait));
+        assertTrue(bucket.tryAcquire(1, now + wait) > 0);
+    }
+
+    @Test
+    void testBatchMayOverdraw() {
+        var bucket = new TokenBucket(10, 5);
+        var now = System.nanoTime();
+
+        assertEquals(0, bucket.tryAcquire(20, now), "有令牌时允许一次透支");
+        // 透支了15个令牌，需要等待偿还后才能再获取
+        assertEquals(16 * SECOND / 10, bucket.tryAcquire(1, now));
+        assertEquals(0, bucket.tryAcquire(1, now + 16 * SECOND / 10));
+    }
+
+    @Test
+    void testReleaseReturnsTokens() {
+        var bucket = new TokenBucket(10, 5);
+        var now = System.nanoTime();
+
+        assertEquals(0, bucket.tryAcquire(5, now));
+        assertTrue(bucket.tryAcquire(1, now) > 0);
+        bucket.release(2);
+        assertEquals(0, bucket.tryAcquire(1, now));
+        assertEquals(0, bucket.tryAcquire(1, now));
+        assertTrue(bucket.tryAcquire(1, now) > 0);
+    }
+
+    @Test
+    void testConcurrentAcquireNeverExceedsBurst() throws Exception {
+        // 速率极低，测试期间不会补充令牌
+        var bucket = new TokenBucket(0.001, 50);
+        var acquired = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var threads = new Thread[8];
+        for (var i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (var j = 0; j < 100; j++) {
+                    if (bucket.tryAcquire(1) == 0) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(50, acquired.get());
+    }
+
+    @Test
+    void testRejectsInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0));
+    }
+}
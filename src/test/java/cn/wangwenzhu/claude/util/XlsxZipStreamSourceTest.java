@@ -0,0 +1,170 @@
+package cn.wangwenzhu.claude.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class XlsxZipStreamSourceTest {
+
+    private static final String WORKBOOK = """
+            <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+            xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">\
+            <sheets><sheet name="主机" sheetId="1" r:id="rId1"/><sheet name="备用" sheetId="2" r:id="rId2"/></sheets>\
+            </workbook>""";
+
+    private static final String WORKBOOK_RELS = """
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Target="worksheets/sheet1.xml"/>\
+            <Relationship Id="rId2" Target="/xl/worksheets/sheet2.xml"/>\
+            </Relationships>""";
+
+    private static final String SHEET1 = """
+            <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main"><sheetData>\
+            <row r="1"><c r="A1" t="s"><v>0</v></c><c r="B1" t="s"><v>1</v></c></row>\
+            <row r="2"><c r="A2"><v>1</v></c><c r="B2" t="s"><v>2</v></c></row>\
+            <row r="3"><c r="A3"><v>2</v></c><c r="C3" t="inlineStr"><is><t>10.0.0.2</t></is></c></row>\
+            </sheetData></worksheet>""";
+
+    private static final String SHEET2 = """
+            <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main"><sheetData>\
+            <row r="1"><c r="A1" t="s"><v>1</v></c></row>\
+            <row r="2"><c r="A2" t="str"><v>10.0.0.3</v></c></row>\
+            </sheetData></worksheet>""";
+
+    private static final String SHARED_STRINGS = """
+            <sst xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">\
+            <si><t>序号</t></si><si><r><t>通讯</t></r><r><t>主机号</t></r><rPh><t>x</t></rPh></si>\
+            <si><t>10.0.0.1</t></si></sst>""";
+
+    @Test
+    public void testSheetsBeforeSharedStrings() throws Exception {
+        // Excel保存的文件中工作表位于共享字符串之前
+        var xlsx = zip("xl/workbook.xml", WORKBOOK,
+                "xl/_rels/workbook.xml.rels", WORKBOOK_RELS,
+                "xl/worksheets/sheet1.xml", SHEET1,
+                "xl/worksheets/sheet2.xml", SHEET2,
+                "xl/sharedStrings.xml", SHARED_STRINGS);
+
+        var source = RowSource.streaming(new ByteArrayInputStream(xlsx), "upload.xlsx");
+        assertInstanceOf(XlsxZipStreamSource.class, source);
+
+        var hosts = new ArrayList<String>();
+        source.read((sheetIndex, sheetName) -> new HostRowCollector(ip -> hosts.add(sheetName + ":" + ip)), null);
+
+        assertEquals(3, hosts.size());
+        assertEquals("主机:10.0.0.1", hosts.get(0));
+        assertEquals("主机:10.0.0.2", hosts.get(1));
+        assertEquals("备用:10.0.0.3", hosts.get(2));
+    }
+
+    @Test
+    public void testHighlyCompressibleEntryIsRejected() throws Exception {
+        // 4 MB的空白压缩后只有几KB，解压比例低于下限
+        var xlsx = zip("xl/workbook.xml", WORKBOOK,
+                "xl/worksheets/sheet1.xml", SHEET1.replace("<sheetData>", "<sheetData>" + " ".repeat(4 << 20)));
+
+        var source = RowSource.streaming(new ByteArrayInputStream(xlsx), "bomb.xlsx");
+        var e = assertThrows(IOException.class, () -> source.read((sheetIndex, sheetName) ->
+                new HostRowCollector(ip -> {
+                }), null));
+        assertTrue(e.getMessage().contains("解压比例"), e.getMessage());
+    }
+
+    @Test
+    public void testInflatedSizeLimits() throws Exception {
+        var xlsx = zip("xl/workbook.xml", WORKBOOK,
+                "xl/worksheets/sheet1.xml", SHEET1,
+                "xl/worksheets/sheet2.xml", SHEET2,
+                "xl/sharedStrings.xml", SHARED_STRINGS);
+
+        // 单个部件
+        var entryLimited = new XlsxZipStreamSource(new ByteArrayInputStream(xlsx), "upload.xlsx",
+                new XlsxZipStreamSource.Limits(300, 1 << 20, 1000));
+        var e = assertThrows(IOException.class, () -> entryLimited.read((sheetIndex, sheetName) ->
+                new HostRowCollector(ip -> {
+                }), null));
+        assertTrue(e.getMessage().contains("xl/worksheets/sheet1.xml"), e.getMessage());
+
+        // 整个压缩包
+        var totalLimited = new XlsxZipStreamSource(new ByteArrayInputStream(xlsx), "upload.xlsx",
+                new XlsxZipStreamSource.Limits(1 << 20, 800, 1000));
+        assertThrows(IOException.class, () -> totalLimited.read((sheetIndex, sheetName) ->
+                new HostRowCollector(ip -> {
+                }), null));
+    }
+
+    @Test
+    public void testDeferredCellLimit() throws Exception {
+        // 两个工作表都在共享字符串表之前，共暂存8个单元格
+        var xlsx = zip("xl/workbook.xml", WORKBOOK,
+                "xl/worksheets/sheet1.xml", SHEET1,
+                "xl/worksheets/sheet2.xml", SHEET2,
+                "xl/sharedStrings.xml", SHARED_STRINGS);
+
+        var limited = new XlsxZipStreamSource(new ByteArrayInputStream(xlsx), "upload.xlsx",
+                new XlsxZipStreamSource.Limits(1 << 20, 1 << 20, 7));
+        assertThrows(IOException.class, () -> limited.read((sheetIndex, sheetName) ->
+                new HostRowCollector(ip -> {
+                }), null));
+
+        var hosts = new ArrayList<String>();
+        new XlsxZipStreamSource(new ByteArrayInputStream(xlsx), "upload.xlsx",
+                new XlsxZipStreamSource.Limits(1 << 20, 1 << 20, 8))
+                .read((sheetIndex, sheetName) -> new HostRowCollector(hosts::add), null);
+        assertEquals(List.of("10.0.0.1", "10.0.0.2", "10.0.0.3"), hosts);
+    }
+
+    @Test
+    public void testCorruptReferencesFailAsIOException() throws Exception {
+        for (var corrupt : List.of(SHEET1.replace("<row r=\"2\">", "<row r=\"x2\">"),
+                SHEET1.replace("<row r=\"2\">", "<row r=\"0\">"),
+                SHEET1.replace("r=\"B2\"", "r=\"2\""),
+                SHEET1.replace("r=\"B2\"", "r=\"ZZZZZZZZ2\""))) {
+            // 共享字符串表在前（直接回调）和在后（暂存）两种情况
+            for (var xlsx : List.of(
+                    zip("xl/sharedStrings.xml", SHARED_STRINGS, "xl/worksheets/sheet1.xml", corrupt),
+                    zip("xl/worksheets/sheet1.xml", corrupt, "xl/sharedStrings.xml", SHARED_STRINGS))) {
+                var source = RowSource.streaming(new ByteArrayInputStream(xlsx), "corrupt.xlsx");
+                var e = assertThrows(IOException.class, () -> source.read((sheetIndex, sheetName) ->
+                        new HostRowCollector(ip -> {
+                        }), null));
+                assertTrue(e.getMessage().contains("无效的"), e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testCsvFallback() throws IOException {
+        var csv = "序号,通讯主机号\n1,10.0.0.1\n".getBytes(StandardCharsets.UTF_8);
+        var source = RowSource.streaming(new ByteArrayInputStream(csv), "upload");
+        assertInstanceOf(CsvRowSource.class, source);
+
+        var hosts = new ArrayList<String>();
+        source.read((sheetIndex, sheetName) -> new HostRowCollector(hosts::add), null);
+        assertEquals(List.of("10.0.0.1"), hosts);
+    }
+
+    private static byte[] zip(String... entries) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(bytes)) {
+            for (var i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}